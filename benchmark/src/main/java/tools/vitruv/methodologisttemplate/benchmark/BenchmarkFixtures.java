@@ -0,0 +1,96 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Setup shared by the benchmarks. The virtual model is configured like in the
+ * tests.
+ */
+final class BenchmarkFixtures {
+
+    static {
+        Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().put("*", new XMIResourceFactoryImpl());
+    }
+
+    private BenchmarkFixtures() {
+        // Utility class
+    }
+
+    static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("vsum-benchmark");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteRecursively(Path directory) {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Creates a virtual model with registered root objects and the damper system
+    // of the scenario
+    static InternalVirtualModel createVirtualModel(Path directory, DamperScenario scenario) {
+        InternalVirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory);
+        UncertaintyTestUtil.registerRootObjects(vsum, directory);
+        CommittableView view = getView(vsum);
+        try {
+            DamperSystem damperSystem = scenario.createDamperSystem();
+            view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().add(damperSystem);
+            view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next().getUncertainties()
+                    .addAll(scenario.createUncertainties(damperSystem));
+            view.commitChanges();
+        } finally {
+            closeView(view);
+        }
+        return vsum;
+    }
+
+    static CommittableView getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+    }
+
+    // An open view stays registered with the virtual model and is updated on
+    // every later commit, which would slow down the following invocations
+    static void closeView(View view) {
+        if (view == null) {
+            return;
+        }
+        try {
+            view.close();
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot close the view", e);
+        }
+    }
+
+    static DamperSystem getDamperSystem(CommittableView view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+}
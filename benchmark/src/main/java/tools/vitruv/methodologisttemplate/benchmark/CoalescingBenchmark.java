@@ -0,0 +1,149 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.SpringDamper;
+import mafds.UpperTruss;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DerivedQuantityTracker;
+import tools.vitruv.methodologisttemplate.viewtype.ChangeFilter;
+import tools.vitruv.methodologisttemplate.viewtype.ChangeTransformingViewType;
+import tools.vitruv.methodologisttemplate.viewtype.CoalescingChangeFilter;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Commit of a recorded editing session through a
+ * {@link ChangeTransformingViewType} with and without the
+ * {@link CoalescingChangeFilter}. A session steps the stiffness and the sphere
+ * mass of some damper systems like a slider. Besides the commit time, the
+ * secondary results {@code propagatedChanges} and {@code recomputations} report
+ * the changes handed to the reactions and the damping ratio recomputations per
+ * session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoalescingBenchmark {
+
+    private static final long SEED = 4711L;
+
+    @Param({ "false", "true" })
+    public boolean coalesce;
+
+    @Param({ "10", "100" })
+    public int steps;
+
+    @Param({ "1", "10" })
+    public int editedSystems;
+
+    @Param({ "false", "true" })
+    public boolean uncertain;
+
+    private Path directory;
+    private InternalVirtualModel vsum;
+    private ChangeTransformingViewType viewType;
+    // Registered last, it sees exactly the changes that are propagated
+    private final ChangeFilter counter = changes -> changes;
+    private CommittableView view;
+    private long seenBefore;
+    private long recomputationsBefore;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Propagations {
+        public long propagatedChanges;
+        public long recomputations;
+    }
+
+    @Setup(Level.Trial)
+    public void createVirtualModel() {
+        viewType = ChangeTransformingViewType.create("session");
+        if (coalesce) {
+            viewType.registerFilter(new CoalescingChangeFilter());
+        }
+        viewType.registerFilter(counter);
+        directory = BenchmarkFixtures.createTempDirectory();
+        vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory);
+        UncertaintyTestUtil.registerRootObjects(vsum, directory);
+        CommittableView fleetView = BenchmarkFixtures.getView(vsum);
+        try {
+            FleetGenerator.populate(fleetView, editedSystems, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                    uncertain ? ExpressionMix.NORMAL : ExpressionMix.ABSENT, SEED);
+            fleetView.commitChanges();
+        } finally {
+            BenchmarkFixtures.closeView(fleetView);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteVirtualModel() {
+        vsum.dispose();
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Setup(Level.Invocation)
+    public void recordSession() {
+        var selector = vsum.createSelector(viewType);
+        selector.getSelectableElements().stream()
+                .filter(element -> element instanceof DamperRepository
+                        || element instanceof UncertaintyAnnotationRepository)
+                .forEach(it -> selector.setSelected(it, true));
+        view = selector.createView().withChangeRecordingTrait();
+        for (DamperSystem damperSystem : view.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems()) {
+            SpringDamper springDamper = damperSystem.getSpringDamper();
+            UpperTruss upperTruss = damperSystem.getUpperTruss();
+            double stiffness = springDamper.getStiffnessInNPerM();
+            double sphereMass = upperTruss.getSphereMassInKg();
+            // The stiffness returns to where it started, the sphere mass keeps a small
+            // net change
+            for (int i = 1; i <= steps; i++) {
+                springDamper.setStiffnessInNPerM(stiffness + 10 * i);
+                upperTruss.setSphereMassInKg(sphereMass + 0.001 * i);
+            }
+            springDamper.setStiffnessInNPerM(stiffness);
+            upperTruss.setSphereMassInKg(sphereMass + 0.001);
+        }
+        seenBefore = viewType.getFilterStatistics(counter).seenChanges();
+        recomputationsBefore = DerivedQuantityTracker.getRecomputationCount();
+    }
+
+    // Views left open would be updated by every later commit
+    @TearDown(Level.Invocation)
+    public void closeView() {
+        BenchmarkFixtures.closeView(view);
+        view = null;
+    }
+
+    @Benchmark
+    public void commitSession(Propagations propagations) {
+        view.commitChanges();
+        propagations.propagatedChanges += viewType.getFilterStatistics(counter).seenChanges() - seenBefore;
+        propagations.recomputations += DerivedQuantityTracker.getRecomputationCount() - recomputationsBefore;
+    }
+}
@@ -0,0 +1,112 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+
+/**
+ * Level two: a single {@link CommittableView#commitChanges()} on a warm virtual
+ * model. The view is retrieved and modified before each invocation and closed
+ * after it, so only the commit and the propagation of its changes are
+ * measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class CommitBenchmark {
+
+    @Param({ "PLAIN", "ANNOTATED", "STOEX" })
+    public DamperScenario scenario;
+
+    private Path directory;
+    private InternalVirtualModel vsum;
+    private CommittableView view;
+    private boolean toggle;
+
+    @Setup(Level.Trial)
+    public void createVirtualModel() {
+        directory = BenchmarkFixtures.createTempDirectory();
+        vsum = BenchmarkFixtures.createVirtualModel(directory, scenario);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteVirtualModel() {
+        vsum.dispose();
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeView() {
+        BenchmarkFixtures.closeView(view);
+        view = null;
+    }
+
+    @State(Scope.Thread)
+    public static class SphereMassChange {
+        @Setup(Level.Invocation)
+        public void modify(CommitBenchmark benchmark) {
+            benchmark.view = BenchmarkFixtures.getView(benchmark.vsum);
+            benchmark.toggle = !benchmark.toggle;
+            DamperSystem damperSystem = BenchmarkFixtures.getDamperSystem(benchmark.view);
+            damperSystem.getUpperTruss().setSphereMassInKg(benchmark.toggle ? 0.80 : 0.76);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RodCountChange {
+        @Setup(Level.Invocation)
+        public void modify(CommitBenchmark benchmark) {
+            benchmark.view = BenchmarkFixtures.getView(benchmark.vsum);
+            benchmark.toggle = !benchmark.toggle;
+            DamperSystem damperSystem = BenchmarkFixtures.getDamperSystem(benchmark.view);
+            damperSystem.getUpperTruss().setNumberOfThreadedRods(benchmark.toggle ? 25 : 21);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SpringChange {
+        @Setup(Level.Invocation)
+        public void modify(CommitBenchmark benchmark) {
+            benchmark.view = BenchmarkFixtures.getView(benchmark.vsum);
+            benchmark.toggle = !benchmark.toggle;
+            DamperSystem damperSystem = BenchmarkFixtures.getDamperSystem(benchmark.view);
+            damperSystem.getSpringDamper().setStiffnessInNPerM(benchmark.toggle ? 30000 : 27000);
+            damperSystem.getSpringDamper().setDampingConstantInNsPerM(benchmark.toggle ? 150 : 140);
+        }
+    }
+
+    @Benchmark
+    public void commitSphereMassChange(SphereMassChange change) {
+        view.commitChanges();
+    }
+
+    @Benchmark
+    public void commitRodCountChange(RodCountChange change) {
+        view.commitChanges();
+    }
+
+    @Benchmark
+    public void commitSpringChange(SpringChange change) {
+        view.commitChanges();
+    }
+}
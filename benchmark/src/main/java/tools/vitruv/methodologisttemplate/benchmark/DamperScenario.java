@@ -0,0 +1,96 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+
+import mafds.DamperSystem;
+import mafds.GuidanceElement;
+import mafds.LowerTruss;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import mafds.UpperTruss;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import uncertainty.Uncertainty;
+
+/**
+ * The damper system of the total mass and damping ratio tests in the three
+ * variants the benchmarks cover: without uncertainties, annotated with
+ * uncertainties without StoEx expressions, and annotated with normal
+ * distributions.
+ */
+public enum DamperScenario {
+
+    PLAIN, ANNOTATED, STOEX;
+
+    /**
+     * Creates the damper system with a total mass of 50.7146 kg.
+     *
+     * @return A new damper system.
+     */
+    public DamperSystem createDamperSystem() {
+        DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+
+        UpperTruss upperTruss = MafdsFactory.eINSTANCE.createUpperTruss();
+        upperTruss.setCrossLinkMassInKg(13.74);
+        upperTruss.setMassOfThreadedRodInKg(0.363);
+        upperTruss.setNumberOfThreadedRods(21);
+        upperTruss.setSphereMassInKg(0.76);
+
+        LowerTruss lowerTruss = MafdsFactory.eINSTANCE.createLowerTruss();
+        lowerTruss.setSphereMassInKg(0.76);
+        lowerTruss.setMassOfThreadedRodInKg(0.363);
+        lowerTruss.setNumberOfThreadedRods(6);
+
+        GuidanceElement guidanceElement = MafdsFactory.eINSTANCE.createGuidanceElement();
+        guidanceElement.setMassOfArmInKg(1.46);
+        guidanceElement.setNumberOfArms(3);
+        guidanceElement.setMassOfJointMiddlePartInKg(0.9236);
+
+        SpringDamper springDamper = MafdsFactory.eINSTANCE.createSpringDamper();
+        springDamper.setStiffnessInNPerM(27000);
+        springDamper.setDampingConstantInNsPerM(140);
+        springDamper.setSpringSupportMassInKg(20.35);
+
+        damperSystem.setUpperTruss(upperTruss);
+        damperSystem.setLowerTruss(lowerTruss);
+        damperSystem.setGuidanceElement(guidanceElement);
+        damperSystem.setSpringDamper(springDamper);
+        return damperSystem;
+    }
+
+    /**
+     * Creates the uncertainty annotations of the scenario for the given system.
+     *
+     * @param damperSystem A system created by {@link #createDamperSystem()}.
+     * @return The annotations, empty for {@link #PLAIN}.
+     */
+    public List<Uncertainty> createUncertainties(DamperSystem damperSystem) {
+        List<Uncertainty> uncertainties = new ArrayList<>();
+        if (this == PLAIN) {
+            return uncertainties;
+        }
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        LowerTruss lowerTruss = damperSystem.getLowerTruss();
+        GuidanceElement guidanceElement = damperSystem.getGuidanceElement();
+        SpringDamper springDamper = damperSystem.getSpringDamper();
+        uncertainties.add(createUncertainty(upperTruss, "crossLinkMassInKg", 13.74, 0.5));
+        uncertainties.add(createUncertainty(upperTruss, "sphereMassInKg", 0.76, 0.03));
+        uncertainties.add(createUncertainty(upperTruss, "massOfThreadedRodInKg", 0.363, 0.015));
+        uncertainties.add(createUncertainty(lowerTruss, "sphereMassInKg", 0.76, 0.03));
+        uncertainties.add(createUncertainty(lowerTruss, "massOfThreadedRodInKg", 0.363, 0.015));
+        uncertainties.add(createUncertainty(guidanceElement, "massOfArmInKg", 1.46, 0.075));
+        uncertainties.add(createUncertainty(guidanceElement, "massOfJointMiddlePartInKg", 0.9236, 0.05));
+        uncertainties.add(createUncertainty(springDamper, "stiffnessInNPerM", 27000, 1200));
+        uncertainties.add(createUncertainty(springDamper, "dampingConstantInNsPerM", 140, 7));
+        uncertainties.add(createUncertainty(springDamper, "springSupportMassInKg", 20.35, 0.25));
+        return uncertainties;
+    }
+
+    private Uncertainty createUncertainty(EObject referencedObject, String parameter, double mu, double sigma) {
+        return UncertaintyTestFactory.createUncertainty(referencedObject, parameter,
+                this == STOEX ? StoexArithmetic.normal(mu, sigma) : null);
+    }
+}
@@ -0,0 +1,199 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+
+/**
+ * Scaling suite over the size of the fleet in the virtual model. It measures
+ * <ul>
+ * <li>the propagation time of adding a whole generated fleet in one commit,</li>
+ * <li>the commit latency of a single edit on a fleet of the given size, and</li>
+ * <li>the heap retained by the virtual model after the fleet is added, reported
+ * as the secondary result {@code retainedHeapBytes}.</li>
+ * </ul>
+ * Every size runs with and without {@link PropagationSettings#isShareProfiles()
+ * shared profiles} for derived uncertainties.
+ * Plotting the results over {@code fleetSize} shows where the pipeline grows
+ * super-linearly.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class FleetScalingBenchmark {
+
+    private static final long SEED = 4711L;
+
+    @State(Scope.Thread)
+    public static class Fleet {
+        @Param({ "1", "10", "100", "1000", "10000", "100000" })
+        public int fleetSize;
+
+        @Param({ "10" })
+        public int uncertaintiesPerSystem;
+
+        @Param({ "ABSENT", "LITERAL", "NORMAL", "MIXED" })
+        public String mix;
+
+        @Param({ "false", "true" })
+        public boolean shareProfiles;
+
+        @Setup(Level.Trial)
+        public void configure() {
+            PropagationSettings.setShareProfiles(shareProfiles);
+        }
+
+        @TearDown(Level.Trial)
+        public void reset() {
+            PropagationSettings.reset();
+        }
+
+        ExpressionMix expressionMix() {
+            return switch (mix) {
+            case "ABSENT" -> ExpressionMix.ABSENT;
+            case "LITERAL" -> ExpressionMix.LITERAL;
+            case "NORMAL" -> ExpressionMix.NORMAL;
+            case "MIXED" -> ExpressionMix.MIXED;
+            default -> throw new IllegalArgumentException("Unknown expression mix: " + mix);
+            };
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap {
+        public long retainedHeapBytes;
+    }
+
+    /**
+     * An empty virtual model with a view holding the generated, uncommitted fleet.
+     */
+    @State(Scope.Thread)
+    public static class PendingFleet {
+        Path directory;
+        InternalVirtualModel vsum;
+        CommittableView view;
+        long heapBefore;
+
+        @Setup(Level.Invocation)
+        public void generate(Fleet fleet) {
+            directory = BenchmarkFixtures.createTempDirectory();
+            vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory);
+            UncertaintyTestUtil.registerRootObjects(vsum, directory);
+            view = BenchmarkFixtures.getView(vsum);
+            heapBefore = usedHeapAfterGc();
+            FleetGenerator.populate(view, fleet.fleetSize, fleet.uncertaintiesPerSystem, fleet.expressionMix(),
+                    SEED);
+        }
+
+        @TearDown(Level.Invocation)
+        public void dispose(Heap heap) {
+            // The view still references its copy of the fleet, drop it first
+            BenchmarkFixtures.closeView(view);
+            view = null;
+            heap.retainedHeapBytes = usedHeapAfterGc() - heapBefore;
+            vsum.dispose();
+            vsum = null;
+            BenchmarkFixtures.deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * A virtual model holding a committed fleet.
+     */
+    @State(Scope.Thread)
+    public static class CommittedFleet {
+        Path directory;
+        InternalVirtualModel vsum;
+        CommittableView view;
+        int edit;
+
+        @Setup(Level.Trial)
+        public void generate(Fleet fleet) {
+            directory = BenchmarkFixtures.createTempDirectory();
+            vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory);
+            UncertaintyTestUtil.registerRootObjects(vsum, directory);
+            CommittableView fleetView = BenchmarkFixtures.getView(vsum);
+            try {
+                FleetGenerator.populate(fleetView, fleet.fleetSize, fleet.uncertaintiesPerSystem,
+                        fleet.expressionMix(), SEED);
+                fleetView.commitChanges();
+            } finally {
+                BenchmarkFixtures.closeView(fleetView);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void edit(Fleet fleet) {
+            view = BenchmarkFixtures.getView(vsum);
+            List<DamperSystem> damperSystems = view.getRootObjects(DamperRepository.class).iterator().next()
+                    .getDamperSystems();
+            // Walk through the fleet so every edit hits another system
+            DamperSystem damperSystem = damperSystems.get((edit++ * 7919) % damperSystems.size());
+            damperSystem.getUpperTruss().setSphereMassInKg(damperSystem.getUpperTruss().getSphereMassInKg() + 0.01);
+        }
+
+        // Views left open would be updated by every later commit, so the latency
+        // would grow with the number of invocations instead of the fleet size
+        @TearDown(Level.Invocation)
+        public void closeView() {
+            BenchmarkFixtures.closeView(view);
+            view = null;
+        }
+
+        @TearDown(Level.Trial)
+        public void dispose() {
+            vsum.dispose();
+            BenchmarkFixtures.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void propagateFleet(PendingFleet pending, Heap heap) {
+        pending.view.commitChanges();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void commitSingleEdit(CommittedFleet committed) {
+        committed.view.commitChanges();
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
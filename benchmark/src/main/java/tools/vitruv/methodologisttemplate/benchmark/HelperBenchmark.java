@@ -0,0 +1,186 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.UpperTruss;
+import tools.vitruv.methodologisttemplate.consistency.DampingRatioReactionsHelper;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.methodologisttemplate.consistency.TotalMassReactionsHelper;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyIndex;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyReactionsHelper;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import tools.vitruv.stoex.interpreter.StoexEvaluator;
+import tools.vitruv.stoex.stoex.Expression;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Level one: the reaction helpers of the consistency module, called directly on
+ * an in-memory model without a virtual model or change recording.
+ * <p>
+ * Every benchmark alternates between two values so the model stays in a steady
+ * state over the iterations. The total mass benchmarks change the model before
+ * calling the helper, as the reactions would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class HelperBenchmark {
+
+    private static final String DAMPING_RATIO = "c / (2 * (k * m)^0.5)";
+    private static final StoexFormula DAMPING_RATIO_FORMULA = StoexFormula.compile(DAMPING_RATIO, "c", "k", "m");
+
+    @Param({ "PLAIN", "ANNOTATED", "STOEX" })
+    public DamperScenario scenario;
+
+    private UncertaintyAnnotationRepository repo;
+    private DamperSystem damperSystem;
+    private Uncertainty sourceUncertainty;
+    private Expression rodMass;
+    private Expression[] dampingRatioInputs;
+    private boolean toggle;
+
+    /**
+     * Enables profile sharing for the benchmarks that take this state.
+     */
+    @State(Scope.Thread)
+    public static class SharedProfiles {
+
+        @Setup
+        public void enable() {
+            PropagationSettings.setShareProfiles(true);
+        }
+
+        @TearDown
+        public void disable() {
+            PropagationSettings.setShareProfiles(false);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        DamperRepository damperRepository = MafdsFactory.eINSTANCE.createDamperRepository();
+        damperSystem = scenario.createDamperSystem();
+        damperSystem.setTotalMassInKg(50.7146);
+        damperRepository.getDamperSystems().add(damperSystem);
+        repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        repo.getUncertainties().addAll(scenario.createUncertainties(damperSystem));
+        sourceUncertainty = UncertaintyTestFactory.createUncertainty(damperSystem.getUpperTruss(),
+                "crossLinkMassInKg", null);
+        rodMass = StoexArithmetic.normal(0.363, 0.015);
+        dampingRatioInputs = new Expression[] { StoexArithmetic.normal(140, 7),
+                StoexArithmetic.normal(27000, 1200), StoexArithmetic.normal(50.7146, 0.6) };
+    }
+
+    @Benchmark
+    public Uncertainty totalMassChanged() {
+        toggle = !toggle;
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        double oldMass = upperTruss.getSphereMassInKg();
+        upperTruss.setSphereMassInKg(toggle ? 0.80 : 0.76);
+        return TotalMassReactionsHelper.handleUncertainty(repo, "sphereMassInKg",
+                upperTruss.getSphereMassInKg() - oldMass, upperTruss, damperSystem);
+    }
+
+    @Benchmark
+    public Uncertainty totalMassChangedMultipleMass() {
+        toggle = !toggle;
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        double oldMass = upperTruss.getMassOfThreadedRodInKg();
+        upperTruss.setMassOfThreadedRodInKg(toggle ? 0.38 : 0.363);
+        return TotalMassReactionsHelper.handleUncertainty(repo, "massOfThreadedRodInKg",
+                (upperTruss.getMassOfThreadedRodInKg() - oldMass) * upperTruss.getNumberOfThreadedRods(),
+                upperTruss, damperSystem);
+    }
+
+    @Benchmark
+    public Uncertainty totalMassChangedMultipleCount() {
+        toggle = !toggle;
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        int oldCount = upperTruss.getNumberOfThreadedRods();
+        upperTruss.setNumberOfThreadedRods(toggle ? 25 : 21);
+        return TotalMassReactionsHelper.handleUncertainty(repo, "massOfThreadedRodInKg",
+                (upperTruss.getNumberOfThreadedRods() - oldCount) * upperTruss.getMassOfThreadedRodInKg(),
+                upperTruss, damperSystem);
+    }
+
+    @Benchmark
+    public Uncertainty dampingRatioChanged() {
+        return DampingRatioReactionsHelper.handleUncertainty(repo, damperSystem, "stiffnessInNPerM",
+                damperSystem.getSpringDamper());
+    }
+
+    @Benchmark
+    public double dampingRatioRecompute() {
+        DampingRatioReactionsHelper.recompute(repo, damperSystem);
+        return damperSystem.getDampingRatio();
+    }
+
+    @Benchmark
+    public List<Uncertainty> createMissingUncertainties() {
+        return UncertaintyReactionsHelper.createMissingUncertaintiesForReferencedComponents(repo,
+                List.<EObject>of(damperSystem.getUpperTruss()), sourceUncertainty);
+    }
+
+    @Benchmark
+    public Uncertainty deepCopyUncertainty() {
+        return UncertaintyReactionsHelper.deepCopyUncertainty(sourceUncertainty);
+    }
+
+    @Benchmark
+    public Uncertainty deepCopyUncertaintyShared(SharedProfiles sharedProfiles) {
+        return UncertaintyReactionsHelper.deepCopyUncertainty(sourceUncertainty, repo);
+    }
+
+    @Benchmark
+    public Uncertainty findUncertainty() {
+        return UncertaintyIndex.of(repo).find(damperSystem.getSpringDamper(), "stiffnessInNPerM");
+    }
+
+    @Benchmark
+    public Expression dampingRatioFormula() {
+        return DAMPING_RATIO_FORMULA.evaluate((Object[]) dampingRatioInputs);
+    }
+
+    /**
+     * The damping ratio as the helpers computed it before formulas were
+     * compiled: a new evaluator parsing the formula on every call.
+     */
+    @Benchmark
+    public Expression dampingRatioPerCallEvaluator() {
+        StoexEvaluator stoexEvaluator = new StoexEvaluator();
+        stoexEvaluator.setVariable("c", dampingRatioInputs[0]);
+        stoexEvaluator.setVariable("k", dampingRatioInputs[1]);
+        stoexEvaluator.setVariable("m", dampingRatioInputs[2]);
+        return stoexEvaluator.evaluate(DAMPING_RATIO);
+    }
+
+    @Benchmark
+    public Expression nFoldSum() {
+        return StoexArithmetic.nFoldSum(rodMass, 21);
+    }
+}
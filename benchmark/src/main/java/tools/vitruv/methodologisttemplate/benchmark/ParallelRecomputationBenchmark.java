@@ -0,0 +1,115 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.SpringDamper;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.PropagationMode;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.vsum.DeferredPropagation;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+
+/**
+ * Commit of an edit touching every damper system of a fleet with deferred
+ * recomputation, see {@link DeferredPropagation}. {@code threads = 0} computes
+ * the dirty systems on the committing thread; other values compute them on a
+ * pool with that parallelism. Comparing the scores over {@code threads} shows
+ * the speedup of the partitioned recomputation, comparing {@code fleetSize = 1}
+ * shows the overhead for single-system commits. See
+ * {@link ParallelPropagationBenchmark} for the partitioned propagation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelRecomputationBenchmark {
+
+    private static final long SEED = 4711L;
+
+    @Param({ "1", "1000", "10000" })
+    public int fleetSize;
+
+    @Param({ "0", "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "SYMBOLIC", "MONTE_CARLO", "ANALYTIC" })
+    public PropagationMode mode;
+
+    private Path directory;
+    private InternalVirtualModel vsum;
+    private ForkJoinPool pool;
+    private CommittableView view;
+    private boolean toggle;
+
+    @Setup(Level.Trial)
+    public void createVirtualModel() {
+        PropagationSettings.setMode(mode);
+        pool = threads == 0 ? null : new ForkJoinPool(threads);
+        directory = BenchmarkFixtures.createTempDirectory();
+        vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory);
+        UncertaintyTestUtil.registerRootObjects(vsum, directory);
+        CommittableView fleetView = BenchmarkFixtures.getView(vsum);
+        try {
+            FleetGenerator.populate(fleetView, fleetSize, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                    ExpressionMix.NORMAL, SEED);
+            DeferredPropagation.commit(vsum, fleetView, pool);
+        } finally {
+            BenchmarkFixtures.closeView(fleetView);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteVirtualModel() {
+        vsum.dispose();
+        BenchmarkFixtures.deleteRecursively(directory);
+        if (pool != null) {
+            pool.shutdown();
+        }
+        PropagationSettings.reset();
+    }
+
+    @Setup(Level.Invocation)
+    public void changeEverySpring() {
+        view = BenchmarkFixtures.getView(vsum);
+        toggle = !toggle;
+        for (DamperSystem damperSystem : view.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems()) {
+            SpringDamper springDamper = damperSystem.getSpringDamper();
+            springDamper.setStiffnessInNPerM(springDamper.getStiffnessInNPerM() * (toggle ? 1.1 : 1 / 1.1));
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeView() {
+        BenchmarkFixtures.closeView(view);
+        view = null;
+    }
+
+    @Benchmark
+    public int commitFleetEdit() {
+        return DeferredPropagation.commit(vsum, view, pool);
+    }
+}
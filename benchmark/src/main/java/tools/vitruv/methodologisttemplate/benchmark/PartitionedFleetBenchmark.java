@@ -0,0 +1,127 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.PartitionedFleetStore;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Single-damper editing sessions on a {@link PartitionedFleetStore}: a system is
+ * checked out into an empty virtual model, edited, committed and checked in
+ * again. The secondary result {@code retainedHeapBytes} reports the heap
+ * retained by the store and the virtual model after the sessions of an
+ * iteration and should not grow with {@code fleetSize}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionedFleetBenchmark {
+
+    private static final long SEED = 4711L;
+
+    @Param({ "100", "1000", "10000" })
+    public int fleetSize;
+
+    private Path directory;
+    private PartitionedFleetStore store;
+    private InternalVirtualModel vsum;
+    private List<String> ids;
+    private int session;
+    private long heapBefore;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Heap {
+        public long retainedHeapBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void createStore() throws IOException {
+        directory = BenchmarkFixtures.createTempDirectory();
+        writeFleet(directory.resolve("store"));
+        heapBefore = usedHeapAfterGc();
+        store = PartitionedFleetStore.open(directory.resolve("store"));
+        ids = new ArrayList<>(store.ids());
+        vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory.resolve("vsum"));
+        UncertaintyTestUtil.registerRootObjects(vsum, directory.resolve("vsum"));
+    }
+
+    @TearDown(Level.Iteration)
+    public void measureHeap(Heap heap) {
+        heap.retainedHeapBytes = usedHeapAfterGc() - heapBefore;
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStore() {
+        vsum.dispose();
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void editSingleDamper(Heap heap) throws IOException {
+        // Walk through the fleet so every session hits another system
+        List<String> checkedOut = List.of(ids.get((session++ * 7919) % ids.size()));
+        store.checkout(vsum, checkedOut);
+        CommittableView view = BenchmarkFixtures.getView(vsum);
+        try {
+            DamperSystem damperSystem = view.getRootObjects(DamperRepository.class).iterator().next()
+                    .getDamperSystems().get(0);
+            damperSystem.getUpperTruss().setSphereMassInKg(damperSystem.getUpperTruss().getSphereMassInKg() + 0.01);
+            view.commitChanges();
+        } finally {
+            // An open view would retain the checked in system
+            BenchmarkFixtures.closeView(view);
+        }
+        store.checkin(vsum, checkedOut);
+    }
+
+    // Writes the generated fleet without keeping it reachable
+    private void writeFleet(Path storeDirectory) throws IOException {
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        DamperRepository damperRepo = FleetGenerator.generate(uncertaintyRepo, fleetSize,
+                FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL, SEED);
+        for (int i = 0; i < fleetSize; i++) {
+            damperRepo.getDamperSystems().get(i).setId("D-" + i);
+        }
+        PartitionedFleetStore.open(storeDirectory).putAll(damperRepo, uncertaintyRepo);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
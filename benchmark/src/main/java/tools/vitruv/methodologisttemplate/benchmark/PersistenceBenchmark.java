@@ -0,0 +1,117 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.DualFormatResourceFactory;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.Format;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Saving and loading of a generated fleet with normal distributed uncertainties
+ * in the {@link ModelPersistence.Format formats} of {@link ModelPersistence}.
+ * The secondary result {@code fileSizeBytes} reports the combined size of the
+ * {@code example.mafds} and {@code uncertainty.model} files.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final long SEED = 4711L;
+
+    @Param({ "100", "1000", "10000" })
+    public int fleetSize;
+
+    @Param({ "XMI", "BINARY" })
+    public Format format;
+
+    private Path directory;
+    private Path damperFile;
+    private Path uncertaintyFile;
+    private ResourceSet fleet;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Storage {
+        public long fileSizeBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void generateFleet() throws IOException {
+        directory = BenchmarkFixtures.createTempDirectory();
+        damperFile = directory.resolve("example.mafds");
+        uncertaintyFile = directory.resolve("uncertainty.model");
+        fleet = createResourceSet();
+        Resource damperResource = fleet.createResource(URI.createFileURI(damperFile.toString()));
+        Resource uncertaintyResource = fleet.createResource(URI.createFileURI(uncertaintyFile.toString()));
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        uncertaintyResource.getContents().add(uncertaintyRepo);
+        damperResource.getContents().add(FleetGenerator.generate(uncertaintyRepo, fleetSize,
+                FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL, SEED));
+        saveFleet();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFleet() {
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void save(Storage storage) throws IOException {
+        saveFleet();
+        storage.fileSizeBytes += Files.size(damperFile) + Files.size(uncertaintyFile);
+    }
+
+    @Benchmark
+    public ResourceSet load() throws IOException {
+        ResourceSet resourceSet = createResourceSet();
+        resourceSet.getResource(URI.createFileURI(damperFile.toString()), true);
+        resourceSet.getResource(URI.createFileURI(uncertaintyFile.toString()), true);
+        EcoreUtil.resolveAll(resourceSet);
+        return resourceSet;
+    }
+
+    private void saveFleet() throws IOException {
+        for (Resource resource : fleet.getResources()) {
+            resource.save(null);
+        }
+    }
+
+    private ResourceSet createResourceSet() {
+        ResourceSet resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("*",
+                new DualFormatResourceFactory(format));
+        return resourceSet;
+    }
+}
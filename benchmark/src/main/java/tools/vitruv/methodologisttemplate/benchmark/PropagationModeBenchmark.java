@@ -0,0 +1,66 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tools.vitruv.methodologisttemplate.consistency.PropagationMode;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.stoex.stoex.Expression;
+
+/**
+ * Propagation of the damping ratio {@code c / (2 * (k * m)^0.5)} from normally
+ * distributed inputs in every {@link PropagationMode}. Sums of normal
+ * distributions have a closed form in all modes and are not measured. The
+ * accuracy of the modes against each other is checked by the tests of the vsum
+ * module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropagationModeBenchmark {
+
+    private static final StoexFormula DAMPING_RATIO = StoexFormula.compile("c / (2 * (k * m)^0.5)", "c", "k", "m");
+
+    @Param({ "SYMBOLIC", "MONTE_CARLO", "ANALYTIC" })
+    public PropagationMode mode;
+
+    private Expression dampingConstant;
+    private Expression stiffness;
+    private Expression totalMass;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PropagationSettings.setMode(mode);
+        dampingConstant = StoexArithmetic.normal(140, 7);
+        stiffness = StoexArithmetic.normal(27000, 1200);
+        totalMass = StoexArithmetic.normal(50.7146, 0.5829);
+    }
+
+    @TearDown(Level.Trial)
+    public void reset() {
+        PropagationSettings.reset();
+    }
+
+    @Benchmark
+    public Expression dampingRatio() {
+        return DAMPING_RATIO.propagate(dampingConstant, stiffness, totalMass);
+    }
+}
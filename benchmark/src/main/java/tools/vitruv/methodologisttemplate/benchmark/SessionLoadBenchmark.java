@@ -0,0 +1,146 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.ViewSessionManager;
+import tools.vitruv.methodologisttemplate.vsum.ViewSessionManager.Session;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+
+/**
+ * Commit latency of a client of a {@link ViewSessionManager} while
+ * {@code clients - 1} other clients commit edits of their own damper system
+ * on their own threads as fast as they can. The sampled score gives the latency
+ * percentiles of single commits under that load; the secondary result
+ * {@code commits} is the commit throughput of all clients together and
+ * {@code conflicts} the rate of rejected commits, which stays 0 as the
+ * clients edit disjoint systems.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionLoadBenchmark {
+
+    private static final long SEED = 4711L;
+
+    @Param({ "1", "4", "16", "64" })
+    public int clients;
+
+    private Path directory;
+    private InternalVirtualModel vsum;
+    private ViewSessionManager manager;
+    private List<Future<Void>> backgroundClients;
+    private volatile boolean running;
+    private Session session;
+    private boolean toggle;
+    private long commitsBefore;
+    private long conflictsBefore;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public long commits;
+        public long conflicts;
+    }
+
+    @Setup(Level.Trial)
+    public void startClients() {
+        directory = BenchmarkFixtures.createTempDirectory();
+        vsum = UncertaintyTestUtil.createDefaultVirtualModel(directory);
+        UncertaintyTestUtil.registerRootObjects(vsum, directory);
+        CommittableView fleetView = BenchmarkFixtures.getView(vsum);
+        try {
+            FleetGenerator.populate(fleetView, clients, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                    ExpressionMix.NORMAL, SEED);
+            fleetView.commitChanges();
+        } finally {
+            BenchmarkFixtures.closeView(fleetView);
+        }
+
+        manager = new ViewSessionManager(vsum);
+        running = true;
+        backgroundClients = new ArrayList<>();
+        // The measured client edits system 0, every other client its own system
+        for (int i = 1; i < clients; i++) {
+            int index = i;
+            backgroundClients.add(manager.submit(backgroundSession -> {
+                boolean backgroundToggle = false;
+                while (running) {
+                    backgroundToggle = !backgroundToggle;
+                    editSpring(getDamperSystem(backgroundSession, index), backgroundToggle);
+                    backgroundSession.commit();
+                }
+                return null;
+            }));
+        }
+        session = manager.open();
+    }
+
+    @Setup(Level.Iteration)
+    public void countCommits() {
+        commitsBefore = manager.getCommitCount();
+        conflictsBefore = manager.getConflictCount();
+    }
+
+    @TearDown(Level.Iteration)
+    public void measureThroughput(Throughput throughput) {
+        throughput.commits = manager.getCommitCount() - commitsBefore;
+        throughput.conflicts = manager.getConflictCount() - conflictsBefore;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopClients() throws Exception {
+        running = false;
+        for (Future<Void> client : backgroundClients) {
+            client.get();
+        }
+        session.close();
+        manager.close();
+        vsum.dispose();
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void commitOwnDamper(Throughput throughput) {
+        toggle = !toggle;
+        editSpring(getDamperSystem(session, 0), toggle);
+        session.commit();
+    }
+
+    private static DamperSystem getDamperSystem(Session session, int index) {
+        return session.getView().getRootObjects(DamperRepository.class).iterator().next().getDamperSystems()
+                .get(index);
+    }
+
+    private static void editSpring(DamperSystem damperSystem, boolean toggle) {
+        damperSystem.getSpringDamper()
+                .setStiffnessInNPerM(damperSystem.getSpringDamper().getStiffnessInNPerM() * (toggle ? 1.1 : 1 / 1.1));
+    }
+}
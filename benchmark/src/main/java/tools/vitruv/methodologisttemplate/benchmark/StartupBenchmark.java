@@ -0,0 +1,60 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+
+/**
+ * Level three: cold startup of a virtual model, i.e. building and initializing
+ * it, registering the root objects and committing the damper system of the
+ * scenario. Every fork measures a single invocation on a fresh JVM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({ "PLAIN", "ANNOTATED", "STOEX" })
+    public DamperScenario scenario;
+
+    private Path directory;
+    private InternalVirtualModel vsum;
+
+    @Setup(Level.Invocation)
+    public void createDirectory() {
+        directory = BenchmarkFixtures.createTempDirectory();
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDirectory() {
+        if (vsum != null) {
+            vsum.dispose();
+            vsum = null;
+        }
+        BenchmarkFixtures.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public InternalVirtualModel startup() {
+        vsum = BenchmarkFixtures.createVirtualModel(directory, scenario);
+        return vsum;
+    }
+}
@@ -0,0 +1,90 @@
+package tools.vitruv.methodologisttemplate.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mafds.DamperSystem;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine.Axis;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine.Table;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Sweeps of a {@link WhatIfEngine} over a grid of 100 scenarios, the number of
+ * threaded rods of the upper truss from 4 to 8 times 20 spring stiffnesses, on
+ * pools of growing parallelism. The score is the number of sweeps per second;
+ * the secondary result {@code scenarios} is the number of evaluated scenarios
+ * per second and {@code scenariosPerCore} the same divided by the parallelism,
+ * which stays constant as long as the sweep scales linearly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WhatIfBenchmark {
+
+    private static final List<Axis> GRID = List.of(
+            Axis.range("upperTruss.numberOfThreadedRods", 4, 8, 5),
+            Axis.range("springDamper.stiffnessInNPerM", 20000, 34000, 20));
+    private static final int SCENARIOS = 100;
+
+    @Param({ "PLAIN", "ANNOTATED", "STOEX" })
+    public DamperScenario scenario;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    private ForkJoinPool pool;
+    private WhatIfEngine engine;
+    private DamperSystem damperSystem;
+    private UncertaintyAnnotationRepository repo;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Throughput {
+        public long scenarios;
+        public double scenariosPerCore;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        damperSystem = scenario.createDamperSystem();
+        damperSystem.setTotalMassInKg(50.7146);
+        repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        repo.getUncertainties().addAll(scenario.createUncertainties(damperSystem));
+        pool = new ForkJoinPool(threads);
+        engine = new WhatIfEngine(pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Table sweep(Throughput throughput) {
+        Table table = engine.sweep(damperSystem, repo, GRID);
+        throughput.scenarios += SCENARIOS;
+        throughput.scenariosPerCore += (double) SCENARIOS / threads;
+        return table;
+    }
+}
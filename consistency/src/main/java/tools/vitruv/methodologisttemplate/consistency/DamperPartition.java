@@ -0,0 +1,158 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperSystem;
+import mafds.MafdsPackage;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * The consistency work of the mafds2mafds reactions for the edits of one damper
+ * system, performed on a detached copy of the system so that the edited systems
+ * of one commit can be processed in parallel.
+ * <p>
+ * A partition is {@link #fork forked} from an edited system on the thread that
+ * owns its model. {@link #compute()} runs the helpers the reactions call on the
+ * copy: the {@link TotalMassReactionsHelper} for every changed mass parameter,
+ * with the contributions of the system before the edits, and
+ * {@link DampingRatioReactionsHelper#compute} afterwards. It only modifies the
+ * copy, so partitions can be computed concurrently. {@link #apply()} writes the
+ * total mass, the damping ratio and their uncertainties back to the edited
+ * system and has to run on the thread that owns its model again.
+ */
+public final class DamperPartition {
+
+    private static final String TOTAL_MASS = "totalMassInKg";
+    private static final Set<String> DAMPING_RATIO_INPUTS = Set.of("dampingConstantInNsPerM", "stiffnessInNPerM",
+            TOTAL_MASS);
+
+    /**
+     * An edited attribute of a component of the system.
+     *
+     * @param component The edited component or the system itself.
+     * @param attribute The name of the edited attribute.
+     */
+    public record Change(EObject component, String attribute) {
+    }
+
+    private final DamperSystem system;
+    private final UncertaintyAnnotationRepository repo;
+    private final DamperSystem previous;
+    private final WhatIfEngine.Fork fork;
+    private final List<Change> changes;
+    private boolean totalMassChanged;
+    private DampingRatioReactionsHelper.Recomputation dampingRatio;
+
+    private DamperPartition(DamperSystem system, UncertaintyAnnotationRepository repo, DamperSystem previous,
+            WhatIfEngine.Fork fork, List<Change> changes) {
+        this.system = system;
+        this.repo = repo;
+        this.previous = previous;
+        this.fork = fork;
+        this.changes = changes;
+    }
+
+    /**
+     * Copies an edited system and the uncertainties referencing it.
+     *
+     * @param system   The edited damper system.
+     * @param repo     The repository holding its uncertainties, may be null.
+     * @param previous A detached copy of the system before the edits, which the
+     *                 total mass of the system still corresponds to.
+     * @param changes  The edited attributes in the order of the edits.
+     * @return The partition to {@link #compute()}.
+     */
+    public static DamperPartition fork(DamperSystem system, UncertaintyAnnotationRepository repo,
+            DamperSystem previous, Collection<Change> changes) {
+        WhatIfEngine.Fork fork = WhatIfEngine.fork(system,
+                repo == null ? List.of() : WhatIfEngine.referencing(system, repo));
+        List<Change> forkChanges = changes.stream()
+                .map(change -> new Change(change.component() == system
+                        ? fork.system()
+                        : EcoreUtil.getEObject(fork.system(),
+                                EcoreUtil.getRelativeURIFragmentPath(system, change.component())),
+                        change.attribute()))
+                .toList();
+        return new DamperPartition(system, repo, previous, fork, forkChanges);
+    }
+
+    /**
+     * Recomputes the derived quantities of the copy. May run on any thread.
+     */
+    public void compute() {
+        DamperSystem copy = fork.system();
+        UncertaintyAnnotationRepository copyRepo = fork.repo();
+        // Like the aggregator of the virtual model, whose total does not contain
+        // the edits yet
+        TotalMassAggregator aggregator = TotalMassAggregator.restore(copy, previous);
+        Uncertainty totalMass = UncertaintyIndex.of(copyRepo).find(copy, TOTAL_MASS);
+        if (WhatIfEngine.hasExpression(totalMass)) {
+            aggregator.updateExpression(copyRepo, null, totalMass.getEffect().getExpression());
+        }
+
+        boolean dampingRatioInputChanged = false;
+        for (Change change : changes) {
+            String massLocation = TotalMassReactionsHelper.massLocation(change.attribute());
+            if (massLocation != null) {
+                // The reported change is only used for untracked systems
+                TotalMassReactionsHelper.handleUncertainty(copyRepo, massLocation, 0, change.component(), copy);
+                totalMassChanged = true;
+                dampingRatioInputChanged = true;
+            } else if (DAMPING_RATIO_INPUTS.contains(change.attribute())) {
+                dampingRatioInputChanged = true;
+            }
+        }
+        if (dampingRatioInputChanged) {
+            dampingRatio = DampingRatioReactionsHelper.compute(copyRepo, copy);
+        }
+    }
+
+    /**
+     * Writes the computed derived quantities to the edited system, creating the
+     * derived uncertainties it does not have yet.
+     */
+    public void apply() {
+        if (totalMassChanged) {
+            applyTotalMass();
+        }
+        if (dampingRatio != null) {
+            DampingRatioReactionsHelper.apply(repo, new DampingRatioReactionsHelper.Recomputation(system,
+                    dampingRatio.template(), dampingRatio.expression(), dampingRatio.dampingRatio()));
+        }
+    }
+
+    /**
+     * @return The edited damper system.
+     */
+    public DamperSystem getSystem() {
+        return system;
+    }
+
+    private void applyTotalMass() {
+        DamperSystem copy = fork.system();
+        Uncertainty totalMass = UncertaintyIndex.of(fork.repo()).find(copy, TOTAL_MASS);
+        if (WhatIfEngine.hasExpression(totalMass)) {
+            Uncertainty target = UncertaintyIndex.of(repo).find(system, TOTAL_MASS);
+            boolean created = target == null;
+            if (created) {
+                target = UncertaintyReactionsHelper.deepCopyUncertainty(totalMass, repo);
+                target.setId(totalMass.getId());
+                target.getUncertaintyLocation().setParameterLocation(TOTAL_MASS);
+                target.getUncertaintyLocation().getReferencedComponents().add(system);
+            }
+            // Moves the expression out of the copy, which is discarded afterwards
+            DerivedWrites.setExpression(target.getEffect(), totalMass.getEffect().getExpression(),
+                    MafdsPackage.Literals.DAMPER_SYSTEM__TOTAL_MASS_IN_KG);
+            if (created) {
+                repo.getUncertainties().add(target);
+            }
+        }
+        DerivedWrites.setTotalMass(system, copy.getTotalMassInKg());
+    }
+}
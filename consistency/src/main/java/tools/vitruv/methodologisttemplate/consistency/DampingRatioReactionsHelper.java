@@ -5,15 +5,12 @@ import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
 import mafds.DamperSystem;
-import tools.vitruv.stoex.interpreter.StoexEvaluator;
-import tools.vitruv.stoex.stoex.DoubleLiteral;
+import mafds.MafdsPackage;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.SampleStatistics;
 import tools.vitruv.stoex.stoex.Expression;
-import tools.vitruv.stoex.stoex.StoexFactory;
 import uncertainty.Uncertainty;
 import uncertainty.UncertaintyAnnotationRepository;
-import uncertainty.UncertaintyFactory;
-import uncertainty.UncertaintyLocation;
-import uncertainty.UncertaintyLocationType;
 
 /**
  * This test class tests the propagation of the damping ratio and its dependence
@@ -29,6 +26,31 @@ import uncertainty.UncertaintyLocationType;
  */
 public class DampingRatioReactionsHelper {
 
+    private static final StoexFormula DAMPING_RATIO = StoexFormula.compile("c / (2 * (k * m)^0.5)", "c", "k", "m");
+
+    private static final ConsistencyMetrics.Timer HANDLE_UNCERTAINTY = ConsistencyMetrics
+            .helper("DampingRatioReactionsHelper.handleUncertainty");
+    private static final ConsistencyMetrics.Timer COMPUTE = ConsistencyMetrics
+            .helper("DampingRatioReactionsHelper.compute");
+    private static final ConsistencyMetrics.Timer APPLY = ConsistencyMetrics
+            .helper("DampingRatioReactionsHelper.apply");
+
+    /**
+     * The damping ratio of a damper system computed by
+     * {@link DampingRatioReactionsHelper#compute(UncertaintyAnnotationRepository, DamperSystem)}.
+     *
+     * @param system       The damper system.
+     * @param template     The annotated input the damping ratio uncertainty is
+     *                     copied from if the system has none yet, null if no
+     *                     input is annotated.
+     * @param expression   The propagated damping ratio, null if no input is
+     *                     annotated.
+     * @param dampingRatio The (mean) damping ratio.
+     */
+    public record Recomputation(DamperSystem system, Uncertainty template, Expression expression,
+            double dampingRatio) {
+    }
+
     private DampingRatioReactionsHelper() {
         // Utility class
     }
@@ -36,61 +58,174 @@ public class DampingRatioReactionsHelper {
     // Return true if damping ratio is changed
     public static Uncertainty handleUncertainty(UncertaintyAnnotationRepository repo, DamperSystem springDamper,
             String parameterLocation, EObject affectedEObject) {
-        Uncertainty affectedUncertainty = findUncertaintyByLocation(repo, parameterLocation);
-        // System.out.println("");
-        // System.out.println("+++++++ HANDLING DAMPING RATIO +++++++");
-        // System.out.println("Affected EObject: " + affectedEObject);
-        // System.out.println("Affected Uncertainty: " + affectedUncertainty);
-        // System.out.println("Handling uncertainty for parameter location: " +
-        // parameterLocation);
-        if (affectedUncertainty == null || affectedUncertainty.getEffect() == null
-                || affectedUncertainty.getEffect().getExpression() == null) {
-            return null;
+        ConsistencyMetrics.Sample sample = HANDLE_UNCERTAINTY.start(affectedEObject, parameterLocation);
+        try {
+            Uncertainty affectedUncertainty = findUncertaintyByLocation(repo, parameterLocation, affectedEObject);
+            // System.out.println("");
+            // System.out.println("+++++++ HANDLING DAMPING RATIO +++++++");
+            // System.out.println("Affected EObject: " + affectedEObject);
+            // System.out.println("Affected Uncertainty: " + affectedUncertainty);
+            // System.out.println("Handling uncertainty for parameter location: " +
+            // parameterLocation);
+            if (affectedUncertainty == null || affectedUncertainty.getEffect() == null
+                    || affectedUncertainty.getEffect().getExpression() == null) {
+                return null;
+            }
+            // System.out.println("StoEx " +
+            // affectedUncertainty.getEffect().getExpression());
+
+            return updateDampingRatioUncertainty(repo, springDamper, affectedUncertainty);
+        } finally {
+            sample.stop();
         }
-        // System.out.println("StoEx " +
-        // affectedUncertainty.getEffect().getExpression());
+    }
 
-        Uncertainty dampingRatioUncertainty = findUncertaintyByLocation(repo, "dampingRatio");
+    /**
+     * Recomputes the damping ratio of the given system from the current values of
+     * c, k and m. If any of them is annotated with a StoEx expression, the damping
+     * ratio uncertainty is updated as well. Used to recompute dirty systems once
+     * at the end of a propagation, see {@link DerivedQuantityTracker}.
+     *
+     * @param repo         The repository holding the uncertainties, may be null.
+     * @param springDamper The damper system.
+     */
+    public static void recompute(UncertaintyAnnotationRepository repo, DamperSystem springDamper) {
+        apply(repo, compute(repo, springDamper));
+    }
+
+    /**
+     * Computes the damping ratio of the given system like
+     * {@link #recompute(UncertaintyAnnotationRepository, DamperSystem)} without
+     * modifying the model. The computation only reads the system and the
+     * uncertainties referencing it, so systems can be computed concurrently as
+     * long as the model is not modified and the {@link UncertaintyIndex} of the
+     * repository is attached beforehand.
+     *
+     * @param repo         The repository holding the uncertainties, may be null.
+     * @param springDamper The damper system.
+     * @return The result to {@link #apply(UncertaintyAnnotationRepository, Recomputation)
+     *         apply}.
+     */
+    public static Recomputation compute(UncertaintyAnnotationRepository repo, DamperSystem springDamper) {
+        ConsistencyMetrics.Sample sample = COMPUTE.start(springDamper, null);
+        try {
+            DerivedQuantityTracker.recordRecomputation();
+            if (repo != null) {
+                Uncertainty source = firstAnnotated(
+                        findUncertaintyByLocation(repo, "dampingConstantInNsPerM", springDamper.getSpringDamper()),
+                        findUncertaintyByLocation(repo, "stiffnessInNPerM", springDamper.getSpringDamper()),
+                        findUncertaintyByLocation(repo, "totalMassInKg", springDamper));
+                if (source != null) {
+                    Expression expr = propagateDampingRatio(repo, springDamper);
+                    return new Recomputation(springDamper, source, expr, StoexFormula.mean(expr));
+                }
+            }
+            return new Recomputation(springDamper, null, null, DAMPING_RATIO.evaluateNumeric(
+                    springDamper.getSpringDamper().getDampingConstantInNsPerM(),
+                    springDamper.getSpringDamper().getStiffnessInNPerM(),
+                    springDamper.getTotalMassInKg()));
+        } finally {
+            sample.stop();
+        }
+    }
 
-        StoexEvaluator stoexEvaluator = new StoexEvaluator();
+    /**
+     * Writes a computed damping ratio to the model, creating the damping ratio
+     * uncertainty if the result is uncertain and the system has none yet.
+     *
+     * @param repo   The repository holding the uncertainties, may be null if the
+     *               result is not uncertain.
+     * @param result The result of
+     *               {@link #compute(UncertaintyAnnotationRepository, DamperSystem)}.
+     */
+    public static void apply(UncertaintyAnnotationRepository repo, Recomputation result) {
+        ConsistencyMetrics.Sample sample = APPLY.start(result.system(), null);
+        try {
+            if (result.expression() != null) {
+                DerivedWrites.setExpression(
+                        getOrCreateDampingRatioUncertainty(repo, result.system(), result.template()).getEffect(),
+                        result.expression(), MafdsPackage.Literals.DAMPER_SYSTEM__DAMPING_RATIO);
+            }
+            DerivedWrites.setDampingRatio(result.system(), result.dampingRatio());
+        } finally {
+            sample.stop();
+        }
+    }
 
+    private static Uncertainty updateDampingRatioUncertainty(UncertaintyAnnotationRepository repo,
+            DamperSystem springDamper, Uncertainty template) {
+        Uncertainty dampingRatioUncertainty = getOrCreateDampingRatioUncertainty(repo, springDamper, template);
+        Expression newDampingRatioExpr = propagateDampingRatio(repo, springDamper);
+        DerivedWrites.setExpression(dampingRatioUncertainty.getEffect(), newDampingRatioExpr,
+                MafdsPackage.Literals.DAMPER_SYSTEM__DAMPING_RATIO);
+        DerivedWrites.setDampingRatio(springDamper, StoexFormula.mean(newDampingRatioExpr));
+        return dampingRatioUncertainty;
+    }
+
+    private static Uncertainty getOrCreateDampingRatioUncertainty(UncertaintyAnnotationRepository repo,
+            DamperSystem springDamper, Uncertainty template) {
+        Uncertainty dampingRatioUncertainty = findUncertaintyByLocation(repo, "dampingRatio", springDamper);
         if (dampingRatioUncertainty == null) {
-            dampingRatioUncertainty = UncertaintyReactionsHelper.deepCopyUncertainty(affectedUncertainty);
+            dampingRatioUncertainty = UncertaintyReactionsHelper.deepCopyUncertainty(template, repo);
             dampingRatioUncertainty.setId(EcoreUtil.generateUUID());
             dampingRatioUncertainty.getUncertaintyLocation().setParameterLocation("dampingRatio");
             dampingRatioUncertainty.getUncertaintyLocation().getReferencedComponents().add(springDamper);
             repo.getUncertainties().add(dampingRatioUncertainty);
         }
-
-        stoexEvaluator.setVariable("c", getExpression(repo, springDamper, "dampingConstantInNsPerM"));
-        stoexEvaluator.setVariable("k", getExpression(repo, springDamper, "stiffnessInNPerM"));
-        stoexEvaluator.setVariable("m", getExpression(repo, springDamper, "totalMassInKg"));
-        Expression newDampingRatioExpr = stoexEvaluator
-                .evaluate("c / (2 * (k * m)^0.5)");
-        dampingRatioUncertainty.getEffect().setExpression(newDampingRatioExpr);
-        springDamper.setDampingRatio(stoexEvaluator.getMean(newDampingRatioExpr).doubleValue());
         return dampingRatioUncertainty;
     }
 
-    private static Expression getExpression(UncertaintyAnnotationRepository repo,
-            DamperSystem springDamper, String parameterLocation) {
-        Uncertainty u = findUncertaintyByLocation(repo, parameterLocation);
+    private static Expression propagateDampingRatio(UncertaintyAnnotationRepository repo,
+            DamperSystem springDamper) {
+        return StoexCanonicalizer.canonicalize(DAMPING_RATIO.propagate(
+                getExpression(repo, springDamper.getSpringDamper(), "dampingConstantInNsPerM",
+                        springDamper.getSpringDamper().getDampingConstantInNsPerM()),
+                getExpression(repo, springDamper.getSpringDamper(), "stiffnessInNPerM",
+                        springDamper.getSpringDamper().getStiffnessInNPerM()),
+                getExpression(repo, springDamper, "totalMassInKg", springDamper.getTotalMassInKg())));
+    }
+
+    /**
+     * Samples the damping ratio of the given damper system from the current
+     * annotations of c, k and m, independent of the selected propagation mode.
+     *
+     * @param repo         The repository holding the uncertainties.
+     * @param springDamper The damper system.
+     * @return Mean, variance, quantiles and empirical distribution of the damping
+     *         ratio.
+     */
+    public static SampleStatistics sampleDampingRatio(UncertaintyAnnotationRepository repo,
+            DamperSystem springDamper) {
+        return PropagationSettings.getMonteCarloEngine().propagate(DAMPING_RATIO,
+                getExpression(repo, springDamper.getSpringDamper(), "dampingConstantInNsPerM",
+                        springDamper.getSpringDamper().getDampingConstantInNsPerM()),
+                getExpression(repo, springDamper.getSpringDamper(), "stiffnessInNPerM",
+                        springDamper.getSpringDamper().getStiffnessInNPerM()),
+                getExpression(repo, springDamper, "totalMassInKg", springDamper.getTotalMassInKg()));
+    }
+
+    private static Uncertainty firstAnnotated(Uncertainty... uncertainties) {
+        for (Uncertainty u : uncertainties) {
+            if (u != null && u.getEffect() != null && u.getEffect().getExpression() != null) {
+                return u;
+            }
+        }
+        return null;
+    }
+
+    // Returns the StoEx expression annotated to the parameter or its plain value
+    private static Object getExpression(UncertaintyAnnotationRepository repo, EObject component,
+            String parameterLocation, double value) {
+        Uncertainty u = findUncertaintyByLocation(repo, parameterLocation, component);
         if (u == null || u.getEffect() == null || u.getEffect().getExpression() == null) {
-            DoubleLiteral literal = StoexFactory.eINSTANCE.createDoubleLiteral();
-            literal.setValue(springDamper.getSpringDamper().getDampingConstantInNsPerM());
-            return literal;
+            return value;
         }
         return u.getEffect().getExpression();
     }
 
     private static Uncertainty findUncertaintyByLocation(UncertaintyAnnotationRepository repo,
-            String parameterLocation) {
-        return repo.getUncertainties().stream()
-                .filter(u -> u.getUncertaintyLocation().getParameterLocation().equals(parameterLocation)
-                        && u.getUncertaintyLocation()
-                                .getLocation() == UncertaintyLocationType.PARAMETER)
-                .findFirst()
-                .orElse(null);
+            String parameterLocation, EObject referencedObject) {
+        return UncertaintyIndex.of(repo).find(referencedObject, parameterLocation);
     }
 
 }
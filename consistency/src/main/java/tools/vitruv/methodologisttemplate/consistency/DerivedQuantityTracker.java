@@ -0,0 +1,144 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import mafds.DamperSystem;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Tracks the recomputation of derived quantities, i.e. the damping ratio, during
+ * change propagation.
+ * <p>
+ * Without an open {@link Scope} the reactions recompute the damping ratio for
+ * every change of c, k or m, which under transitive propagation happens several
+ * times per commit. While a scope is open on the propagating thread, the
+ * reactions only mark the affected {@link DamperSystem}s as dirty; the owner of
+ * the scope recomputes each of them once after the propagation has finished.
+ * <p>
+ * A scope opened with {@link #openPrecomputed(Predicate)} instead names the
+ * systems whose derived quantities were computed before the propagation, e.g.
+ * in the view the changes are committed from. The reactions leave these
+ * systems alone and recompute all others immediately.
+ * <p>
+ * Every recomputation is counted so the number of recomputations per commit can
+ * be observed.
+ */
+public final class DerivedQuantityTracker {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong RECOMPUTATIONS = new AtomicLong();
+
+    private DerivedQuantityTracker() {
+        // Utility class
+    }
+
+    /**
+     * Opens a deferral scope on the current thread.
+     *
+     * @return The scope, to be closed after the propagation.
+     * @throws IllegalStateException if a scope is already open on this thread.
+     */
+    public static Scope open() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A deferral scope is already open on this thread");
+        }
+        Scope scope = new Scope(true, system -> false);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Opens a scope on the current thread for a propagation that carries the
+     * derived quantities of some systems with it.
+     *
+     * @param precomputed Whether the derived quantities of a damper system of the
+     *                    virtual model were computed before the propagation.
+     * @return The scope, to be closed after the propagation.
+     * @throws IllegalStateException if a scope is already open on this thread.
+     */
+    public static Scope openPrecomputed(Predicate<DamperSystem> precomputed) {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("A deferral scope is already open on this thread");
+        }
+        Scope scope = new Scope(false, precomputed);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Marks the damping ratio of the given system as dirty if a scope is open.
+     *
+     * @param system The damper system whose inputs changed.
+     * @param repo   The repository holding the uncertainties of the system, may
+     *               be null.
+     * @return true if the recomputation is deferred, false if the caller has to
+     *         recompute immediately.
+     */
+    public static boolean markDirty(DamperSystem system, UncertaintyAnnotationRepository repo) {
+        Scope scope = CURRENT.get();
+        if (scope == null || !scope.deferring) {
+            return false;
+        }
+        scope.dirtySystems.putIfAbsent(system, repo);
+        return true;
+    }
+
+    /**
+     * @param system The damper system whose inputs changed.
+     * @return true if the derived quantities of the system were computed before
+     *         the current propagation and must be left alone.
+     */
+    public static boolean isPrecomputed(DamperSystem system) {
+        Scope scope = CURRENT.get();
+        return scope != null && scope.precomputed.test(system);
+    }
+
+    /**
+     * Counts one recomputation of a derived quantity.
+     */
+    public static void recordRecomputation() {
+        RECOMPUTATIONS.incrementAndGet();
+    }
+
+    /**
+     * @return The number of recomputations since the JVM started.
+     */
+    public static long getRecomputationCount() {
+        return RECOMPUTATIONS.get();
+    }
+
+    /**
+     * A deferral scope collecting the dirty damper systems of one propagation.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Map<DamperSystem, UncertaintyAnnotationRepository> dirtySystems = new LinkedHashMap<>();
+        private final boolean deferring;
+        private final Predicate<DamperSystem> precomputed;
+
+        private Scope(boolean deferring, Predicate<DamperSystem> precomputed) {
+            // Use DerivedQuantityTracker.open() or openPrecomputed(Predicate)
+            this.deferring = deferring;
+            this.precomputed = precomputed;
+        }
+
+        /**
+         * @return The dirty systems in the order they were marked, each with the
+         *         repository holding its uncertainties.
+         */
+        public Map<DamperSystem, UncertaintyAnnotationRepository> getDirtySystems() {
+            return Collections.unmodifiableMap(dirtySystems);
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
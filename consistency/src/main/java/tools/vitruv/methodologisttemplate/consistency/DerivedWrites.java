@@ -0,0 +1,129 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperSystem;
+import mafds.MafdsPackage;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Effect;
+
+/**
+ * Writes derived attributes and uncertainty expressions only if they change by
+ * more than the {@link PropagationSettings#getTolerance tolerance} of the
+ * derived attribute.
+ * <p>
+ * Under transitive propagation every write emits a change, which fires the
+ * reactions to the derived attribute even if the value was written back
+ * unchanged or only changed by rounding. Suppressing such writes stops a
+ * cascade as soon as its values have converged. Expressions are compared by
+ * their moments: literals and normal distributions are within the tolerance
+ * if their means and standard deviations are; other expressions only if they
+ * are structurally equal.
+ * <p>
+ * Every suppressed write is counted so the effect of the tolerances can be
+ * observed.
+ */
+public final class DerivedWrites {
+
+    private static final LongAdder SUPPRESSED = new LongAdder();
+
+    private DerivedWrites() {
+        // Utility class
+    }
+
+    /**
+     * Writes the total mass of a damper system.
+     *
+     * @param system The damper system.
+     * @param value  The new total mass.
+     * @return Whether the value was written.
+     */
+    public static boolean setTotalMass(DamperSystem system, double value) {
+        return setDouble(system, MafdsPackage.Literals.DAMPER_SYSTEM__TOTAL_MASS_IN_KG, value);
+    }
+
+    /**
+     * Writes the damping ratio of a damper system.
+     *
+     * @param system The damper system.
+     * @param value  The new damping ratio.
+     * @return Whether the value was written.
+     */
+    public static boolean setDampingRatio(DamperSystem system, double value) {
+        return setDouble(system, MafdsPackage.Literals.DAMPER_SYSTEM__DAMPING_RATIO, value);
+    }
+
+    /**
+     * Writes a double attribute if the new value is not within the tolerance of
+     * the attribute.
+     *
+     * @param object    The object.
+     * @param attribute The double attribute.
+     * @param value     The new value.
+     * @return Whether the value was written.
+     */
+    public static boolean setDouble(EObject object, EAttribute attribute, double value) {
+        double stored = ((Number) object.eGet(attribute)).doubleValue();
+        if (PropagationSettings.getTolerance(attribute).accepts(stored, value)) {
+            SUPPRESSED.increment();
+            return false;
+        }
+        object.eSet(attribute, value);
+        return true;
+    }
+
+    /**
+     * Writes the expression of the effect of a derived uncertainty if it is not
+     * within the tolerance of the stored one.
+     *
+     * @param effect     The effect.
+     * @param expression The new expression.
+     * @param attribute  The derived attribute the uncertainty annotates, whose
+     *                   tolerance applies.
+     * @return Whether the expression was written.
+     */
+    public static boolean setExpression(Effect effect, Expression expression, EAttribute attribute) {
+        if (isWithinTolerance(effect.getExpression(), expression, PropagationSettings.getTolerance(attribute))) {
+            SUPPRESSED.increment();
+            return false;
+        }
+        effect.setExpression(expression);
+        return true;
+    }
+
+    /**
+     * @return The number of writes suppressed since the JVM started or the last
+     *         {@link #resetSuppressedWriteCount() reset}.
+     */
+    public static long getSuppressedWriteCount() {
+        return SUPPRESSED.sum();
+    }
+
+    /**
+     * Resets the number of suppressed writes.
+     */
+    public static void resetSuppressedWriteCount() {
+        SUPPRESSED.reset();
+    }
+
+    private static boolean isWithinTolerance(Expression stored, Expression proposed, Tolerance tolerance) {
+        if (stored == null || proposed == null) {
+            return stored == proposed;
+        }
+        if (stored instanceof DoubleLiteral storedLiteral && proposed instanceof DoubleLiteral proposedLiteral) {
+            return tolerance.accepts(storedLiteral.getValue(), proposedLiteral.getValue());
+        }
+        if (stored instanceof NormalDistribution storedNormal
+                && proposed instanceof NormalDistribution proposedNormal) {
+            return tolerance.accepts(storedNormal.getMu(), proposedNormal.getMu())
+                    && tolerance.accepts(storedNormal.getSigma(), proposedNormal.getSigma());
+        }
+        return EcoreUtil.equals(stored, proposed);
+    }
+}
@@ -0,0 +1,32 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+/**
+ * The way derived quantities such as the damping ratio and the total mass are
+ * computed from uncertain parameters.
+ */
+public enum PropagationMode {
+
+    /**
+     * The derived expression is computed by the StoEx evaluator. Exact for sums
+     * of normal distributions; non-linear formulas are evaluated by the
+     * evaluator itself.
+     */
+    SYMBOLIC,
+
+    /**
+     * The derived quantity is sampled by the
+     * {@link tools.vitruv.methodologisttemplate.consistency.montecarlo.MonteCarloEngine}
+     * and stored as a moment-matched normal distribution. The cost is bounded by
+     * the configured sample count and scales with the available cores.
+     */
+    MONTE_CARLO,
+
+    /**
+     * Only the mean and variance of the derived quantity are propagated, exactly
+     * for sums and by the
+     * {@link tools.vitruv.methodologisttemplate.consistency.analytic.DeltaMethod}
+     * for other formulas, and stored as a moment-matched normal distribution. No
+     * StoEx expression is evaluated, which makes it the cheapest mode.
+     */
+    ANALYTIC
+}
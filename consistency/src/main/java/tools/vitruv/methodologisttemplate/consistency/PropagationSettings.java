@@ -0,0 +1,130 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.MonteCarloEngine;
+
+/**
+ * Global settings for the propagation of uncertainties by the reaction
+ * helpers. The reactions call the helpers statically, so the settings are
+ * static as well and apply to all virtual models of the JVM.
+ */
+public final class PropagationSettings {
+
+    public static final int DEFAULT_SAMPLE_COUNT = 50_000;
+    public static final long DEFAULT_SEED = 42L;
+
+    private static volatile PropagationMode mode = PropagationMode.SYMBOLIC;
+    private static volatile MonteCarloEngine monteCarloEngine = new MonteCarloEngine(DEFAULT_SAMPLE_COUNT,
+            DEFAULT_SEED);
+    private static volatile boolean shareProfiles = false;
+    private static volatile Tolerance defaultTolerance = Tolerance.ROUNDING;
+    private static final Map<EStructuralFeature, Tolerance> TOLERANCES = new ConcurrentHashMap<>();
+
+    private PropagationSettings() {
+        // Utility class
+    }
+
+    /**
+     * @return The mode derived quantities are propagated in.
+     */
+    public static PropagationMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @param newMode The mode derived quantities are propagated in.
+     */
+    public static void setMode(PropagationMode newMode) {
+        if (newMode == null) {
+            throw new IllegalArgumentException("Propagation mode must not be null");
+        }
+        mode = newMode;
+    }
+
+    /**
+     * @return The engine used in {@link PropagationMode#MONTE_CARLO}.
+     */
+    public static MonteCarloEngine getMonteCarloEngine() {
+        return monteCarloEngine;
+    }
+
+    /**
+     * Configures the engine used in {@link PropagationMode#MONTE_CARLO}.
+     *
+     * @param sampleCount The number of samples per derived quantity.
+     * @param seed        The seed, equal seeds give equal results.
+     */
+    public static void configureMonteCarlo(int sampleCount, long seed) {
+        monteCarloEngine = new MonteCarloEngine(sampleCount, seed);
+    }
+
+    /**
+     * @return Whether derived uncertainties share the pattern and perspective of
+     *         their original through an {@link UncertaintyProfiles profile}.
+     */
+    public static boolean isShareProfiles() {
+        return shareProfiles;
+    }
+
+    /**
+     * @param share Whether derived uncertainties share the pattern and
+     *              perspective of their original through an
+     *              {@link UncertaintyProfiles profile}.
+     */
+    public static void setShareProfiles(boolean share) {
+        shareProfiles = share;
+    }
+
+    /**
+     * Returns the tolerance below which a change of a derived attribute, and of
+     * the moments of its uncertainty expression, is not written, see
+     * {@link DerivedWrites}.
+     *
+     * @param feature The derived attribute.
+     * @return The tolerance of the attribute, the default tolerance if none is
+     *         set.
+     */
+    public static Tolerance getTolerance(EStructuralFeature feature) {
+        return TOLERANCES.getOrDefault(feature, defaultTolerance);
+    }
+
+    /**
+     * @param feature   The derived attribute.
+     * @param tolerance The tolerance of the attribute, or null to use the
+     *                  default tolerance.
+     */
+    public static void setTolerance(EStructuralFeature feature, Tolerance tolerance) {
+        if (tolerance == null) {
+            TOLERANCES.remove(feature);
+        } else {
+            TOLERANCES.put(feature, tolerance);
+        }
+    }
+
+    /**
+     * @param tolerance The tolerance of derived attributes without their own
+     *                  tolerance, {@link Tolerance#ROUNDING} by default.
+     */
+    public static void setDefaultTolerance(Tolerance tolerance) {
+        if (tolerance == null) {
+            throw new IllegalArgumentException("Tolerance must not be null");
+        }
+        defaultTolerance = tolerance;
+    }
+
+    /**
+     * Restores the default mode, Monte Carlo configuration, profile sharing and
+     * tolerances.
+     */
+    public static void reset() {
+        mode = PropagationMode.SYMBOLIC;
+        shareProfiles = false;
+        defaultTolerance = Tolerance.ROUNDING;
+        TOLERANCES.clear();
+        monteCarloEngine = new MonteCarloEngine(DEFAULT_SAMPLE_COUNT, DEFAULT_SEED);
+    }
+}
@@ -0,0 +1,156 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import tools.vitruv.methodologisttemplate.consistency.analytic.Moments;
+import tools.vitruv.stoex.interpreter.StoexEvaluator;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import tools.vitruv.stoex.stoex.StoexFactory;
+
+/**
+ * Arithmetic on StoEx expressions with closed forms for the expression types
+ * that appear in the damper models, i.e. double literals and normal
+ * distributions. Summands are treated as independent random variables, which
+ * matches the semantics of the {@link StoexEvaluator}. Expressions without a
+ * closed form are combined through the evaluator, or by their {@link Moments}
+ * in {@link PropagationMode#ANALYTIC}.
+ */
+public final class StoexArithmetic {
+
+    private static final StoexFormula SUM = StoexFormula.compile("a + b", "a", "b");
+    private static final StoexFormula DIFFERENCE = StoexFormula.compile("total - removed", "total", "removed");
+
+    private StoexArithmetic() {
+        // Utility class
+    }
+
+    /**
+     * Creates a new double literal.
+     *
+     * @param value The value of the literal.
+     * @return A new {@link DoubleLiteral}.
+     */
+    public static DoubleLiteral literal(double value) {
+        DoubleLiteral literal = StoexFactory.eINSTANCE.createDoubleLiteral();
+        literal.setValue(value);
+        return literal;
+    }
+
+    /**
+     * Creates a new normal distribution.
+     *
+     * @param mu    The mean of the distribution.
+     * @param sigma The standard deviation of the distribution.
+     * @return A new {@link NormalDistribution}.
+     */
+    public static NormalDistribution normal(double mu, double sigma) {
+        NormalDistribution distribution = StoexFactory.eINSTANCE.createNormalDistribution();
+        distribution.setMu(mu);
+        distribution.setSigma(sigma);
+        return distribution;
+    }
+
+    /**
+     * Adds two independent expressions.
+     *
+     * @param a The first summand.
+     * @param b The second summand.
+     * @return A new expression for {@code a + b}.
+     */
+    public static Expression add(Expression a, Expression b) {
+        if (hasClosedForm(a) && hasClosedForm(b)) {
+            double mu = meanOf(a) + meanOf(b);
+            double variance = varianceOf(a) + varianceOf(b);
+            return variance == 0 ? literal(mu) : normal(mu, Math.sqrt(variance));
+        }
+        if (isAnalytic()) {
+            return Moments.of(a).plus(Moments.of(b)).toExpression();
+        }
+        return SUM.evaluate(a, b);
+    }
+
+    /**
+     * Computes the sum of {@code n} independent, identically distributed copies
+     * of the given expression, e.g. the mass of {@code n} threaded rods. Literals
+     * and normal distributions are scaled in closed form so the cost does not
+     * depend on {@code n}; other expressions are summed by repeated doubling,
+     * which needs a logarithmic number of evaluations.
+     *
+     * @param expr The expression describing a single item.
+     * @param n    The number of items, must not be negative.
+     * @return A new expression for the n-fold sum.
+     */
+    public static Expression nFoldSum(Expression expr, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + n);
+        }
+        if (n == 0) {
+            return literal(0);
+        }
+        if (expr instanceof DoubleLiteral literal) {
+            return literal(n * literal.getValue());
+        }
+        if (expr instanceof NormalDistribution distribution) {
+            return normal(n * distribution.getMu(), Math.sqrt(n) * distribution.getSigma());
+        }
+        if (isAnalytic()) {
+            return Moments.of(expr).times(n).toExpression();
+        }
+        Expression sum = null;
+        Expression power = expr;
+        for (int remaining = n; remaining > 0; remaining >>= 1) {
+            if ((remaining & 1) == 1) {
+                sum = sum == null ? power : add(sum, power);
+            }
+            if (remaining > 1) {
+                power = add(power, power);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Removes {@code n} independent copies of {@code item} from {@code total},
+     * i.e. the inverse of adding {@link #nFoldSum(Expression, int)}. For normal
+     * distributions and literals this is exact. For other expressions the
+     * removed items are subtracted with their mean only, so the spread of the
+     * total is kept as a conservative estimate.
+     *
+     * @param total The expression the items were summed into.
+     * @param item  The expression describing a single item.
+     * @param n     The number of items to remove, must not be negative.
+     * @return A new expression for the remaining total.
+     */
+    public static Expression removeNFold(Expression total, Expression item, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + n);
+        }
+        if (hasClosedForm(total) && hasClosedForm(item)) {
+            double mu = meanOf(total) - n * meanOf(item);
+            double variance = Math.max(0, varianceOf(total) - n * varianceOf(item));
+            return variance == 0 ? literal(mu) : normal(mu, Math.sqrt(variance));
+        }
+        if (isAnalytic()) {
+            return Moments.of(total).minus(Moments.of(item).times(n)).toExpression();
+        }
+        return DIFFERENCE.evaluate(total, n * StoexFormula.mean(item));
+    }
+
+    private static boolean isAnalytic() {
+        return PropagationSettings.getMode() == PropagationMode.ANALYTIC;
+    }
+
+    private static boolean hasClosedForm(Expression expr) {
+        return expr instanceof DoubleLiteral || expr instanceof NormalDistribution;
+    }
+
+    private static double meanOf(Expression expr) {
+        return expr instanceof NormalDistribution distribution ? distribution.getMu()
+                : ((DoubleLiteral) expr).getValue();
+    }
+
+    private static double varianceOf(Expression expr) {
+        return expr instanceof NormalDistribution distribution ? distribution.getSigma() * distribution.getSigma()
+                : 0;
+    }
+}
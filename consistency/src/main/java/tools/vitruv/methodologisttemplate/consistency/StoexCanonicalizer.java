@@ -0,0 +1,92 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.Iterator;
+
+import org.eclipse.emf.ecore.EObject;
+
+import tools.vitruv.stoex.interpreter.StoexEvaluator;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+
+/**
+ * Brings StoEx expressions into a normal form of bounded size before they are
+ * stored as the effect of a derived uncertainty.
+ * <p>
+ * The normal form is a single atomic expression, i.e. one without contained
+ * subexpressions: a {@link DoubleLiteral}, a {@link NormalDistribution} with a
+ * positive standard deviation, or a distribution of another type. Normal
+ * distributions without spread are folded into literals. Composite expressions,
+ * e.g. sums and differences built on top of a previous total, are evaluated by
+ * the {@link StoexEvaluator}, which folds literals and merges sums of
+ * independent normal distributions into a single one. The size of a canonical
+ * expression therefore does not depend on the number of edits it went through.
+ */
+public final class StoexCanonicalizer {
+
+    private static final StoexFormula IDENTITY = StoexFormula.compile("expression", "expression");
+
+    private StoexCanonicalizer() {
+        // Utility class
+    }
+
+    /**
+     * Returns the normal form of an expression. Expressions that are in normal
+     * form already are returned as they are, so storing the result does not
+     * record a change.
+     *
+     * @param expr The expression, may be null.
+     * @return The normal form, or null if the expression is null.
+     */
+    public static Expression canonicalize(Expression expr) {
+        if (expr instanceof NormalDistribution distribution && distribution.getSigma() == 0) {
+            return StoexArithmetic.literal(distribution.getMu());
+        }
+        if (expr == null || isAtomic(expr)) {
+            return expr;
+        }
+        Expression evaluated = IDENTITY.evaluate(expr);
+        return evaluated instanceof NormalDistribution distribution && distribution.getSigma() == 0
+                ? StoexArithmetic.literal(distribution.getMu())
+                : evaluated;
+    }
+
+    /**
+     * @param expr The expression.
+     * @return Whether the expression has no contained subexpressions.
+     */
+    public static boolean isAtomic(Expression expr) {
+        return expr.eContents().isEmpty();
+    }
+
+    /**
+     * @param expr The expression, may be null.
+     * @return The number of objects in the containment tree of the expression.
+     */
+    public static int size(Expression expr) {
+        if (expr == null) {
+            return 0;
+        }
+        int size = 1;
+        for (Iterator<EObject> contents = expr.eAllContents(); contents.hasNext(); contents.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * @param expr The expression, may be null.
+     * @return The height of the containment tree of the expression, 1 for atomic
+     *         expressions.
+     */
+    public static int depth(EObject expr) {
+        if (expr == null) {
+            return 0;
+        }
+        int depth = 0;
+        for (EObject child : expr.eContents()) {
+            depth = Math.max(depth, depth(child));
+        }
+        return depth + 1;
+    }
+}
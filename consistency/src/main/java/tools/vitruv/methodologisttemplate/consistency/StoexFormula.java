@@ -0,0 +1,460 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tools.vitruv.methodologisttemplate.consistency.analytic.DeltaMethod;
+import tools.vitruv.stoex.interpreter.StoexEvaluator;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+
+/**
+ * A StoEx formula that is compiled once and evaluated many times, e.g.
+ * {@code c / (2 * (k * m)^0.5)} for the damping ratio. Compiled formulas are
+ * kept in a registry, are immutable and can be shared between threads.
+ * <p>
+ * On compilation the formula is parsed into an evaluation plan over numbered
+ * variable slots. If all bound values are plain numbers or double literals the
+ * plan is evaluated directly in double arithmetic. Otherwise the plan is
+ * evaluated operation by operation on the bound expressions: operations on
+ * literals and normal distributions with a closed form are computed directly,
+ * all others are handed to a {@link StoexEvaluator} as a single binary
+ * operation. The formula source is never parsed again, and evaluators are
+ * reused per thread instead of being created for every call.
+ */
+public final class StoexFormula {
+
+    private static final Map<String, StoexFormula> REGISTRY = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StoexEvaluator> EVALUATORS = ThreadLocal.withInitial(StoexEvaluator::new);
+    // The binary operations handed to the evaluator, bound to the slots a and b
+    private static final Map<Character, String> OPERATIONS = Map.of(
+            '+', "a + b", '-', "a - b", '*', "a * b", '/', "a / b", '^', "a ^ b");
+
+    private final String source;
+    private final String[] slots;
+    private final Term term;
+    private final Node plan;
+
+    private StoexFormula(String source, String[] slots) {
+        this.source = source;
+        this.slots = slots;
+        this.term = new Parser(source, slots).parse();
+        this.plan = term.compile();
+    }
+
+    /**
+     * Returns the compiled formula for the given source, compiling it on first
+     * use.
+     *
+     * @param source The StoEx formula, e.g. {@code "totalMassInKg + newValue - oldValue"}.
+     * @param slots  The variable names of the formula in the order in which their
+     *               values are passed to {@link #evaluate(Object...)}.
+     * @return The compiled formula.
+     * @throws IllegalArgumentException if the formula cannot be parsed, uses a
+     *                                  variable that is not declared as a slot, or
+     *                                  was compiled before with different slots.
+     */
+    public static StoexFormula compile(String source, String... slots) {
+        StoexFormula formula = REGISTRY.computeIfAbsent(source, s -> new StoexFormula(s, slots.clone()));
+        if (!Arrays.equals(formula.slots, slots)) {
+            throw new IllegalArgumentException("Formula '" + source + "' is already compiled with slots "
+                    + Arrays.toString(formula.slots));
+        }
+        return formula;
+    }
+
+    /**
+     * Evaluates the formula.
+     *
+     * @param values One value per slot, either a {@link Number} or a StoEx
+     *               {@link Expression}.
+     * @return The resulting expression; a {@link DoubleLiteral} if all values are
+     *         numeric.
+     */
+    public Expression evaluate(Object... values) {
+        if (values.length != slots.length) {
+            throw new IllegalArgumentException("Formula '" + source + "' expects " + slots.length
+                    + " values but got " + values.length);
+        }
+        double[] numeric = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof Number number) {
+                numeric[i] = number.doubleValue();
+            } else if (values[i] instanceof DoubleLiteral literal) {
+                numeric[i] = literal.getValue();
+            } else {
+                return evaluateSymbolic(values);
+            }
+        }
+        return StoexArithmetic.literal(plan.evaluate(numeric));
+    }
+
+    /**
+     * Evaluates the formula in the {@link PropagationMode} selected in the
+     * {@link PropagationSettings}. In {@link PropagationMode#MONTE_CARLO} the
+     * uncertain values are sampled and in {@link PropagationMode#ANALYTIC} their
+     * moments are propagated by the {@link DeltaMethod}; in both cases the result
+     * is a moment-matched normal distribution. Purely numeric values are always
+     * evaluated directly.
+     *
+     * @param values One value per slot, either a {@link Number} or a StoEx
+     *               {@link Expression}.
+     * @return The resulting expression.
+     */
+    public Expression propagate(Object... values) {
+        if (isNumeric(values)) {
+            return evaluate(values);
+        }
+        return switch (PropagationSettings.getMode()) {
+        case MONTE_CARLO -> PropagationSettings.getMonteCarloEngine().propagate(this, values).toExpression();
+        case ANALYTIC -> DeltaMethod.propagate(this, values).toExpression();
+        case SYMBOLIC -> evaluate(values);
+        };
+    }
+
+    /**
+     * Evaluates the formula in plain double arithmetic.
+     *
+     * @param values One value per slot.
+     * @return The value of the formula.
+     */
+    public double evaluateNumeric(double... values) {
+        if (values.length != slots.length) {
+            throw new IllegalArgumentException("Formula '" + source + "' expects " + slots.length
+                    + " values but got " + values.length);
+        }
+        return plan.evaluate(values);
+    }
+
+    /**
+     * @return The source of the formula.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Computes the mean of an expression. Literals and normal distributions are
+     * read directly, the means of other expressions are looked up in the
+     * {@link StoexMomentCache#getDefault() default moment cache}.
+     *
+     * @param expr The expression.
+     * @return The mean of the expression.
+     */
+    public static double mean(Expression expr) {
+        if (expr instanceof DoubleLiteral literal) {
+            return literal.getValue();
+        }
+        if (expr instanceof NormalDistribution distribution) {
+            return distribution.getMu();
+        }
+        return StoexMomentCache.getDefault().mean(expr);
+    }
+
+    /**
+     * Evaluates the mean of an expression with the evaluator of the current
+     * thread, bypassing the moment cache.
+     *
+     * @param expr The expression.
+     * @return The mean of the expression.
+     */
+    static double evaluateMean(Expression expr) {
+        return EVALUATORS.get().getMean(expr).doubleValue();
+    }
+
+    private static boolean isNumeric(Object[] values) {
+        for (Object value : values) {
+            if (!(value instanceof Number || value instanceof DoubleLiteral)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Expression evaluateSymbolic(Object[] values) {
+        Expression[] expressions = new Expression[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            if (values[i] instanceof Expression expression) {
+                expressions[i] = expression;
+            } else if (values[i] instanceof Number number) {
+                expressions[i] = StoexArithmetic.literal(number.doubleValue());
+            } else {
+                throw new IllegalArgumentException("Unsupported value for '" + slots[i] + "': " + values[i]);
+            }
+        }
+        return term.evaluate(expressions);
+    }
+
+    // Applies a binary operation in closed form if the operands allow it
+    private static Expression apply(char operator, Expression a, Expression b) {
+        if (a instanceof DoubleLiteral left && b instanceof DoubleLiteral right) {
+            return StoexArithmetic.literal(apply(operator, left.getValue(), right.getValue()));
+        }
+        if ((operator == '+' || operator == '-') && hasClosedForm(a) && hasClosedForm(b)) {
+            // Independent summands, as in StoexArithmetic.add
+            double mu = apply(operator, meanOf(a), meanOf(b));
+            double sigma = Math.hypot(sigmaOf(a), sigmaOf(b));
+            return sigma == 0 ? StoexArithmetic.literal(mu) : StoexArithmetic.normal(mu, sigma);
+        }
+        if (operator == '*' && a instanceof DoubleLiteral factor && b instanceof NormalDistribution distribution) {
+            return scale(distribution, factor.getValue());
+        }
+        if ((operator == '*' || operator == '/') && a instanceof NormalDistribution distribution
+                && b instanceof DoubleLiteral factor && factor.getValue() != 0) {
+            return scale(distribution, operator == '*' ? factor.getValue() : 1 / factor.getValue());
+        }
+        StoexEvaluator stoexEvaluator = EVALUATORS.get();
+        stoexEvaluator.setVariable("a", a);
+        stoexEvaluator.setVariable("b", b);
+        return stoexEvaluator.evaluate(OPERATIONS.get(operator));
+    }
+
+    private static double apply(char operator, double a, double b) {
+        return switch (operator) {
+        case '+' -> a + b;
+        case '-' -> a - b;
+        case '*' -> a * b;
+        case '/' -> a / b;
+        case '^' -> Math.pow(a, b);
+        default -> throw new IllegalStateException("Unknown operator '" + operator + "'");
+        };
+    }
+
+    private static Expression scale(NormalDistribution distribution, double factor) {
+        return factor == 0 ? StoexArithmetic.literal(0)
+                : StoexArithmetic.normal(factor * distribution.getMu(), Math.abs(factor) * distribution.getSigma());
+    }
+
+    private static boolean hasClosedForm(Expression expr) {
+        return expr instanceof DoubleLiteral || expr instanceof NormalDistribution;
+    }
+
+    private static double meanOf(Expression expr) {
+        return expr instanceof NormalDistribution distribution ? distribution.getMu()
+                : ((DoubleLiteral) expr).getValue();
+    }
+
+    private static double sigmaOf(Expression expr) {
+        return expr instanceof NormalDistribution distribution ? distribution.getSigma() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    @FunctionalInterface
+    private interface Node {
+        double evaluate(double[] values);
+    }
+
+    /**
+     * The parsed formula, compiled into a {@link Node} for numeric values and
+     * walked directly for symbolic ones.
+     */
+    private sealed interface Term {
+
+        Node compile();
+
+        Expression evaluate(Expression[] values);
+    }
+
+    private record Constant(double value) implements Term {
+
+        @Override
+        public Node compile() {
+            return v -> value;
+        }
+
+        @Override
+        public Expression evaluate(Expression[] values) {
+            return StoexArithmetic.literal(value);
+        }
+    }
+
+    private record Slot(int index) implements Term {
+
+        @Override
+        public Node compile() {
+            return v -> v[index];
+        }
+
+        @Override
+        public Expression evaluate(Expression[] values) {
+            return values[index];
+        }
+    }
+
+    private record Negation(Term operand) implements Term {
+
+        @Override
+        public Node compile() {
+            Node node = operand.compile();
+            return v -> -node.evaluate(v);
+        }
+
+        @Override
+        public Expression evaluate(Expression[] values) {
+            return apply('*', StoexArithmetic.literal(-1), operand.evaluate(values));
+        }
+    }
+
+    private record Operation(char operator, Term left, Term right) implements Term {
+
+        @Override
+        public Node compile() {
+            Node a = left.compile();
+            Node b = right.compile();
+            return switch (operator) {
+            case '+' -> v -> a.evaluate(v) + b.evaluate(v);
+            case '-' -> v -> a.evaluate(v) - b.evaluate(v);
+            case '*' -> v -> a.evaluate(v) * b.evaluate(v);
+            case '/' -> v -> a.evaluate(v) / b.evaluate(v);
+            default -> v -> Math.pow(a.evaluate(v), b.evaluate(v));
+            };
+        }
+
+        @Override
+        public Expression evaluate(Expression[] values) {
+            return apply(operator, left.evaluate(values), right.evaluate(values));
+        }
+    }
+
+    /**
+     * Recursive descent parser for the arithmetic subset of StoEx used by the
+     * reaction helpers: numbers, variables, parentheses, unary minus and the
+     * binary operators {@code + - * / ^}.
+     */
+    private static final class Parser {
+        private final String source;
+        private final String[] slots;
+        private int position;
+
+        Parser(String source, String[] slots) {
+            this.source = source;
+            this.slots = slots;
+            Set<String> unique = new LinkedHashSet<>(Arrays.asList(slots));
+            if (unique.size() != slots.length) {
+                throw new IllegalArgumentException("Duplicate slot in " + Arrays.toString(slots));
+            }
+        }
+
+        Term parse() {
+            Term node = parseSum();
+            skipWhitespace();
+            if (position != source.length()) {
+                throw error("Unexpected character '" + source.charAt(position) + "'");
+            }
+            return node;
+        }
+
+        private Term parseSum() {
+            Term node = parseProduct();
+            while (true) {
+                if (accept('+')) {
+                    node = new Operation('+', node, parseProduct());
+                } else if (accept('-')) {
+                    node = new Operation('-', node, parseProduct());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Term parseProduct() {
+            Term node = parseUnary();
+            while (true) {
+                if (accept('*')) {
+                    node = new Operation('*', node, parseUnary());
+                } else if (accept('/')) {
+                    node = new Operation('/', node, parseUnary());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Term parseUnary() {
+            if (accept('-')) {
+                return new Negation(parseUnary());
+            }
+            return parsePower();
+        }
+
+        private Term parsePower() {
+            Term base = parsePrimary();
+            if (accept('^')) {
+                return new Operation('^', base, parseUnary());
+            }
+            return base;
+        }
+
+        private Term parsePrimary() {
+            skipWhitespace();
+            if (accept('(')) {
+                Term node = parseSum();
+                if (!accept(')')) {
+                    throw error("Missing ')'");
+                }
+                return node;
+            }
+            if (position >= source.length()) {
+                throw error("Unexpected end of formula");
+            }
+            char c = source.charAt(position);
+            if (Character.isDigit(c) || c == '.') {
+                return parseNumber();
+            }
+            if (Character.isLetter(c) || c == '_') {
+                return parseVariable();
+            }
+            throw error("Unexpected character '" + c + "'");
+        }
+
+        private Term parseNumber() {
+            int start = position;
+            while (position < source.length()
+                    && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+                position++;
+            }
+            return new Constant(Double.parseDouble(source.substring(start, position)));
+        }
+
+        private Term parseVariable() {
+            int start = position;
+            while (position < source.length()
+                    && (Character.isLetterOrDigit(source.charAt(position)) || source.charAt(position) == '_')) {
+                position++;
+            }
+            String name = source.substring(start, position);
+            int slot = Arrays.asList(slots).indexOf(name);
+            if (slot < 0) {
+                throw error("Variable '" + name + "' is not declared as a slot");
+            }
+            return new Slot(slot);
+        }
+
+        private boolean accept(char expected) {
+            skipWhitespace();
+            if (position < source.length() && source.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " in '" + source + "'");
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+
+/**
+ * Bounded cache of the statistics of StoEx expressions, so that the mean of an
+ * unchanged input is not evaluated again on every recomputation.
+ * <p>
+ * Entries are keyed by the structure of an expression, i.e. its type, its
+ * attribute values and the structure of its contained subexpressions. Equal
+ * expressions therefore share an entry even if they are different objects, as
+ * the copies of a view are. The key of an expression is computed once and
+ * memoized in an adapter on the expression. When the expression or one of its
+ * subexpressions is modified, the adapter drops the memoized key and the entry
+ * of the old structure.
+ * <p>
+ * The cache holds at most its capacity of entries and evicts the least
+ * recently used ones. It is safe to use from the workers of a parallel
+ * recomputation.
+ */
+public final class StoexMomentCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final StoexMomentCache DEFAULT = new StoexMomentCache(DEFAULT_CAPACITY);
+
+    // Shifting and squaring transform a single variable, so the evaluator keeps
+    // the dependency between the operands
+    private static final StoexFormula SQUARED_DEVIATION = StoexFormula.compile("(x - m) ^ 2", "x", "m");
+
+    /**
+     * The cached statistics of an expression. Literals and normal distributions
+     * have exact moments and quantiles. Of other expressions the mean and the
+     * variance are evaluated and the quantiles are those of a normal distribution
+     * with the same moments.
+     *
+     * @param mean     The mean.
+     * @param variance The variance.
+     * @param p05      The 5% quantile.
+     * @param median   The median.
+     * @param p95      The 95% quantile.
+     */
+    public record StoexStatistics(double mean, double variance, double p05, double median, double p95) {
+    }
+
+    /**
+     * Counters of a cache.
+     *
+     * @param hits      The number of queries answered from the cache.
+     * @param misses    The number of queries that evaluated the expression.
+     * @param evictions The number of entries evicted for capacity.
+     * @param size      The current number of entries.
+     */
+    public record CacheStatistics(long hits, long misses, long evictions, int size) {
+
+        /**
+         * @return The share of queries answered from the cache, 0 without
+         *         queries.
+         */
+        public double hitRate() {
+            long queries = hits + misses;
+            return queries == 0 ? 0 : (double) hits / queries;
+        }
+
+        /**
+         * @return The share of queries that evaluated the expression, 0 without
+         *         queries.
+         */
+        public double missRate() {
+            long queries = hits + misses;
+            return queries == 0 ? 0 : (double) misses / queries;
+        }
+    }
+
+    // Structure of an expression with a precomputed hash
+    private record StructuralKey(List<Object> parts, int hash) {
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof StructuralKey other && hash == other.hash && parts.equals(other.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int capacity;
+    private final Map<StructuralKey, StoexStatistics> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacity The maximum number of entries.
+     */
+    public StoexMomentCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StructuralKey, StoexStatistics> eldest) {
+                if (size() > StoexMomentCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cache shared by the reaction helpers.
+     */
+    public static StoexMomentCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param expr The expression.
+     * @return The mean of the expression.
+     */
+    public double mean(Expression expr) {
+        return get(expr).mean();
+    }
+
+    /**
+     * Returns the statistics of the expression, evaluating it on a miss.
+     *
+     * @param expr The expression.
+     * @return The statistics of the expression.
+     */
+    public StoexStatistics get(Expression expr) {
+        StructuralKey key = keyOf(expr);
+        StoexStatistics statistics;
+        synchronized (entries) {
+            statistics = entries.get(key);
+        }
+        if (statistics != null) {
+            hits.increment();
+            return statistics;
+        }
+        misses.increment();
+        // Evaluated outside of the lock; concurrent misses of the same key compute
+        // equal statistics
+        statistics = compute(expr);
+        synchronized (entries) {
+            entries.put(key, statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return The counters of the cache.
+     */
+    public CacheStatistics getStatistics() {
+        synchronized (entries) {
+            return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+        }
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    private void invalidate(StructuralKey key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    private static StoexStatistics compute(Expression expr) {
+        if (expr instanceof DoubleLiteral literal) {
+            double value = literal.getValue();
+            return new StoexStatistics(value, 0, value, value, value);
+        }
+        if (expr instanceof NormalDistribution distribution) {
+            return normal(distribution.getMu(), distribution.getSigma());
+        }
+        double mean = StoexFormula.evaluateMean(expr);
+        // The central second moment is evaluated without the cache, which would
+        // otherwise compute the statistics of the squared deviation as well
+        double variance = StoexFormula.evaluateMean(SQUARED_DEVIATION.evaluate(expr, mean));
+        return normal(mean, Math.sqrt(Math.max(0, variance)));
+    }
+
+    private static StoexStatistics normal(double mu, double sigma) {
+        double z = NormalQuantile.of(0.95);
+        return new StoexStatistics(mu, sigma * sigma, mu - z * sigma, mu, mu + z * sigma);
+    }
+
+    private StructuralKey keyOf(Expression expr) {
+        KeyAdapter adapter = null;
+        for (Adapter candidate : expr.eAdapters()) {
+            if (candidate instanceof KeyAdapter keyAdapter && keyAdapter.getCache() == this) {
+                adapter = keyAdapter;
+                break;
+            }
+        }
+        if (adapter == null) {
+            adapter = new KeyAdapter();
+            expr.eAdapters().add(adapter);
+        }
+        return adapter.getKey(expr);
+    }
+
+    private static StructuralKey structuralKey(EObject object) {
+        List<Object> parts = structure(object);
+        return new StructuralKey(parts, parts.hashCode());
+    }
+
+    // Non-containment references are not part of the structure; StoEx
+    // expressions only contain their operands
+    private static List<Object> structure(EObject object) {
+        List<Object> parts = new ArrayList<>();
+        parts.add(object.eClass());
+        for (EStructuralFeature feature : object.eClass().getEAllStructuralFeatures()) {
+            Object value = object.eGet(feature);
+            if (feature instanceof EAttribute) {
+                parts.add(feature.isMany() ? List.copyOf((List<?>) value) : value);
+            } else if (feature instanceof EReference reference && reference.isContainment()) {
+                if (reference.isMany()) {
+                    List<Object> children = new ArrayList<>();
+                    for (Object child : (List<?>) value) {
+                        children.add(structure((EObject) child));
+                    }
+                    parts.add(children);
+                } else {
+                    parts.add(value == null ? null : structure((EObject) value));
+                }
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Memoizes the key of an expression and invalidates it, together with the
+     * cache entry, when the expression or a subexpression changes.
+     */
+    private final class KeyAdapter extends EContentAdapter {
+        private StructuralKey key;
+
+        StoexMomentCache getCache() {
+            return StoexMomentCache.this;
+        }
+
+        StructuralKey getKey(Expression expr) {
+            StructuralKey current = key;
+            if (current == null) {
+                current = structuralKey(expr);
+                key = current;
+            }
+            return current;
+        }
+
+        @Override
+        public void notifyChanged(Notification notification) {
+            super.notifyChanged(notification);
+            if (notification.isTouch() || notification.getEventType() == Notification.REMOVING_ADAPTER) {
+                return;
+            }
+            StructuralKey stale = key;
+            if (stale != null) {
+                key = null;
+                invalidate(stale);
+            }
+        }
+    }
+
+    /**
+     * Quantiles of the standard normal distribution by the rational
+     * approximation of Acklam, accurate to about 1e-9.
+     */
+    private static final class NormalQuantile {
+        private static final double[] A = { -3.969683028665376e+01, 2.209460984245205e+02,
+                -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00 };
+        private static final double[] B = { -5.447609879822406e+01, 1.615858368580409e+02,
+                -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01 };
+        private static final double[] C = { -7.784894002430293e-03, -3.223964580411365e-01,
+                -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00 };
+        private static final double[] D = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00 };
+        private static final double LOW = 0.02425;
+
+        static double of(double p) {
+            if (p < LOW) {
+                double q = Math.sqrt(-2 * Math.log(p));
+                return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                        / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1);
+            }
+            if (p > 1 - LOW) {
+                return -of(1 - p);
+            }
+            double q = p - 0.5;
+            double r = q * q;
+            return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q
+                    / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1);
+        }
+    }
+}
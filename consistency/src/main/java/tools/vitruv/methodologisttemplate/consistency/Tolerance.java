@@ -0,0 +1,58 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+/**
+ * Tolerance below which a new value of a derived quantity is considered equal
+ * to the stored one, see {@link DerivedWrites}. Two values are within the
+ * tolerance if they differ by at most the absolute tolerance or by at most the
+ * relative tolerance times the larger magnitude.
+ *
+ * @param absolute The absolute tolerance, not negative.
+ * @param relative The relative tolerance, not negative.
+ */
+public record Tolerance(double absolute, double relative) {
+
+    /**
+     * Only values that differ in the last few bits, i.e. by rounding, are equal.
+     */
+    public static final Tolerance ROUNDING = new Tolerance(0, 1e-12);
+
+    /**
+     * Only identical values are equal.
+     */
+    public static final Tolerance EXACT = new Tolerance(0, 0);
+
+    public Tolerance {
+        if (!(absolute >= 0) || !(relative >= 0)) {
+            throw new IllegalArgumentException("Tolerances must not be negative: " + absolute + ", " + relative);
+        }
+    }
+
+    /**
+     * @param absolute The absolute tolerance, not negative.
+     * @return A tolerance without a relative part.
+     */
+    public static Tolerance absolute(double absolute) {
+        return new Tolerance(absolute, 0);
+    }
+
+    /**
+     * @param relative The relative tolerance, not negative.
+     * @return A tolerance without an absolute part.
+     */
+    public static Tolerance relative(double relative) {
+        return new Tolerance(0, relative);
+    }
+
+    /**
+     * @param stored   The stored value.
+     * @param proposed The new value.
+     * @return Whether the new value is within the tolerance of the stored one.
+     */
+    public boolean accepts(double stored, double proposed) {
+        if (Double.compare(stored, proposed) == 0) {
+            return true;
+        }
+        double difference = Math.abs(stored - proposed);
+        return difference <= absolute || difference <= relative * Math.max(Math.abs(stored), Math.abs(proposed));
+    }
+}
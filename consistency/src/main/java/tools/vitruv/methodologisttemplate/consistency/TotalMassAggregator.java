@@ -0,0 +1,415 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+
+import mafds.DamperSystem;
+import mafds.GuidanceElement;
+import mafds.LowerTruss;
+import mafds.SpringDamper;
+import mafds.UpperTruss;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
+import tools.vitruv.stoex.stoex.Expression;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Keeps the total mass of a {@link DamperSystem} as the mass not attributed to
+ * any component plus the cached contributions of its upper truss, lower truss,
+ * guidance element and spring damper.
+ * <p>
+ * {@link #update(EObject)} recomputes the contribution of one component from
+ * the model and adds the difference to the cached one to the total, which is
+ * constant time and idempotent: reporting a component twice, e.g. once for a
+ * changed count and once for a changed item mass, does not count it twice.
+ * {@link #rebuild()} recomputes all contributions and catches the total up with
+ * changes that were never reported, {@link #verify()} checks whether that is
+ * necessary.
+ * <p>
+ * Once the uncertain path of the {@link TotalMassReactionsHelper} is used for a
+ * system, the aggregator additionally caches the StoEx expression of each
+ * contribution, so the total mass expression is the sum of the parts instead of
+ * an edit stacked on the previous total. Both the total and the part not
+ * attributed to any component are kept in the normal form of the
+ * {@link StoexCanonicalizer}, so their size stays bounded.
+ * <p>
+ * The aggregator is attached to the system as an adapter. Systems are tracked
+ * from their insertion with {@link #track(DamperSystem)}, at which point the
+ * total contains none of the contributions yet; their initial values are added
+ * as the reactions for the initialized attributes arrive. Systems that were not
+ * tracked from their insertion are attached on first use and assume that the
+ * total contains the current contributions. Systems whose components were
+ * edited before the aggregator is attached are {@link #restore restored} from
+ * a copy of their earlier state.
+ */
+public final class TotalMassAggregator extends AdapterImpl {
+
+    private enum Part {
+        UPPER_TRUSS, LOWER_TRUSS, GUIDANCE_ELEMENT, SPRING_DAMPER
+    }
+
+    private static final Part[] PARTS = Part.values();
+    private static final ConsistencyMetrics.Timer TRACK = ConsistencyMetrics.helper("TotalMassAggregator.track");
+
+    private final double[] contributions = new double[PARTS.length];
+    // Null until the total mass of the system is annotated
+    private Expression[] partExpressions;
+    private Expression baseExpression;
+    // Change of the total mass that was suppressed as below the tolerance
+    private double pendingChange;
+
+    private TotalMassAggregator() {
+    }
+
+    /**
+     * Starts tracking a system whose total does not contain any of the
+     * contributions of its components yet, i.e. a system that has just been
+     * inserted. Systems that are tracked already keep their aggregator.
+     *
+     * @param system The damper system.
+     * @return The aggregator of the system.
+     */
+    public static TotalMassAggregator track(DamperSystem system) {
+        ConsistencyMetrics.Sample sample = TRACK.start(system, null);
+        try {
+            TotalMassAggregator aggregator = find(system);
+            if (aggregator == null) {
+                aggregator = new TotalMassAggregator();
+                system.eAdapters().add(aggregator);
+            }
+            return aggregator;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Returns the aggregator of a system. If the system is not tracked yet, its
+     * total is assumed to contain the current contributions of all components.
+     *
+     * @param system The damper system.
+     * @return The aggregator of the system.
+     */
+    public static TotalMassAggregator of(DamperSystem system) {
+        TotalMassAggregator aggregator = find(system);
+        if (aggregator == null) {
+            aggregator = new TotalMassAggregator();
+            for (Part part : PARTS) {
+                aggregator.contributions[part.ordinal()] = contribution(system, part);
+            }
+            system.eAdapters().add(aggregator);
+        }
+        return aggregator;
+    }
+
+    /**
+     * Returns the aggregator of a system whose total still contains the
+     * contributions of an earlier state of the system, e.g. the state before its
+     * components were edited in a view. The following {@link #update(EObject)}
+     * calls add the differences to that state. Systems that are tracked already
+     * keep their aggregator.
+     *
+     * @param system   The damper system.
+     * @param previous A copy of the system in the state its total contains.
+     * @return The aggregator of the system.
+     */
+    public static TotalMassAggregator restore(DamperSystem system, DamperSystem previous) {
+        TotalMassAggregator aggregator = find(system);
+        if (aggregator == null) {
+            aggregator = new TotalMassAggregator();
+            for (Part part : PARTS) {
+                aggregator.contributions[part.ordinal()] = contribution(previous, part);
+            }
+            system.eAdapters().add(aggregator);
+        }
+        return aggregator;
+    }
+
+    /**
+     * Stops tracking a system whose total was computed without its aggregator,
+     * e.g. before the propagation of a change. The next use attaches a new
+     * aggregator, which assumes that the total contains the current
+     * contributions.
+     *
+     * @param system The damper system.
+     */
+    public static void detach(DamperSystem system) {
+        TotalMassAggregator aggregator = find(system);
+        if (aggregator != null) {
+            system.eAdapters().remove(aggregator);
+        }
+    }
+
+    /**
+     * Returns the aggregator of a system that is about to be updated for a
+     * change of the given component. If the system is not tracked yet, its total
+     * is assumed to contain the current contributions of all components except
+     * for the reported change, which the following {@link #update(EObject)}
+     * adds.
+     *
+     * @param system             The damper system.
+     * @param changedComponent   The changed component.
+     * @param contributionChange The change of the contribution of the component.
+     * @return The aggregator of the system.
+     */
+    public static TotalMassAggregator of(DamperSystem system, EObject changedComponent,
+            double contributionChange) {
+        TotalMassAggregator aggregator = find(system);
+        if (aggregator == null) {
+            aggregator = of(system);
+            Part part = partOf(changedComponent);
+            if (part != null) {
+                aggregator.contributions[part.ordinal()] -= contributionChange;
+            }
+        }
+        return aggregator;
+    }
+
+    private static TotalMassAggregator find(DamperSystem system) {
+        for (Adapter adapter : system.eAdapters()) {
+            if (adapter instanceof TotalMassAggregator aggregator) {
+                return aggregator;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Recomputes the contribution of a component and updates the total mass of
+     * the system accordingly. Cached expressions are dropped as they no longer
+     * match the total.
+     *
+     * @param component A component of the system.
+     * @return The new total mass.
+     */
+    public double update(EObject component) {
+        DamperSystem system = getSystem();
+        Part part = partOf(component);
+        if (part != null) {
+            writeTotal(system, refresh(system, part));
+        }
+        partExpressions = null;
+        baseExpression = null;
+        return system.getTotalMassInKg();
+    }
+
+    /**
+     * Recomputes the contributions of all components and updates the total mass
+     * of the system accordingly. Cached expressions are dropped and rebuilt on
+     * their next use.
+     *
+     * @return The new total mass.
+     */
+    public double rebuild() {
+        DamperSystem system = getSystem();
+        double change = 0;
+        for (Part part : PARTS) {
+            change += refresh(system, part);
+        }
+        writeTotal(system, change);
+        partExpressions = null;
+        baseExpression = null;
+        return system.getTotalMassInKg();
+    }
+
+    /**
+     * @return true if the cached contributions match the current model, i.e. no
+     *         change of a component was missed.
+     */
+    public boolean verify() {
+        DamperSystem system = getSystem();
+        for (Part part : PARTS) {
+            if (Double.compare(contributions[part.ordinal()], contribution(system, part)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param component A component of the system.
+     * @return The cached contribution of the component, or 0 for objects that
+     *         do not contribute to the total mass.
+     */
+    public double getContribution(EObject component) {
+        Part part = partOf(component);
+        return part == null ? 0 : contributions[part.ordinal()];
+    }
+
+    /**
+     * @return true if the aggregator caches the expressions of the contributions.
+     */
+    boolean hasExpressions() {
+        return partExpressions != null;
+    }
+
+    /**
+     * Recomputes the contribution of a component including its expression and
+     * returns the sum of the cached expressions. On first use, the expressions
+     * are initialized from the given current total mass expression.
+     *
+     * @param repo         The repository holding the uncertainties.
+     * @param component    A component of the system.
+     * @param currentTotal The current total mass expression, or null if the total
+     *                     mass is not annotated yet.
+     * @return The new total mass expression.
+     */
+    Expression updateExpression(UncertaintyAnnotationRepository repo, EObject component, Expression currentTotal) {
+        DamperSystem system = getSystem();
+        if (partExpressions == null) {
+            initializeExpressions(repo, system, currentTotal);
+        }
+        Part part = partOf(component);
+        if (part != null) {
+            refresh(system, part);
+            partExpressions[part.ordinal()] = partExpression(repo, system, part);
+        }
+        Expression total = baseExpression;
+        for (Expression partExpression : partExpressions) {
+            total = StoexArithmetic.add(total, partExpression);
+        }
+        return StoexCanonicalizer.canonicalize(total);
+    }
+
+    // Parts whose cached contribution is up to date start from their
+    // expression, all others from the cached value the total contains. An
+    // annotated total also contains the spread of such a stale part, so the
+    // part starts from its current expression shifted to the cached value,
+    // which removes that spread from the base instead of counting it twice
+    private void initializeExpressions(UncertaintyAnnotationRepository repo, DamperSystem system,
+            Expression currentTotal) {
+        partExpressions = new Expression[PARTS.length];
+        double attributed = 0;
+        Expression included = StoexArithmetic.literal(0);
+        for (Part part : PARTS) {
+            double cached = contributions[part.ordinal()];
+            double current = contribution(system, part);
+            if (Double.compare(cached, current) == 0) {
+                partExpressions[part.ordinal()] = partExpression(repo, system, part);
+            } else if (currentTotal != null && cached != 0) {
+                partExpressions[part.ordinal()] = StoexArithmetic.add(partExpression(repo, system, part),
+                        StoexArithmetic.literal(cached - current));
+            } else {
+                partExpressions[part.ordinal()] = StoexArithmetic.literal(cached);
+            }
+            attributed += cached;
+            included = StoexArithmetic.add(included, partExpressions[part.ordinal()]);
+        }
+        baseExpression = currentTotal != null
+                ? StoexCanonicalizer.canonicalize(StoexArithmetic.removeNFold(currentTotal, included, 1))
+                : StoexArithmetic.literal(system.getTotalMassInKg() + pendingChange - attributed);
+    }
+
+    // Changes below the tolerance of the total mass are not written but kept
+    // pending, so suppressed changes do not accumulate to a drift of the total
+    private void writeTotal(DamperSystem system, double change) {
+        pendingChange += change;
+        if (pendingChange != 0 && DerivedWrites.setTotalMass(system, system.getTotalMassInKg() + pendingChange)) {
+            pendingChange = 0;
+        }
+    }
+
+    private double refresh(DamperSystem system, Part part) {
+        double value = contribution(system, part);
+        double change = value - contributions[part.ordinal()];
+        contributions[part.ordinal()] = value;
+        return change;
+    }
+
+    private DamperSystem getSystem() {
+        return (DamperSystem) getTarget();
+    }
+
+    private static Part partOf(EObject component) {
+        if (component instanceof UpperTruss) {
+            return Part.UPPER_TRUSS;
+        } else if (component instanceof LowerTruss) {
+            return Part.LOWER_TRUSS;
+        } else if (component instanceof GuidanceElement) {
+            return Part.GUIDANCE_ELEMENT;
+        } else if (component instanceof SpringDamper) {
+            return Part.SPRING_DAMPER;
+        }
+        return null;
+    }
+
+    private static double contribution(DamperSystem system, Part part) {
+        return switch (part) {
+        case UPPER_TRUSS -> {
+            UpperTruss upperTruss = system.getUpperTruss();
+            yield upperTruss == null ? 0
+                    : upperTruss.getCrossLinkMassInKg() + upperTruss.getSphereMassInKg()
+                            + upperTruss.getNumberOfThreadedRods() * upperTruss.getMassOfThreadedRodInKg();
+        }
+        case LOWER_TRUSS -> {
+            LowerTruss lowerTruss = system.getLowerTruss();
+            yield lowerTruss == null ? 0
+                    : lowerTruss.getSphereMassInKg()
+                            + lowerTruss.getNumberOfThreadedRods() * lowerTruss.getMassOfThreadedRodInKg();
+        }
+        case GUIDANCE_ELEMENT -> {
+            GuidanceElement guidanceElement = system.getGuidanceElement();
+            yield guidanceElement == null ? 0
+                    : guidanceElement.getNumberOfArms() * guidanceElement.getMassOfArmInKg()
+                            + guidanceElement.getMassOfJointMiddlePartInKg();
+        }
+        case SPRING_DAMPER -> {
+            SpringDamper springDamper = system.getSpringDamper();
+            yield springDamper == null ? 0 : springDamper.getSpringSupportMassInKg();
+        }
+        };
+    }
+
+    private static Expression partExpression(UncertaintyAnnotationRepository repo, DamperSystem system,
+            Part part) {
+        UncertaintyIndex index = UncertaintyIndex.of(repo);
+        return switch (part) {
+        case UPPER_TRUSS -> {
+            UpperTruss upperTruss = system.getUpperTruss();
+            yield upperTruss == null ? StoexArithmetic.literal(0)
+                    : StoexArithmetic.add(
+                            StoexArithmetic.add(
+                                    massExpression(index, upperTruss, "crossLinkMassInKg",
+                                            upperTruss.getCrossLinkMassInKg()),
+                                    massExpression(index, upperTruss, "sphereMassInKg",
+                                            upperTruss.getSphereMassInKg())),
+                            StoexArithmetic.nFoldSum(massExpression(index, upperTruss, "massOfThreadedRodInKg",
+                                    upperTruss.getMassOfThreadedRodInKg()), upperTruss.getNumberOfThreadedRods()));
+        }
+        case LOWER_TRUSS -> {
+            LowerTruss lowerTruss = system.getLowerTruss();
+            yield lowerTruss == null ? StoexArithmetic.literal(0)
+                    : StoexArithmetic.add(
+                            massExpression(index, lowerTruss, "sphereMassInKg", lowerTruss.getSphereMassInKg()),
+                            StoexArithmetic.nFoldSum(massExpression(index, lowerTruss, "massOfThreadedRodInKg",
+                                    lowerTruss.getMassOfThreadedRodInKg()), lowerTruss.getNumberOfThreadedRods()));
+        }
+        case GUIDANCE_ELEMENT -> {
+            GuidanceElement guidanceElement = system.getGuidanceElement();
+            yield guidanceElement == null ? StoexArithmetic.literal(0)
+                    : StoexArithmetic.add(
+                            StoexArithmetic.nFoldSum(massExpression(index, guidanceElement, "massOfArmInKg",
+                                    guidanceElement.getMassOfArmInKg()), guidanceElement.getNumberOfArms()),
+                            massExpression(index, guidanceElement, "massOfJointMiddlePartInKg",
+                                    guidanceElement.getMassOfJointMiddlePartInKg()));
+        }
+        case SPRING_DAMPER -> {
+            SpringDamper springDamper = system.getSpringDamper();
+            yield springDamper == null ? StoexArithmetic.literal(0)
+                    : massExpression(index, springDamper, "springSupportMassInKg",
+                            springDamper.getSpringSupportMassInKg());
+        }
+        };
+    }
+
+    // The annotated expression of a mass parameter, or its value
+    private static Expression massExpression(UncertaintyIndex index, EObject component, String parameterLocation,
+            double value) {
+        Uncertainty u = index.find(component, parameterLocation);
+        if (u == null || u.getEffect() == null || u.getEffect().getExpression() == null) {
+            return StoexArithmetic.literal(value);
+        }
+        return u.getEffect().getExpression();
+    }
+}
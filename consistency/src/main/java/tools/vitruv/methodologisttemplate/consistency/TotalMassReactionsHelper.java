@@ -1,14 +1,17 @@
 package tools.vitruv.methodologisttemplate.consistency;
 
+import java.util.Map;
+
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
 import mafds.DamperSystem;
-import tools.vitruv.stoex.interpreter.StoexEvaluator;
+import mafds.MafdsPackage;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.SampleStatistics;
 import tools.vitruv.stoex.stoex.Expression;
 import uncertainty.Uncertainty;
 import uncertainty.UncertaintyAnnotationRepository;
-import uncertainty.UncertaintyLocationType;
 
 /**
  * This test class tests the propagation of the total mass
@@ -23,110 +26,122 @@ import uncertainty.UncertaintyLocationType;
  * @author Claus Hammann
  */
 public class TotalMassReactionsHelper {
+
+    private static final ConsistencyMetrics.Timer HANDLE_UNCERTAINTY = ConsistencyMetrics
+            .helper("TotalMassReactionsHelper.handleUncertainty");
+
+    // Count parameters report their change under the mass they multiply, as in
+    // the reactions
+    private static final Map<String, String> MASS_LOCATIONS = Map.of(
+            "sphereMassInKg", "sphereMassInKg",
+            "crossLinkMassInKg", "crossLinkMassInKg",
+            "numberOfThreadedRods", "massOfThreadedRodInKg",
+            "massOfThreadedRodInKg", "massOfThreadedRodInKg",
+            "massOfJointMiddlePartInKg", "massOfJointMiddlePartInKg",
+            "numberOfArms", "massOfArmInKg",
+            "massOfArmInKg", "massOfArmInKg",
+            "springSupportMassInKg", "springSupportMassInKg");
+
     private TotalMassReactionsHelper() {
         // Utility class
     }
 
-    public static Uncertainty handleUncertaintyMultiple(UncertaintyAnnotationRepository repo,
-            String parameterLocation, Integer count, Double massNew, Double massOld, EObject affectedEObject,
-            DamperSystem springDamper) {
-
-        Uncertainty affectedUncertainty = findUncertaintyByLocation(repo, parameterLocation, affectedEObject);
-        if (affectedUncertainty == null || affectedUncertainty.getEffect() == null
-                || affectedUncertainty.getEffect().getExpression() == null) {
-            return null;
-        }
-
-        Uncertainty totalMassUncertainty = findUncertaintyByLocation(repo, "totalMassInKg",
-                affectedEObject.eContainer());
-        Expression affectedExpr = affectedUncertainty.getEffect().getExpression();
-        StoexEvaluator stoexEvaluator = new StoexEvaluator();
-
-        stoexEvaluator.setVariable("massNew", affectedExpr);
-        stoexEvaluator.setVariable("massOld", massOld);
-        stoexEvaluator.setVariable("count", count);
-
-        if (totalMassUncertainty == null) {
-            totalMassUncertainty = UncertaintyReactionsHelper.deepCopyUncertainty(affectedUncertainty);
-            totalMassUncertainty.setId(EcoreUtil.generateUUID());
-            totalMassUncertainty.getUncertaintyLocation().setParameterLocation("totalMassInKg");
-            totalMassUncertainty.getUncertaintyLocation().getReferencedComponents().add(affectedEObject.eContainer());
-            stoexEvaluator.setVariable("totalMassInKg", springDamper.getTotalMassInKg());
-        } else {
-            stoexEvaluator.setVariable("totalMassInKg", totalMassUncertainty.getEffect().getExpression());
-        }
-
-        Expression delta = (Expression) stoexEvaluator.evaluate("massNew - massOld");
-        Expression totalDelta = sumExpressions(count, delta);
-        stoexEvaluator.setVariable("totalDelta", totalDelta);
-        Expression newTotalMassExpr = stoexEvaluator.evaluate("totalMassInKg + totalDelta");
-        totalMassUncertainty.getEffect().setExpression(newTotalMassExpr);
-        springDamper.setTotalMassInKg(stoexEvaluator.getMean(newTotalMassExpr).doubleValue());
-
-        if (!repo.getUncertainties().contains(totalMassUncertainty)) {
-            repo.getUncertainties().add(totalMassUncertainty);
+    /**
+     * Propagates a change of a mass parameter of a component to the total mass
+     * of its damper system through the {@link TotalMassAggregator} of the
+     * system. If the parameter is annotated with a StoEx expression, or the
+     * total mass has been propagated with uncertainty before, the total mass
+     * uncertainty is rebuilt from the cached expressions of the components and
+     * the total mass is set to its mean. Systems whose total mass was
+     * {@link DerivedQuantityTracker#isPrecomputed precomputed} are left alone.
+     *
+     * @param repo               The repository holding the uncertainties.
+     * @param parameterLocation  The changed parameter, e.g. "sphereMassInKg".
+     * @param contributionChange The change of the mass contribution of the
+     *                           component as reported by the change, only used
+     *                           if the system is not tracked yet.
+     * @param affectedEObject    The changed component.
+     * @param springDamper       The damper system owning the component.
+     * @return The updated total mass uncertainty, or null if the total mass was
+     *         updated without uncertainty or precomputed.
+     */
+    public static Uncertainty handleUncertainty(UncertaintyAnnotationRepository repo, String parameterLocation,
+            double contributionChange, EObject affectedEObject, DamperSystem springDamper) {
+        ConsistencyMetrics.Sample sample = HANDLE_UNCERTAINTY.start(affectedEObject, parameterLocation);
+        try {
+            if (DerivedQuantityTracker.isPrecomputed(springDamper)) {
+                // The cached contributions no longer match the total
+                TotalMassAggregator.detach(springDamper);
+                return null;
+            }
+            TotalMassAggregator aggregator = TotalMassAggregator.of(springDamper, affectedEObject, contributionChange);
+            Uncertainty affectedUncertainty = findUncertaintyByLocation(repo, parameterLocation, affectedEObject);
+            boolean annotated = affectedUncertainty != null && affectedUncertainty.getEffect() != null
+                    && affectedUncertainty.getEffect().getExpression() != null;
+            Uncertainty totalMassUncertainty = findUncertaintyByLocation(repo, "totalMassInKg", springDamper);
+
+            if (!annotated && !(aggregator.hasExpressions() && totalMassUncertainty != null)) {
+                aggregator.update(affectedEObject);
+                return null;
+            }
+
+            // A new total mass uncertainty carries the expression of the changed
+            // parameter, not a total the aggregator could start from
+            boolean created = totalMassUncertainty == null;
+            if (created) {
+                totalMassUncertainty = UncertaintyReactionsHelper.deepCopyUncertainty(affectedUncertainty, repo);
+                totalMassUncertainty.setId(EcoreUtil.generateUUID());
+                totalMassUncertainty.getUncertaintyLocation().setParameterLocation("totalMassInKg");
+                totalMassUncertainty.getUncertaintyLocation().getReferencedComponents().add(springDamper);
+            }
+
+            Expression newTotalMassExpr = aggregator.updateExpression(repo, affectedEObject,
+                    created ? null : totalMassUncertainty.getEffect().getExpression());
+            DerivedWrites.setExpression(totalMassUncertainty.getEffect(), newTotalMassExpr,
+                    MafdsPackage.Literals.DAMPER_SYSTEM__TOTAL_MASS_IN_KG);
+            DerivedWrites.setTotalMass(springDamper, StoexFormula.mean(newTotalMassExpr));
+
+            if (totalMassUncertainty.eContainer() != repo) {
+                repo.getUncertainties().add(totalMassUncertainty);
+            }
+            return totalMassUncertainty;
+        } finally {
+            sample.stop();
         }
-        return totalMassUncertainty;
     }
 
-    private static Expression sumExpressions(int k, Expression expr) {
-        StoexEvaluator stoexEvaluator = new StoexEvaluator();
-        Expression sum = expr;
-        stoexEvaluator.setVariable("expr", expr);
-        stoexEvaluator.setVariable("sum", 0);
-        for (int i = 0; i < k; i++) {
-            sum = stoexEvaluator.evaluate("sum + expr");
-            stoexEvaluator.setVariable("sum", sum);
+    /**
+     * Samples the total mass of the given damper system from its current
+     * annotation, independent of the selected propagation mode.
+     *
+     * @param repo         The repository holding the uncertainties.
+     * @param springDamper The damper system.
+     * @return Mean, variance, quantiles and empirical distribution of the total
+     *         mass.
+     */
+    public static SampleStatistics sampleTotalMass(UncertaintyAnnotationRepository repo,
+            DamperSystem springDamper) {
+        Uncertainty totalMassUncertainty = findUncertaintyByLocation(repo, "totalMassInKg", springDamper);
+        if (totalMassUncertainty == null || totalMassUncertainty.getEffect() == null
+                || totalMassUncertainty.getEffect().getExpression() == null) {
+            return PropagationSettings.getMonteCarloEngine()
+                    .sample(StoexArithmetic.literal(springDamper.getTotalMassInKg()));
         }
-        return sum;
+        return PropagationSettings.getMonteCarloEngine().sample(totalMassUncertainty.getEffect().getExpression());
     }
 
-    public static Uncertainty handleUncertainty(UncertaintyAnnotationRepository repo, String parameterLocation,
-            Double oldValue, Double newValue, EObject affectedEObject, DamperSystem springDamper) {
-
-        Uncertainty affectedUncertainty = findUncertaintyByLocation(repo, parameterLocation, affectedEObject);
-        if (affectedUncertainty == null || affectedUncertainty.getEffect() == null
-                || affectedUncertainty.getEffect().getExpression() == null) {
-            return null;
-        }
-
-        Uncertainty totalMassUncertainty = findUncertaintyByLocation(repo, "totalMassInKg",
-                affectedEObject.eContainer());
-        Expression affectedExpr = affectedUncertainty.getEffect().getExpression();
-        StoexEvaluator stoexEvaluator = new StoexEvaluator();
-
-        stoexEvaluator.setVariable("newValue", affectedExpr);
-        stoexEvaluator.setVariable("oldValue", oldValue);
-
-        if (totalMassUncertainty == null) {
-            totalMassUncertainty = UncertaintyReactionsHelper.deepCopyUncertainty(affectedUncertainty);
-            totalMassUncertainty.setId(EcoreUtil.generateUUID());
-            totalMassUncertainty.getUncertaintyLocation().setParameterLocation("totalMassInKg");
-            totalMassUncertainty.getUncertaintyLocation().getReferencedComponents().add(affectedEObject.eContainer());
-            stoexEvaluator.setVariable("totalMassInKg", springDamper.getTotalMassInKg());
-        } else {
-            stoexEvaluator.setVariable("totalMassInKg", totalMassUncertainty.getEffect().getExpression());
-        }
-
-        Expression newTotalMassExpr = (Expression) stoexEvaluator
-                .evaluate("totalMassInKg + newValue - oldValue");
-        totalMassUncertainty.getEffect().setExpression(newTotalMassExpr);
-        springDamper.setTotalMassInKg(stoexEvaluator.getMean(newTotalMassExpr).doubleValue());
-
-        if (!repo.getUncertainties().contains(totalMassUncertainty)) {
-            repo.getUncertainties().add(totalMassUncertainty);
-        }
-        return totalMassUncertainty;
+    /**
+     * @param attribute The name of a changed attribute of a component.
+     * @return The mass parameter the change is reported under, or null if the
+     *         attribute does not contribute to the total mass.
+     */
+    static String massLocation(String attribute) {
+        return MASS_LOCATIONS.get(attribute);
     }
 
     private static Uncertainty findUncertaintyByLocation(UncertaintyAnnotationRepository repo,
             String parameterLocation,
             EObject referencedObject) {
-        return repo.getUncertainties().stream()
-                .filter(u -> u.getUncertaintyLocation().getParameterLocation().equals(parameterLocation)
-                        && u.getUncertaintyLocation()
-                                .getLocation() == UncertaintyLocationType.PARAMETER)
-                .findFirst()
-                .orElse(null);
+        return UncertaintyIndex.of(repo).find(referencedObject, parameterLocation);
     }
 }
@@ -0,0 +1,239 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+import uncertainty.Effect;
+import uncertainty.Pattern;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyLocation;
+import uncertainty.UncertaintyLocationType;
+import uncertainty.UncertaintyPackage;
+import uncertainty.UncertaintyPerspective;
+
+/**
+ * Index over the uncertainties of an {@link UncertaintyAnnotationRepository}.
+ * The index is attached to the repository as an EMF adapter and is kept current
+ * by the notifications of the repository, its uncertainties and their
+ * locations. It answers the two questions the reaction helpers ask on every
+ * propagation step in constant time:
+ * <ul>
+ * <li>which uncertainty annotates a given parameter of a given component,</li>
+ * <li>which uncertainties reference a given component at all, and</li>
+ * <li>whether an uncertainty with a given {@link UncertaintySignature}
+ * references a given component.</li>
+ * </ul>
+ * Use {@link #of(UncertaintyAnnotationRepository)} to obtain the index of a
+ * repository; it is created and attached on first use.
+ */
+public final class UncertaintyIndex extends EContentAdapter {
+
+    private record ParameterKey(EObject component, String parameterLocation) {
+    }
+
+    private record IndexEntry(List<EObject> components, String parameterLocation, UncertaintySignature signature) {
+    }
+
+    // Features of an uncertainty and its effect, pattern and perspective that
+    // change its location or signature
+    private static final Set<Object> SIGNATURE_FEATURES = Set.of(
+            UncertaintyPackage.Literals.UNCERTAINTY__UNCERTAINTY_LOCATION,
+            UncertaintyPackage.Literals.UNCERTAINTY__KIND,
+            UncertaintyPackage.Literals.UNCERTAINTY__NATURE,
+            UncertaintyPackage.Literals.UNCERTAINTY__REDUCABILITY,
+            UncertaintyPackage.Literals.UNCERTAINTY__ON_DELETE,
+            UncertaintyPackage.Literals.UNCERTAINTY__EFFECT,
+            UncertaintyPackage.Literals.UNCERTAINTY__PATTERN,
+            UncertaintyPackage.Literals.UNCERTAINTY__PERSPECTIVE,
+            UncertaintyPackage.Literals.UNCERTAINTY__PROFILE,
+            UncertaintyPackage.Literals.EFFECT__REPRESENTATION,
+            UncertaintyPackage.Literals.EFFECT__STOCHASTICITY,
+            UncertaintyPackage.Literals.PATTERN__PATTERN_TYPE,
+            UncertaintyPackage.Literals.UNCERTAINTY_PERSPECTIVE__PERSPECTIVE);
+
+    private final Map<ParameterKey, List<Uncertainty>> byParameter = new HashMap<>();
+    private final Map<EObject, List<Uncertainty>> byComponent = new HashMap<>();
+    private final Map<EObject, Map<UncertaintySignature, Integer>> signaturesByComponent = new HashMap<>();
+    private final Map<Uncertainty, IndexEntry> entries = new IdentityHashMap<>();
+
+    private UncertaintyIndex() {
+        // Use UncertaintyIndex.of(repository)
+    }
+
+    /**
+     * Returns the index of the given repository, attaching a new one if the
+     * repository is not indexed yet.
+     *
+     * @param repo The repository to index.
+     * @return The index that is kept current for the repository.
+     */
+    public static UncertaintyIndex of(UncertaintyAnnotationRepository repo) {
+        for (Adapter adapter : repo.eAdapters()) {
+            if (adapter instanceof UncertaintyIndex index) {
+                return index;
+            }
+        }
+        UncertaintyIndex index = new UncertaintyIndex();
+        repo.eAdapters().add(index);
+        return index;
+    }
+
+    /**
+     * Finds the uncertainty of location type {@link UncertaintyLocationType#PARAMETER}
+     * that annotates the given parameter of the given component.
+     *
+     * @param component         The referenced component.
+     * @param parameterLocation The name of the annotated parameter.
+     * @return The first matching uncertainty, or null if there is none.
+     */
+    public Uncertainty find(EObject component, String parameterLocation) {
+        List<Uncertainty> matches = byParameter.get(new ParameterKey(component, parameterLocation));
+        return matches == null ? null : matches.get(0);
+    }
+
+    /**
+     * Returns all uncertainties whose location references the given component,
+     * regardless of their location type or parameter.
+     *
+     * @param component The referenced component.
+     * @return An unmodifiable list of the referencing uncertainties.
+     */
+    public List<Uncertainty> referencing(EObject component) {
+        List<Uncertainty> matches = byComponent.get(component);
+        return matches == null ? List.of() : Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Checks whether an uncertainty with the given signature references the
+     * given component.
+     *
+     * @param component The referenced component.
+     * @param signature The signature of the uncertainty metadata.
+     * @return true if an equivalent uncertainty exists for the component.
+     */
+    public boolean containsEquivalent(EObject component, UncertaintySignature signature) {
+        Map<UncertaintySignature, Integer> signatures = signaturesByComponent.get(component);
+        return signatures != null && signatures.containsKey(signature);
+    }
+
+    /**
+     * @return The number of uncertainties currently held by the index.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void notifyChanged(Notification notification) {
+        super.notifyChanged(notification);
+        if (notification.isTouch()) {
+            return;
+        }
+        Object notifier = notification.getNotifier();
+        Object feature = notification.getFeature();
+        if (notifier instanceof Uncertainty u && SIGNATURE_FEATURES.contains(feature)) {
+            reindex(u);
+        } else if (notifier instanceof EObject child && child.eContainer() instanceof Uncertainty u
+                && SIGNATURE_FEATURES.contains(feature)) {
+            reindex(u);
+        } else if (notifier instanceof UncertaintyLocation location
+                && location.eContainer() instanceof Uncertainty u
+                && (feature == UncertaintyPackage.Literals.UNCERTAINTY_LOCATION__REFERENCED_COMPONENTS
+                        || feature == UncertaintyPackage.Literals.UNCERTAINTY_LOCATION__PARAMETER_LOCATION
+                        || feature == UncertaintyPackage.Literals.UNCERTAINTY_LOCATION__LOCATION)) {
+            reindex(u);
+        }
+    }
+
+    @Override
+    protected void addAdapter(Notifier notifier) {
+        // Only the repository, its uncertainties and their direct children carry
+        // information the index needs; the expression trees of effects are
+        // deliberately not adapted.
+        if (notifier instanceof Uncertainty u) {
+            super.addAdapter(notifier);
+            unindex(u);
+            index(u);
+        } else if (notifier instanceof UncertaintyLocation || notifier instanceof Effect
+                || notifier instanceof Pattern || notifier instanceof UncertaintyPerspective) {
+            super.addAdapter(notifier);
+        }
+    }
+
+    @Override
+    protected void removeAdapter(Notifier notifier) {
+        super.removeAdapter(notifier);
+        if (notifier instanceof Uncertainty u) {
+            unindex(u);
+        }
+    }
+
+    private void reindex(Uncertainty u) {
+        if (entries.containsKey(u)) {
+            unindex(u);
+            index(u);
+        }
+    }
+
+    private void index(Uncertainty u) {
+        UncertaintyLocation location = u.getUncertaintyLocation();
+        UncertaintySignature signature = UncertaintySignature.of(u);
+        if (location == null) {
+            entries.put(u, new IndexEntry(List.of(), null, signature));
+            return;
+        }
+        List<EObject> components = List.copyOf(location.getReferencedComponents());
+        String parameterLocation = location.getLocation() == UncertaintyLocationType.PARAMETER
+                ? location.getParameterLocation()
+                : null;
+        entries.put(u, new IndexEntry(components, parameterLocation, signature));
+        for (EObject component : components) {
+            byComponent.computeIfAbsent(component, c -> new ArrayList<>(1)).add(u);
+            signaturesByComponent.computeIfAbsent(component, c -> new HashMap<>(2)).merge(signature, 1,
+                    Integer::sum);
+            if (parameterLocation != null) {
+                byParameter.computeIfAbsent(new ParameterKey(component, parameterLocation),
+                        k -> new ArrayList<>(1)).add(u);
+            }
+        }
+    }
+
+    private void unindex(Uncertainty u) {
+        IndexEntry entry = entries.remove(u);
+        if (entry == null) {
+            return;
+        }
+        for (EObject component : entry.components()) {
+            removeFrom(byComponent, component, u);
+            Map<UncertaintySignature, Integer> signatures = signaturesByComponent.get(component);
+            if (signatures != null) {
+                signatures.computeIfPresent(entry.signature(), (k, count) -> count == 1 ? null : count - 1);
+                if (signatures.isEmpty()) {
+                    signaturesByComponent.remove(component);
+                }
+            }
+            if (entry.parameterLocation() != null) {
+                removeFrom(byParameter, new ParameterKey(component, entry.parameterLocation()), u);
+            }
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, List<Uncertainty>> map, K key, Uncertainty u) {
+        List<Uncertainty> values = map.get(key);
+        if (values != null && values.remove(u) && values.isEmpty()) {
+            map.remove(key);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.Objects;
+
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
+import uncertainty.Pattern;
+import uncertainty.PatternType;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+import uncertainty.UncertaintyPerspective;
+import uncertainty.UncertaintyPerspectiveType;
+import uncertainty.UncertaintyProfile;
+
+/**
+ * Copy-on-write sharing of the pattern and perspective of uncertainties.
+ * <p>
+ * Derived uncertainties usually carry the same pattern and perspective as the
+ * uncertainty they were derived from. Instead of a copy of each, a shared
+ * uncertainty references an {@link UncertaintyProfile} held by its repository
+ * and has no pattern or perspective of its own. Profiles are immutable: they
+ * are interned per repository and never edited, so code that wants to change
+ * the pattern or perspective of an uncertainty must call {@link #edit} first,
+ * which gives the uncertainty its own copies again. A profile edited anyway,
+ * e.g. through a view, changes every uncertainty sharing it; the reactions do
+ * not propagate such an edit, as the contents of a profile have no
+ * corresponding uncertainty.
+ * <p>
+ * Readers should use {@link #getPattern} and {@link #getPerspective}, which
+ * resolve both shared and unshared uncertainties.
+ * <p>
+ * Only the pattern and the perspective are shared. The location and the effect
+ * of a derived uncertainty stay its own: the location holds the referenced
+ * components and the parameter, the effect the propagated expression, and
+ * both are modified per uncertainty by the reactions. Their remaining metadata
+ * are enum literals and specification strings, which a copy already shares by
+ * reference with the original.
+ */
+public final class UncertaintyProfiles {
+
+    private static final ConsistencyMetrics.Timer EDIT = ConsistencyMetrics.helper("UncertaintyProfiles.edit");
+
+    private UncertaintyProfiles() {
+        // Utility class
+    }
+
+    /**
+     * @param u The uncertainty.
+     * @return The own pattern of the uncertainty, or the one of its profile.
+     */
+    public static Pattern getPattern(Uncertainty u) {
+        if (u.getPattern() != null || u.getProfile() == null) {
+            return u.getPattern();
+        }
+        return u.getProfile().getPattern();
+    }
+
+    /**
+     * @param u The uncertainty.
+     * @return The own perspective of the uncertainty, or the one of its profile.
+     */
+    public static UncertaintyPerspective getPerspective(Uncertainty u) {
+        if (u.getPerspective() != null || u.getProfile() == null) {
+            return u.getPerspective();
+        }
+        return u.getProfile().getPerspective();
+    }
+
+    /**
+     * Makes the pattern and perspective of an uncertainty editable by copying
+     * them out of its profile. Uncertainties without a profile are returned as
+     * they are.
+     *
+     * @param u The uncertainty to edit.
+     * @return The same uncertainty, now with its own pattern and perspective.
+     */
+    public static Uncertainty edit(Uncertainty u) {
+        ConsistencyMetrics.Sample sample = EDIT.start(u, null);
+        try {
+            UncertaintyProfile profile = u.getProfile();
+            if (profile == null) {
+                return u;
+            }
+            if (u.getPattern() == null && profile.getPattern() != null) {
+                u.setPattern(copy(profile.getPattern()));
+            }
+            if (u.getPerspective() == null && profile.getPerspective() != null) {
+                u.setPerspective(copy(profile.getPerspective()));
+            }
+            u.setProfile(null);
+            return u;
+        } finally {
+            sample.stop();
+        }
+    }
+
+    /**
+     * Finds or creates the profile of the repository with the given pattern and
+     * perspective. A repository holds one profile per distinct combination, of
+     * which there are only a few, so a scan is cheaper than maintaining an index.
+     *
+     * @param repo        The repository holding the profiles.
+     * @param pattern     The pattern to share, may be null.
+     * @param perspective The perspective to share, may be null.
+     * @return The profile.
+     */
+    public static UncertaintyProfile intern(UncertaintyAnnotationRepository repo, Pattern pattern,
+            UncertaintyPerspective perspective) {
+        PatternType patternType = pattern == null ? null : pattern.getPatternType();
+        UncertaintyPerspectiveType perspectiveType = perspective == null ? null : perspective.getPerspective();
+        String specification = perspective == null ? null : perspective.getSpecification();
+        for (UncertaintyProfile profile : repo.getProfiles()) {
+            Pattern p = profile.getPattern();
+            UncertaintyPerspective q = profile.getPerspective();
+            if ((p == null) == (pattern == null) && (q == null) == (perspective == null)
+                    && (p == null || p.getPatternType() == patternType)
+                    && (q == null || q.getPerspective() == perspectiveType
+                            && Objects.equals(q.getSpecification(), specification))) {
+                return profile;
+            }
+        }
+        UncertaintyProfile profile = UncertaintyFactory.eINSTANCE.createUncertaintyProfile();
+        if (pattern != null) {
+            profile.setPattern(copy(pattern));
+        }
+        if (perspective != null) {
+            profile.setPerspective(copy(perspective));
+        }
+        repo.getProfiles().add(profile);
+        return profile;
+    }
+
+    private static Pattern copy(Pattern original) {
+        Pattern copy = UncertaintyFactory.eINSTANCE.createPattern();
+        copy.setPatternType(original.getPatternType());
+        return copy;
+    }
+
+    private static UncertaintyPerspective copy(UncertaintyPerspective original) {
+        UncertaintyPerspective copy = UncertaintyFactory.eINSTANCE.createUncertaintyPerspective();
+        copy.setPerspective(original.getPerspective());
+        copy.setSpecification(original.getSpecification());
+        return copy;
+    }
+}
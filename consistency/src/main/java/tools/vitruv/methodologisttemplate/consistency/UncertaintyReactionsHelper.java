@@ -6,6 +6,7 @@ import java.util.List;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
 import uncertainty.Effect;
 import uncertainty.Pattern;
 import uncertainty.Uncertainty;
@@ -16,6 +17,9 @@ import uncertainty.UncertaintyPerspective;
 
 public class UncertaintyReactionsHelper {
 
+    private static final ConsistencyMetrics.Timer CREATE_MISSING_UNCERTAINTIES = ConsistencyMetrics
+            .helper("UncertaintyReactionsHelper.createMissingUncertaintiesForReferencedComponents");
+
     private UncertaintyReactionsHelper() {
         // Utility class
     }
@@ -25,7 +29,9 @@ public class UncertaintyReactionsHelper {
      * not already exist.
      * For each EObject in correspondingReferenceList, if no matching Uncertainty
      * exists in the repository, a new Uncertainty (copied from sourceUncertainty)
-     * is created and linked to the component.
+     * is created and linked to the component. Uncertainties match if they have
+     * the same {@link UncertaintySignature}; the check is a lookup in the
+     * {@link UncertaintyIndex} of the repository.
      *
      * @param uncertaintyRepo       The UncertaintyAnnotationRepository to add
      *                              uncertainties to.
@@ -37,101 +43,27 @@ public class UncertaintyReactionsHelper {
             UncertaintyAnnotationRepository uncertaintyRepo,
             Iterable<EObject> correspondingElements,
             Uncertainty sourceUncertainty) {
+        ConsistencyMetrics.Sample sample = CREATE_MISSING_UNCERTAINTIES.start(sourceUncertainty, null);
+        try {
+            List<Uncertainty> createdUncertainties = new ArrayList<>();
 
-        List<Uncertainty> createdUncertainties = new ArrayList<>();
-
-        List<UncertaintyLocation> existingUncertaintyLocations = uncertaintyRepo.getUncertainties().stream()
-                .map(Uncertainty::getUncertaintyLocation)
-                .toList();
+            UncertaintyIndex index = UncertaintyIndex.of(uncertaintyRepo);
+            UncertaintySignature signature = UncertaintySignature.of(sourceUncertainty);
 
-        for (EObject correspondingElement : correspondingElements) {
-            List<UncertaintyLocation> matchingLocations = existingUncertaintyLocations.stream()
-                    .filter(loc -> loc.getReferencedComponents().contains(correspondingElement))
-                    .toList();
-
-            if (matchingLocations.isEmpty()) {
-                Uncertainty newUncertainty = deepCopyUncertainty(sourceUncertainty);
-                newUncertainty.getUncertaintyLocation().getReferencedComponents().add(correspondingElement);
-                uncertaintyRepo.getUncertainties().add(newUncertainty);
-                createdUncertainties.add(newUncertainty);
-                continue;
-            }
-            boolean existingMatch = false;
-            for (UncertaintyLocation loc : matchingLocations) {
-                existingMatch = compareUncertainties(sourceUncertainty, (Uncertainty) loc.eContainer());
-                if (existingMatch) {
-                    break;
+            for (EObject correspondingElement : correspondingElements) {
+                if (index.containsEquivalent(correspondingElement, signature)) {
+                    continue;
                 }
-            }
-            if (!existingMatch) {
-                Uncertainty newUncertainty = deepCopyUncertainty(sourceUncertainty);
+                Uncertainty newUncertainty = deepCopyUncertainty(sourceUncertainty, uncertaintyRepo);
                 newUncertainty.getUncertaintyLocation().getReferencedComponents().add(correspondingElement);
                 uncertaintyRepo.getUncertainties().add(newUncertainty);
                 createdUncertainties.add(newUncertainty);
             }
-        }
-
-        return createdUncertainties;
-    }
 
-    /**
-     * Compares two Uncertainty objects for equality based on their attributes and
-     * nested elements.
-     *
-     * @param u1 The first Uncertainty to compare.
-     * @param u2 The second Uncertainty to compare.
-     * @return true if the Uncertainties are considered equal, false otherwise.
-     */
-    private static boolean compareUncertainties(Uncertainty u1, Uncertainty u2) {
-        if (u1.getKind() != u2.getKind()) {
-            return false;
-        }
-        if (u1.getNature() != u2.getNature()) {
-            return false;
+            return createdUncertainties;
+        } finally {
+            sample.stop();
         }
-        if (u1.getReducability() != u2.getReducability()) {
-            return false;
-        }
-        if (u1.getOnDelete() != u2.getOnDelete()) {
-            return false;
-        }
-        Effect e1 = u1.getEffect();
-        Effect e2 = u2.getEffect();
-        if (e1 == null || e2 == null) {
-            if (e1 != e2) { // one is null, the other is not
-                return false;
-            }
-        } else {
-            if (e1.getRepresentation() != e2.getRepresentation()) {
-                return false;
-            }
-            if (e1.getStochasticity() != e2.getStochasticity()) {
-                return false;
-            }
-        }
-        Pattern p1 = u1.getPattern();
-        Pattern p2 = u2.getPattern();
-        if (p1 == null || p2 == null) {
-            if (p1 != p2) { // one is null, the other is not
-                return false;
-            }
-        } else {
-            if (p1.getPatternType() != p2.getPatternType()) {
-                return false;
-            }
-        }
-        UncertaintyPerspective up1 = u1.getPerspective();
-        UncertaintyPerspective up2 = u2.getPerspective();
-        if (up1 == null || up2 == null) {
-            if (up1 != up2) { // one is null, the other is not
-                return false;
-            }
-        } else {
-            if (up1.getPerspective() != up2.getPerspective()) {
-                return false;
-            }
-        }
-        return true;
     }
 
     /**
@@ -143,6 +75,44 @@ public class UncertaintyReactionsHelper {
      * @return A deep copy of the original Uncertainty.
      */
     public static Uncertainty deepCopyUncertainty(Uncertainty original) {
+        Uncertainty copy = copyUncertainty(original);
+        // Deep copy of Pattern
+        Pattern originalPattern = UncertaintyProfiles.getPattern(original);
+        Pattern copyPattern = UncertaintyFactory.eINSTANCE.createPattern();
+        copyPattern.setPatternType(originalPattern.getPatternType());
+        copy.setPattern(copyPattern);
+        // Deep copy of UncertaintyPerspective
+        UncertaintyPerspective originalPerspective = UncertaintyProfiles.getPerspective(original);
+        UncertaintyPerspective copyPerspective = UncertaintyFactory.eINSTANCE.createUncertaintyPerspective();
+        copyPerspective.setPerspective(originalPerspective.getPerspective());
+        copyPerspective.setSpecification(originalPerspective.getSpecification());
+        copy.setPerspective(copyPerspective);
+
+        return copy;
+    }
+
+    /**
+     * Copies an Uncertainty that is going to be added to the given repository.
+     * If {@link PropagationSettings#isShareProfiles()} is set, the copy shares
+     * the pattern and perspective of the original through a profile of the
+     * repository instead of copying them, see {@link UncertaintyProfiles}.
+     *
+     * @param original The original Uncertainty to copy.
+     * @param repo     The repository the copy is going to be added to.
+     * @return A copy of the original Uncertainty.
+     */
+    public static Uncertainty deepCopyUncertainty(Uncertainty original, UncertaintyAnnotationRepository repo) {
+        if (!PropagationSettings.isShareProfiles()) {
+            return deepCopyUncertainty(original);
+        }
+        Uncertainty copy = copyUncertainty(original);
+        copy.setProfile(UncertaintyProfiles.intern(repo, UncertaintyProfiles.getPattern(original),
+                UncertaintyProfiles.getPerspective(original)));
+        return copy;
+    }
+
+    // Copies everything but the pattern and perspective
+    private static Uncertainty copyUncertainty(Uncertainty original) {
         Uncertainty copy = uncertainty.UncertaintyFactory.eINSTANCE.createUncertainty();
         copy.setId(EcoreUtil.generateUUID());
         copy.setKind(original.getKind());
@@ -161,19 +131,7 @@ public class UncertaintyReactionsHelper {
         copyEffect.setRepresentation(originalEffect.getRepresentation());
         copyEffect.setStochasticity(originalEffect.getStochasticity());
         copy.setEffect(copyEffect);
-        // Deep copy of Pattern
-        Pattern originalPattern = original.getPattern();
-        Pattern copyPattern = UncertaintyFactory.eINSTANCE.createPattern();
-        copyPattern.setPatternType(originalPattern.getPatternType());
-        copy.setPattern(copyPattern);
-        // Deep copy of UncertaintyPerspective
-        UncertaintyPerspective originalPerspective = original.getPerspective();
-        UncertaintyPerspective copyPerspective = UncertaintyFactory.eINSTANCE.createUncertaintyPerspective();
-        copyPerspective.setPerspective(originalPerspective.getPerspective());
-        copyPerspective.setSpecification(originalPerspective.getSpecification());
-        copy.setPerspective(copyPerspective);
         copy.setOnDelete(original.getOnDelete());
-
         return copy;
     }
 
@@ -0,0 +1,47 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import uncertainty.Effect;
+import uncertainty.OnDeleteMode;
+import uncertainty.Pattern;
+import uncertainty.PatternType;
+import uncertainty.ReducabilityLevel;
+import uncertainty.StochasticityEffectType;
+import uncertainty.StructuralEffectTypeRepresentation;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyKind;
+import uncertainty.UncertaintyNature;
+import uncertainty.UncertaintyPerspective;
+import uncertainty.UncertaintyPerspectiveType;
+
+/**
+ * The metadata that decides whether two uncertainties are equivalent when
+ * uncertainties are created for corresponding components: kind, nature,
+ * reducability, on-delete mode, the representation and stochasticity of the
+ * effect, the pattern type and the perspective. Locations, ids and StoEx
+ * expressions are not part of the signature.
+ * <p>
+ * Missing effects, patterns and perspectives are represented by null
+ * components, so two signatures are equal exactly if the uncertainties match
+ * in all of the above, including which sub-objects are present.
+ */
+public record UncertaintySignature(UncertaintyKind kind, UncertaintyNature nature,
+        ReducabilityLevel reducability, OnDeleteMode onDelete, StructuralEffectTypeRepresentation representation,
+        StochasticityEffectType stochasticity, PatternType patternType, UncertaintyPerspectiveType perspective) {
+
+    /**
+     * Computes the signature of an uncertainty.
+     *
+     * @param u The uncertainty.
+     * @return The signature of its metadata.
+     */
+    public static UncertaintySignature of(Uncertainty u) {
+        Effect effect = u.getEffect();
+        Pattern pattern = UncertaintyProfiles.getPattern(u);
+        UncertaintyPerspective perspective = UncertaintyProfiles.getPerspective(u);
+        return new UncertaintySignature(u.getKind(), u.getNature(), u.getReducability(), u.getOnDelete(),
+                effect == null ? null : effect.getRepresentation(),
+                effect == null ? null : effect.getStochasticity(),
+                pattern == null ? null : pattern.getPatternType(),
+                perspective == null ? null : perspective.getPerspective());
+    }
+}
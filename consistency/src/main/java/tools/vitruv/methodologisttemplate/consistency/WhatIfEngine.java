@@ -0,0 +1,270 @@
+package tools.vitruv.methodologisttemplate.consistency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperSystem;
+import mafds.MafdsPackage;
+import tools.vitruv.methodologisttemplate.consistency.StoexMomentCache.StoexStatistics;
+import tools.vitruv.stoex.stoex.Expression;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Evaluates parameter sweeps of a damper system without modifying it.
+ * <p>
+ * The system and the uncertainties referencing it are forked into a detached
+ * copy once per sweep. Every scenario of the grid works on its own copy of the
+ * fork: its parameters are set and the total mass and damping ratio are
+ * recomputed by the same helpers the reactions call, i.e. the
+ * {@link TotalMassReactionsHelper} for every changed mass parameter and
+ * {@link DampingRatioReactionsHelper#compute} afterwards. Neither the original
+ * model nor a virtual model is touched, so a sweep can run on the elements of
+ * any view. Scenarios are independent of each other and are evaluated in
+ * parallel on a {@link ForkJoinPool}; the rows of the result keep the order of
+ * the grid.
+ */
+public final class WhatIfEngine {
+
+    /**
+     * The values a parameter is swept over.
+     *
+     * @param parameter The path of the parameter, e.g.
+     *                  {@code upperTruss.numberOfThreadedRods}.
+     * @param values    The values of the parameter.
+     */
+    public record Axis(String parameter, double[] values) {
+
+        public Axis {
+            if (values.length == 0) {
+                throw new IllegalArgumentException("No values for " + parameter);
+            }
+            values = values.clone();
+        }
+
+        /**
+         * @param parameter The path of the parameter.
+         * @param values    The values of the parameter.
+         * @return The axis.
+         */
+        public static Axis of(String parameter, double... values) {
+            return new Axis(parameter, values);
+        }
+
+        /**
+         * @param parameter The path of the parameter.
+         * @param from      The first value.
+         * @param to        The last value.
+         * @param steps     The number of values, at least 2.
+         * @return An axis of evenly spaced values from {@code from} to {@code to}.
+         */
+        public static Axis range(String parameter, double from, double to, int steps) {
+            if (steps < 2) {
+                throw new IllegalArgumentException("A range needs at least 2 steps: " + steps);
+            }
+            double[] values = new double[steps];
+            for (int i = 0; i < steps; i++) {
+                values[i] = i == steps - 1 ? to : from + (to - from) * i / (steps - 1);
+            }
+            return new Axis(parameter, values);
+        }
+
+        @Override
+        public double[] values() {
+            return values.clone();
+        }
+    }
+
+    /**
+     * The derived quantities of one scenario. The standard deviations are NaN if
+     * the quantity is not uncertain.
+     *
+     * @param parameters         The values of the parameters, in the order of
+     *                           the axes.
+     * @param totalMassInKg      The (mean) total mass.
+     * @param totalMassStdDev    The standard deviation of the total mass.
+     * @param dampingRatio       The (mean) damping ratio.
+     * @param dampingRatioStdDev The standard deviation of the damping ratio.
+     */
+    public record Row(double[] parameters, double totalMassInKg, double totalMassStdDev, double dampingRatio,
+            double dampingRatioStdDev) {
+    }
+
+    /**
+     * The result of a sweep with one row per scenario.
+     *
+     * @param parameters The paths of the swept parameters.
+     * @param rows       The rows in the order of the grid, the last axis
+     *                   varying fastest.
+     */
+    public record Table(List<String> parameters, List<Row> rows) {
+
+        /**
+         * @return The table as CSV with a header line.
+         */
+        public String toCsv() {
+            StringBuilder csv = new StringBuilder(String.join(",", parameters))
+                    .append(",totalMassInKg,totalMassStdDev,dampingRatio,dampingRatioStdDev\n");
+            for (Row row : rows) {
+                for (double parameter : row.parameters()) {
+                    csv.append(parameter).append(',');
+                }
+                csv.append(row.totalMassInKg()).append(',').append(row.totalMassStdDev()).append(',')
+                        .append(row.dampingRatio()).append(',').append(row.dampingRatioStdDev()).append('\n');
+            }
+            return csv.toString();
+        }
+    }
+
+    private record Parameter(EReference component, EAttribute attribute) {
+    }
+
+    // A detached copy of a damper system with the uncertainties referencing it
+    record Fork(DamperSystem system, UncertaintyAnnotationRepository repo) {
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * @param pool The pool the scenarios are evaluated on, or null to evaluate
+     *             them on the calling thread.
+     */
+    public WhatIfEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Evaluates every combination of the values of the axes.
+     *
+     * @param system The damper system, which is not modified.
+     * @param repo   The repository holding its uncertainties, may be null.
+     * @param axes   The swept parameters.
+     * @return The derived quantities of every scenario.
+     * @throws IllegalArgumentException if an axis names an unknown parameter.
+     */
+    public Table sweep(DamperSystem system, UncertaintyAnnotationRepository repo, List<Axis> axes) {
+        List<Parameter> parameters = axes.stream().map(axis -> resolve(axis.parameter())).toList();
+        double[][] grid = grid(axes);
+        Fork prototype = fork(system, repo == null ? List.of() : referencing(system, repo));
+        // A first copy on the calling thread creates the lazily initialized lists
+        // of the prototype, so the workers only read it
+        fork(prototype.system(), prototype.repo().getUncertainties());
+
+        List<Row> rows;
+        if (pool == null || grid.length < 2) {
+            rows = Arrays.stream(grid).map(values -> evaluate(prototype, parameters, values)).toList();
+        } else {
+            rows = pool.submit(() -> IntStream.range(0, grid.length).parallel()
+                    .mapToObj(i -> evaluate(prototype, parameters, grid[i])).toList()).join();
+        }
+        return new Table(axes.stream().map(Axis::parameter).toList(), rows);
+    }
+
+    private static Row evaluate(Fork prototype, List<Parameter> parameters, double[] values) {
+        Fork fork = fork(prototype.system(), prototype.repo().getUncertainties());
+        DamperSystem system = fork.system();
+        UncertaintyAnnotationRepository repo = fork.repo();
+        // The aggregator is attached before any parameter changes, so it caches
+        // the contributions the copied total contains
+        TotalMassAggregator aggregator = TotalMassAggregator.of(system);
+        Uncertainty totalMass = UncertaintyIndex.of(repo).find(system, "totalMassInKg");
+        if (hasExpression(totalMass)) {
+            // Like a virtual model that has propagated the total mass with
+            // uncertainty before, so changes of exact parameters update it too
+            aggregator.updateExpression(repo, null, totalMass.getEffect().getExpression());
+        }
+
+        for (int i = 0; i < parameters.size(); i++) {
+            Parameter parameter = parameters.get(i);
+            EObject component = (EObject) system.eGet(parameter.component());
+            EAttribute attribute = parameter.attribute();
+            component.eSet(attribute, attribute.getEAttributeType().getInstanceClass() == int.class
+                    ? (Object) (int) Math.round(values[i])
+                    : (Object) values[i]);
+            String massLocation = TotalMassReactionsHelper.massLocation(attribute.getName());
+            if (massLocation != null) {
+                // The reported change is only used for untracked systems
+                TotalMassReactionsHelper.handleUncertainty(repo, massLocation, 0, component, system);
+            }
+        }
+        DampingRatioReactionsHelper.Recomputation dampingRatio = DampingRatioReactionsHelper.compute(repo, system);
+
+        totalMass = UncertaintyIndex.of(repo).find(system, "totalMassInKg");
+        return new Row(values, system.getTotalMassInKg(), stdDev(hasExpression(totalMass)
+                ? totalMass.getEffect().getExpression()
+                : null), dampingRatio.dampingRatio(), stdDev(dampingRatio.expression()));
+    }
+
+    private static double stdDev(Expression expression) {
+        if (expression == null) {
+            return Double.NaN;
+        }
+        StoexStatistics statistics = StoexMomentCache.getDefault().get(expression);
+        return Math.sqrt(statistics.variance());
+    }
+
+    static boolean hasExpression(Uncertainty uncertainty) {
+        return uncertainty != null && uncertainty.getEffect() != null
+                && uncertainty.getEffect().getExpression() != null;
+    }
+
+    static Fork fork(DamperSystem system, Collection<Uncertainty> uncertainties) {
+        EcoreUtil.Copier copier = new EcoreUtil.Copier();
+        DamperSystem copy = (DamperSystem) copier.copy(system);
+        Collection<Uncertainty> uncertaintyCopies = copier.copyAll(uncertainties);
+        copier.copyReferences();
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        repo.getUncertainties().addAll(uncertaintyCopies);
+        return new Fork(copy, repo);
+    }
+
+    static Set<Uncertainty> referencing(DamperSystem system, UncertaintyAnnotationRepository repo) {
+        UncertaintyIndex index = UncertaintyIndex.of(repo);
+        Set<Uncertainty> uncertainties = new LinkedHashSet<>(index.referencing(system));
+        system.eAllContents().forEachRemaining(component -> uncertainties.addAll(index.referencing(component)));
+        return uncertainties;
+    }
+
+    private static double[][] grid(List<Axis> axes) {
+        List<double[]> grid = new ArrayList<>();
+        grid.add(new double[0]);
+        for (Axis axis : axes) {
+            List<double[]> extended = new ArrayList<>(grid.size() * axis.values.length);
+            for (double[] prefix : grid) {
+                for (double value : axis.values) {
+                    double[] values = Arrays.copyOf(prefix, prefix.length + 1);
+                    values[prefix.length] = value;
+                    extended.add(values);
+                }
+            }
+            grid = extended;
+        }
+        return grid.toArray(double[][]::new);
+    }
+
+    // Resolves a parameter path like upperTruss.numberOfThreadedRods
+    private static Parameter resolve(String path) {
+        int dot = path.indexOf('.');
+        EStructuralFeature component = dot < 0 ? null
+                : MafdsPackage.Literals.DAMPER_SYSTEM.getEStructuralFeature(path.substring(0, dot));
+        if (component instanceof EReference reference && reference.isContainment()
+                && reference.getEReferenceType().getEStructuralFeature(path.substring(dot + 1))
+                        instanceof EAttribute attribute) {
+            return new Parameter(reference, attribute);
+        }
+        throw new IllegalArgumentException("Unknown damper parameter: " + path);
+    }
+}
@@ -0,0 +1,118 @@
+package tools.vitruv.methodologisttemplate.consistency.analytic;
+
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+
+/**
+ * Propagates the mean and variance of independent inputs through a
+ * {@link StoexFormula} by a second-order Taylor expansion around the means
+ * (delta method).
+ * <p>
+ * With the gradient {@code g} and the Hessian {@code H} of the formula at the
+ * means and the input variances {@code s2}, the result has the mean
+ * {@code f(mu) + 1/2 * sum(H[i][i] * s2[i])} and the variance
+ * {@code sum(g[i]^2 * s2[i]) + 1/2 * sum(H[i][i]^2 * s2[i]^2)
+ * + sum over i < j of H[i][j]^2 * s2[i] * s2[j]}, which holds for normally
+ * distributed inputs. The expansion is exact for sums and differences, and
+ * for the damping ratio {@code c / (2 * (k * m)^0.5)} with the relative
+ * spreads of the damper models it is accurate to a fraction of a percent.
+ * <p>
+ * The derivatives are central differences of the numeric plan of the formula,
+ * so a propagation costs a few dozen plain double evaluations and no StoEx
+ * expression is built apart from the result.
+ */
+public final class DeltaMethod {
+
+    // Step of the finite differences relative to the magnitude of an input
+    private static final double RELATIVE_STEP = 1e-4;
+
+    private DeltaMethod() {
+        // Utility class
+    }
+
+    /**
+     * Propagates the moments of the given values through the formula.
+     *
+     * @param formula The formula.
+     * @param values  One value per slot of the formula, either a {@link Number}
+     *                or a StoEx expression, see {@link Moments#of(Object)}.
+     * @return The approximate moments of the formula value.
+     */
+    public static Moments propagate(StoexFormula formula, Object... values) {
+        int n = values.length;
+        double[] mu = new double[n];
+        double[] variance = new double[n];
+        for (int i = 0; i < n; i++) {
+            Moments moments = Moments.of(values[i]);
+            mu[i] = moments.mean();
+            variance[i] = moments.variance();
+        }
+        return propagate(formula, mu, variance);
+    }
+
+    /**
+     * Propagates means and variances through the formula.
+     *
+     * @param formula  The formula.
+     * @param mu       The means of the inputs, one per slot.
+     * @param variance The variances of the inputs, one per slot.
+     * @return The approximate moments of the formula value.
+     */
+    public static Moments propagate(StoexFormula formula, double[] mu, double[] variance) {
+        if (mu.length != variance.length) {
+            throw new IllegalArgumentException("Expected one variance per mean");
+        }
+        double[] x = mu.clone();
+        double f0 = formula.evaluateNumeric(x);
+        double mean = f0;
+        double resultVariance = 0;
+        double[] steps = new double[mu.length];
+        for (int i = 0; i < mu.length; i++) {
+            if (variance[i] <= 0) {
+                continue;
+            }
+            double h = RELATIVE_STEP * Math.max(Math.abs(mu[i]), Math.sqrt(variance[i]));
+            steps[i] = h;
+            double forward = evaluateShifted(formula, x, i, h);
+            double backward = evaluateShifted(formula, x, i, -h);
+            double gradient = (forward - backward) / (2 * h);
+            double curvature = (forward - 2 * f0 + backward) / (h * h);
+            mean += 0.5 * curvature * variance[i];
+            resultVariance += gradient * gradient * variance[i]
+                    + 0.5 * curvature * curvature * variance[i] * variance[i];
+        }
+        for (int i = 0; i < mu.length; i++) {
+            for (int j = i + 1; j < mu.length; j++) {
+                if (steps[i] == 0 || steps[j] == 0) {
+                    continue;
+                }
+                double mixed = mixedDerivative(formula, x, i, steps[i], j, steps[j]);
+                resultVariance += mixed * mixed * variance[i] * variance[j];
+            }
+        }
+        return new Moments(mean, Math.max(0, resultVariance));
+    }
+
+    private static double evaluateShifted(StoexFormula formula, double[] x, int i, double h) {
+        double original = x[i];
+        x[i] = original + h;
+        double value = formula.evaluateNumeric(x);
+        x[i] = original;
+        return value;
+    }
+
+    private static double mixedDerivative(StoexFormula formula, double[] x, int i, double hi, int j, double hj) {
+        double xi = x[i];
+        double xj = x[j];
+        double sum = 0;
+        for (int si = -1; si <= 1; si += 2) {
+            for (int sj = -1; sj <= 1; sj += 2) {
+                x[i] = xi + si * hi;
+                x[j] = xj + sj * hj;
+                sum += si * sj * formula.evaluateNumeric(x);
+            }
+        }
+        x[i] = xi;
+        x[j] = xj;
+        return sum / (4 * hi * hj);
+    }
+}
@@ -0,0 +1,88 @@
+package tools.vitruv.methodologisttemplate.consistency.analytic;
+
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+
+/**
+ * Mean and variance of an uncertain quantity, the only state the
+ * {@link DeltaMethod} works on. Sums are computed exactly under the assumption
+ * of independent summands.
+ *
+ * @param mean     The mean.
+ * @param variance The variance, not negative.
+ */
+public record Moments(double mean, double variance) {
+
+    /**
+     * Reads the moments of a value. Numbers and double literals have no
+     * variance, normal distributions carry their own. Other StoEx expressions
+     * enter with their mean only, like in the Monte Carlo engine.
+     *
+     * @param value A {@link Number} or a StoEx {@link Expression}.
+     * @return The moments of the value.
+     */
+    public static Moments of(Object value) {
+        if (value instanceof Number number) {
+            return new Moments(number.doubleValue(), 0);
+        }
+        if (value instanceof DoubleLiteral literal) {
+            return new Moments(literal.getValue(), 0);
+        }
+        if (value instanceof NormalDistribution distribution) {
+            return new Moments(distribution.getMu(), distribution.getSigma() * distribution.getSigma());
+        }
+        if (value instanceof Expression expr) {
+            return new Moments(StoexFormula.mean(expr), 0);
+        }
+        throw new IllegalArgumentException("Unsupported value: " + value);
+    }
+
+    /**
+     * @param other An independent quantity.
+     * @return The moments of the sum.
+     */
+    public Moments plus(Moments other) {
+        return new Moments(mean + other.mean, variance + other.variance);
+    }
+
+    /**
+     * Removes an independent quantity that was added before. The variance is
+     * clamped at zero against rounding errors.
+     *
+     * @param other The quantity to remove.
+     * @return The moments of the difference.
+     */
+    public Moments minus(Moments other) {
+        return new Moments(mean - other.mean, Math.max(0, variance - other.variance));
+    }
+
+    /**
+     * @param n The number of independent, identically distributed copies, must
+     *          not be negative.
+     * @return The moments of the n-fold sum.
+     */
+    public Moments times(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + n);
+        }
+        return new Moments(n * mean, n * variance);
+    }
+
+    /**
+     * @return The standard deviation.
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * @return A double literal if there is no variance, a moment-matched normal
+     *         distribution otherwise.
+     */
+    public Expression toExpression() {
+        return variance > 0 ? StoexArithmetic.normal(mean, standardDeviation()) : StoexArithmetic.literal(mean);
+    }
+}
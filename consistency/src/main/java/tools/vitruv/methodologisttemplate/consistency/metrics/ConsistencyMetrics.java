@@ -0,0 +1,318 @@
+package tools.vitruv.methodologisttemplate.consistency.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import jdk.jfr.EventType;
+
+import org.eclipse.emf.ecore.EObject;
+
+import tools.vitruv.methodologisttemplate.consistency.trace.HelperEvent;
+import tools.vitruv.methodologisttemplate.consistency.trace.ReactionEvent;
+import tools.vitruv.methodologisttemplate.consistency.trace.RoutineEvent;
+
+/**
+ * Invocation counts and latency histograms of the reactions, routines and
+ * reaction helpers of the consistency preservation.
+ * <p>
+ * The reactions pass the routine they call to
+ * {@link #time(String, String, EObject, String, Runnable)}, which measures the
+ * call once and records the sample for both the reaction and the routine. The
+ * latency of a routine is thus the latency of the reaction calling it; a routine
+ * called by several reactions aggregates the calls of all of them. The helpers
+ * hold a {@link Timer} each. Recording costs two {@link System#nanoTime()} calls
+ * and a few uncontended atomic increments, so the metrics are enabled by
+ * default. They are available as a {@link #snapshot() snapshot} and over JMX
+ * under {@link #OBJECT_NAME}.
+ * <p>
+ * Independently of the metrics, every timed unit emits a flight recorder event
+ * of the {@code trace} package while a recording enables it. The events are
+ * only created while their type is enabled, so with the metrics disabled and
+ * no recording a timed unit just runs its call.
+ */
+public final class ConsistencyMetrics {
+
+    public static final String OBJECT_NAME = "tools.vitruv.methodologisttemplate:type=ConsistencyMetrics";
+
+    /**
+     * The kind of an instrumented unit.
+     */
+    public enum Kind {
+        REACTION, ROUTINE, HELPER
+    }
+
+    private static final Map<Kind, Map<String, Timer>> TIMERS = new EnumMap<>(Kind.class);
+    private static final EventType REACTION_EVENTS = EventType.getEventType(ReactionEvent.class);
+    private static final EventType ROUTINE_EVENTS = EventType.getEventType(RoutineEvent.class);
+    private static final EventType HELPER_EVENTS = EventType.getEventType(HelperEvent.class);
+    private static volatile boolean enabled = true;
+
+    static {
+        for (Kind kind : Kind.values()) {
+            TIMERS.put(kind, new ConcurrentHashMap<>());
+        }
+        registerMXBean();
+    }
+
+    private ConsistencyMetrics() {
+        // Utility class
+    }
+
+    /**
+     * @param name The name of the helper, e.g. {@code Class.method}.
+     * @return The timer of the helper, created on first use.
+     */
+    public static Timer helper(String name) {
+        return timer(Kind.HELPER, name);
+    }
+
+    /**
+     * @param kind The kind of the unit.
+     * @param name The name of the unit.
+     * @return The timer of the unit, created on first use.
+     */
+    public static Timer timer(Kind kind, String name) {
+        Map<String, Timer> timers = TIMERS.get(kind);
+        Timer timer = timers.get(name);
+        return timer != null ? timer : timers.computeIfAbsent(name, n -> new Timer(kind, n));
+    }
+
+    /**
+     * Runs the routine of a reaction and records its latency for both.
+     *
+     * @param reaction The name of the reaction.
+     * @param routine  The name of the routine.
+     * @param call     The call of the routine.
+     */
+    public static void time(String reaction, String routine, Runnable call) {
+        time(reaction, routine, null, null, call);
+    }
+
+    /**
+     * Runs the routine of a reaction and records its latency for both. A
+     * {@link ReactionEvent} and a {@link RoutineEvent} are emitted if the flight
+     * recorder records them.
+     *
+     * @param reaction        The name of the reaction.
+     * @param routine         The name of the routine.
+     * @param affectedEObject The element the reaction was triggered for, may be
+     *                        null.
+     * @param feature         The changed feature of the element, may be null.
+     * @param call            The call of the routine.
+     */
+    public static void time(String reaction, String routine, EObject affectedEObject, String feature,
+            Runnable call) {
+        ReactionEvent reactionEvent = REACTION_EVENTS.isEnabled() ? new ReactionEvent() : null;
+        RoutineEvent routineEvent = ROUTINE_EVENTS.isEnabled() ? new RoutineEvent() : null;
+        if (!enabled && reactionEvent == null && routineEvent == null) {
+            call.run();
+            return;
+        }
+        long start = enabled ? System.nanoTime() : 0;
+        if (reactionEvent != null) {
+            reactionEvent.begin();
+        }
+        if (routineEvent != null) {
+            routineEvent.begin();
+        }
+        try {
+            call.run();
+        } finally {
+            if (routineEvent != null) {
+                routineEvent.end();
+            }
+            if (reactionEvent != null) {
+                reactionEvent.end();
+            }
+            if (start != 0) {
+                // One sample for both, the routine is timed by its reaction
+                long nanos = System.nanoTime() - start;
+                timer(Kind.REACTION, reaction).histogram.record(nanos);
+                timer(Kind.ROUTINE, routine).histogram.record(nanos);
+            }
+            if (routineEvent != null && routineEvent.shouldCommit()) {
+                routineEvent.routine = routine;
+                routineEvent.setContext(affectedEObject, feature);
+                routineEvent.commit();
+            }
+            if (reactionEvent != null && reactionEvent.shouldCommit()) {
+                reactionEvent.reaction = reaction;
+                reactionEvent.routine = routine;
+                reactionEvent.setContext(affectedEObject, feature);
+                reactionEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * @return Whether invocations are recorded.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled Whether invocations are recorded.
+     */
+    public static void setEnabled(boolean enabled) {
+        ConsistencyMetrics.enabled = enabled;
+    }
+
+    /**
+     * @return The metrics of all units invoked so far, by descending total
+     *         latency.
+     */
+    public static List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> snapshots = new ArrayList<>();
+        for (Map<String, Timer> timers : TIMERS.values()) {
+            for (Timer timer : timers.values()) {
+                if (timer.histogram.getCount() > 0) {
+                    snapshots.add(timer.snapshot());
+                }
+            }
+        }
+        snapshots.sort(Comparator.comparingLong(MetricSnapshot::getTotalNanos).reversed());
+        return snapshots;
+    }
+
+    /**
+     * @param kind The kind of the unit.
+     * @param name The name of the unit.
+     * @return The current metrics of the unit.
+     */
+    public static MetricSnapshot snapshot(Kind kind, String name) {
+        return timer(kind, name).snapshot();
+    }
+
+    /**
+     * Resets all counts and latencies. Timers held by the helpers stay valid.
+     */
+    public static void reset() {
+        for (Map<String, Timer> timers : TIMERS.values()) {
+            timers.values().forEach(timer -> timer.histogram.reset());
+        }
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server. Called when the
+     * class is initialized; repeated calls have no effect.
+     */
+    public static void registerMXBean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new ManagementBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // Registered before, e.g. by another class loader
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the consistency metrics", e);
+        }
+    }
+
+    /**
+     * Records the latencies of one unit.
+     */
+    public static final class Timer {
+        private final Kind kind;
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(Kind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        /**
+         * Starts timing a call of a helper. A {@link HelperEvent} is emitted when
+         * the sample is stopped if the flight recorder records it.
+         *
+         * @param context The element the helper is called for, may be null.
+         * @param feature The feature or parameter location the call is about, may
+         *                be null.
+         * @return The sample to {@link Sample#stop() stop} after the call.
+         */
+        public Sample start(EObject context, String feature) {
+            return new Sample(this, context, feature);
+        }
+
+        MetricSnapshot snapshot() {
+            return new MetricSnapshot(kind.name(), name, histogram.getCount(), histogram.getTotalNanos(),
+                    histogram.getMaxNanos(), histogram.quantile(0.5), histogram.quantile(0.9),
+                    histogram.quantile(0.99));
+        }
+    }
+
+    /**
+     * A running call of a helper.
+     */
+    public static final class Sample {
+        private final Timer timer;
+        private final EObject context;
+        private final String feature;
+        private final long start;
+        private final HelperEvent event;
+
+        private Sample(Timer timer, EObject context, String feature) {
+            this.timer = timer;
+            this.context = context;
+            this.feature = feature;
+            this.start = enabled ? System.nanoTime() : 0;
+            this.event = HELPER_EVENTS.isEnabled() ? new HelperEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+        }
+
+        /**
+         * Records the latency of the call.
+         */
+        public void stop() {
+            if (event != null) {
+                event.end();
+            }
+            if (start != 0) {
+                timer.histogram.record(System.nanoTime() - start);
+            }
+            if (event != null && event.shouldCommit()) {
+                event.helper = timer.name;
+                event.setContext(context, feature);
+                event.commit();
+            }
+        }
+    }
+
+    private static final class ManagementBean implements ConsistencyMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return ConsistencyMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            ConsistencyMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public List<MetricSnapshot> getMetrics() {
+            return snapshot();
+        }
+
+        @Override
+        public void reset() {
+            ConsistencyMetrics.reset();
+        }
+    }
+}
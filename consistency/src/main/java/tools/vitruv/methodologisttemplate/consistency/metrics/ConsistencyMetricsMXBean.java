@@ -0,0 +1,31 @@
+package tools.vitruv.methodologisttemplate.consistency.metrics;
+
+import java.util.List;
+
+/**
+ * Management interface of the {@link ConsistencyMetrics}, registered under
+ * {@link ConsistencyMetrics#OBJECT_NAME}.
+ */
+public interface ConsistencyMetricsMXBean {
+
+    /**
+     * @return Whether invocations are recorded.
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled Whether invocations are recorded.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return The metrics of all reactions, routines and helpers invoked so far,
+     *         by descending total latency.
+     */
+    List<MetricSnapshot> getMetrics();
+
+    /**
+     * Resets all counts and latencies.
+     */
+    void reset();
+}
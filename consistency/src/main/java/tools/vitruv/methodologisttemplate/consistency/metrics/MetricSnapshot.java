@@ -0,0 +1,123 @@
+package tools.vitruv.methodologisttemplate.consistency.metrics;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Invocation count and latencies of one reaction, routine or helper at the
+ * time of a snapshot. A class with getters rather than a record so that JMX
+ * can map it to composite data.
+ */
+public final class MetricSnapshot {
+
+    private final String kind;
+    private final String name;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+
+    /**
+     * @param kind       The {@link ConsistencyMetrics.Kind} of the metric.
+     * @param name       The name of the reaction, routine or helper.
+     * @param count      The number of invocations.
+     * @param totalNanos The summed latency.
+     * @param maxNanos   The largest latency.
+     * @param p50Nanos   The median latency.
+     * @param p90Nanos   The 90% quantile of the latency.
+     * @param p99Nanos   The 99% quantile of the latency.
+     */
+    public MetricSnapshot(String kind, String name, long count, long totalNanos, long maxNanos, long p50Nanos,
+            long p90Nanos, long p99Nanos) {
+        this.kind = kind;
+        this.name = name;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+    }
+
+    /**
+     * Reconstructs a snapshot read over JMX.
+     *
+     * @param data The composite data of the snapshot.
+     * @return The snapshot.
+     */
+    public static MetricSnapshot from(CompositeData data) {
+        return new MetricSnapshot((String) data.get("kind"), (String) data.get("name"), (Long) data.get("count"),
+                (Long) data.get("totalNanos"), (Long) data.get("maxNanos"), (Long) data.get("p50Nanos"),
+                (Long) data.get("p90Nanos"), (Long) data.get("p99Nanos"));
+    }
+
+    /**
+     * @return The kind of the metric, see {@link ConsistencyMetrics.Kind}.
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The name of the reaction, routine or helper.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The number of invocations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The summed latency in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return The mean latency in nanoseconds, 0 without invocations.
+     */
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * @return The largest latency in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return The median latency in nanoseconds, resolved to a power of two.
+     */
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    /**
+     * @return The 90% quantile of the latency in nanoseconds, resolved to a power of two.
+     */
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    /**
+     * @return The 99% quantile of the latency in nanoseconds, resolved to a power of two.
+     */
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: %d calls, mean %d ns, p99 %d ns, max %d ns", kind, name, count,
+                getMeanNanos(), p99Nanos, maxNanos);
+    }
+}
@@ -0,0 +1,171 @@
+package tools.vitruv.methodologisttemplate.consistency.montecarlo;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+
+/**
+ * Propagates uncertain inputs through a {@link StoexFormula} by sampling.
+ * <p>
+ * The samples are split into fixed-size chunks that are processed in parallel
+ * on a {@link ForkJoinPool}. Every chunk and input owns a random stream that is
+ * split from the root stream of the seed before any work is scheduled, so the
+ * result for a given seed and sample count does not depend on the number of
+ * threads or on the order in which chunks are processed. Samples are kept in
+ * primitive {@code double[]} buffers; per sample only the numeric plan of the
+ * formula is evaluated.
+ * <p>
+ * Double literals and plain numbers are constant inputs and normal
+ * distributions are sampled directly. Other StoEx expressions cannot be
+ * sampled independently of the evaluator and enter the formula with their
+ * mean.
+ */
+public final class MonteCarloEngine {
+
+    static final int CHUNK_SIZE = 4096;
+
+    private static final StoexFormula IDENTITY = StoexFormula.compile("x", "x");
+
+    private final int sampleCount;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates an engine that runs on the common fork-join pool.
+     *
+     * @param sampleCount The number of samples per propagation.
+     * @param seed        The seed of the root random stream.
+     */
+    public MonteCarloEngine(int sampleCount, long seed) {
+        this(sampleCount, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an engine that runs on the given pool.
+     *
+     * @param sampleCount The number of samples per propagation.
+     * @param seed        The seed of the root random stream.
+     * @param pool        The pool the chunks are processed on.
+     */
+    public MonteCarloEngine(int sampleCount, long seed, ForkJoinPool pool) {
+        if (sampleCount <= 0) {
+            throw new IllegalArgumentException("Sample count must be positive: " + sampleCount);
+        }
+        this.sampleCount = sampleCount;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * @return The number of samples per propagation.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return The seed of the root random stream.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Samples a single expression.
+     *
+     * @param expr The expression to sample.
+     * @return The statistics of the samples.
+     */
+    public SampleStatistics sample(Expression expr) {
+        return propagate(IDENTITY, expr);
+    }
+
+    /**
+     * Samples the inputs of the formula independently and evaluates the formula
+     * for every sample.
+     *
+     * @param formula The formula to propagate the inputs through.
+     * @param values  One value per slot of the formula, either a {@link Number}
+     *                or a StoEx {@link Expression}.
+     * @return The statistics of the formula values.
+     */
+    public SampleStatistics propagate(StoexFormula formula, Object... values) {
+        Sampler[] samplers = new Sampler[values.length];
+        for (int i = 0; i < values.length; i++) {
+            samplers[i] = samplerFor(values[i]);
+        }
+
+        int chunks = (sampleCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[][] streams = new SplittableRandom[chunks][values.length];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            for (int i = 0; i < values.length; i++) {
+                streams[chunk][i] = root.split();
+            }
+        }
+
+        double[] results = new double[sampleCount];
+        Runnable sampling = () -> IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> sampleChunk(formula, samplers, streams[chunk], results, chunk));
+        if (chunks == 1) {
+            sampling.run();
+        } else {
+            pool.submit(sampling).join();
+        }
+        return new SampleStatistics(results);
+    }
+
+    private void sampleChunk(StoexFormula formula, Sampler[] samplers, SplittableRandom[] streams,
+            double[] results, int chunk) {
+        int from = chunk * CHUNK_SIZE;
+        int length = Math.min(CHUNK_SIZE, sampleCount - from);
+        double[][] inputs = new double[samplers.length][length];
+        for (int i = 0; i < samplers.length; i++) {
+            samplers[i].fill(inputs[i], streams[i]);
+        }
+        double[] row = new double[samplers.length];
+        for (int j = 0; j < length; j++) {
+            for (int i = 0; i < samplers.length; i++) {
+                row[i] = inputs[i][j];
+            }
+            results[from + j] = formula.evaluateNumeric(row);
+        }
+    }
+
+    private static Sampler samplerFor(Object value) {
+        if (value instanceof Number number) {
+            return constant(number.doubleValue());
+        }
+        if (value instanceof DoubleLiteral literal) {
+            return constant(literal.getValue());
+        }
+        if (value instanceof NormalDistribution distribution) {
+            double mu = distribution.getMu();
+            double sigma = distribution.getSigma();
+            return (buffer, random) -> {
+                for (int j = 0; j < buffer.length; j++) {
+                    buffer[j] = mu + sigma * random.nextGaussian();
+                }
+            };
+        }
+        if (value instanceof Expression expr) {
+            return constant(StoexFormula.mean(expr));
+        }
+        throw new IllegalArgumentException("Unsupported value: " + value);
+    }
+
+    private static Sampler constant(double value) {
+        return (buffer, random) -> Arrays.fill(buffer, value);
+    }
+
+    @FunctionalInterface
+    private interface Sampler {
+        void fill(double[] buffer, SplittableRandom random);
+    }
+}
@@ -0,0 +1,150 @@
+package tools.vitruv.methodologisttemplate.consistency.montecarlo;
+
+import java.util.Arrays;
+
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.stoex.stoex.Expression;
+
+/**
+ * Summary of the samples drawn for a derived quantity by the
+ * {@link MonteCarloEngine}: mean, variance, quantiles and the empirical
+ * distribution of the samples.
+ */
+public final class SampleStatistics {
+
+    private final double[] sorted;
+    private final double mean;
+    private final double variance;
+
+    SampleStatistics(double[] samples) {
+        if (samples.length == 0) {
+            throw new IllegalArgumentException("At least one sample is required");
+        }
+        this.sorted = samples;
+        Arrays.parallelSort(sorted);
+        double sum = 0;
+        for (double sample : sorted) {
+            sum += sample;
+        }
+        this.mean = sum / sorted.length;
+        double squares = 0;
+        for (double sample : sorted) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        this.variance = sorted.length > 1 ? squares / (sorted.length - 1) : 0;
+    }
+
+    /**
+     * @return The number of samples.
+     */
+    public int getSampleCount() {
+        return sorted.length;
+    }
+
+    /**
+     * @return The sample mean.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return The unbiased sample variance.
+     */
+    public double getVariance() {
+        return variance;
+    }
+
+    /**
+     * @return The sample standard deviation.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * @return The smallest sample.
+     */
+    public double getMin() {
+        return sorted[0];
+    }
+
+    /**
+     * @return The largest sample.
+     */
+    public double getMax() {
+        return sorted[sorted.length - 1];
+    }
+
+    /**
+     * Computes a quantile of the samples, interpolating linearly between
+     * neighbouring order statistics.
+     *
+     * @param p The probability in [0, 1], e.g. 0.95.
+     * @return The p-quantile.
+     */
+    public double quantile(double p) {
+        if (p < 0 || p > 1) {
+            throw new IllegalArgumentException("Probability must be in [0, 1]: " + p);
+        }
+        double position = p * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+    }
+
+    /**
+     * Evaluates the empirical distribution function of the samples.
+     *
+     * @param x The value.
+     * @return The fraction of samples that are less than or equal to x.
+     */
+    public double cdf(double x) {
+        int index = Arrays.binarySearch(sorted, x);
+        if (index < 0) {
+            return (double) (-index - 1) / sorted.length;
+        }
+        while (index + 1 < sorted.length && sorted[index + 1] == x) {
+            index++;
+        }
+        return (double) (index + 1) / sorted.length;
+    }
+
+    /**
+     * Counts the samples in equally wide bins between the smallest and the
+     * largest sample.
+     *
+     * @param bins The number of bins.
+     * @return The number of samples per bin.
+     */
+    public int[] histogram(int bins) {
+        if (bins <= 0) {
+            throw new IllegalArgumentException("Number of bins must be positive: " + bins);
+        }
+        int[] counts = new int[bins];
+        double width = (getMax() - getMin()) / bins;
+        for (double sample : sorted) {
+            int bin = width == 0 ? 0 : (int) ((sample - getMin()) / width);
+            counts[Math.min(bin, bins - 1)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Converts the samples into a StoEx expression that can be stored in an
+     * uncertainty effect: a normal distribution with the sample mean and
+     * standard deviation, or a double literal if all samples are equal.
+     *
+     * @return The moment-matched expression.
+     */
+    public Expression toExpression() {
+        return variance == 0 ? StoexArithmetic.literal(mean)
+                : StoexArithmetic.normal(mean, getStandardDeviation());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SampleStatistics[n=%d, mean=%g, sd=%g, p05=%g, p95=%g]", sorted.length, mean,
+                getStandardDeviation(), quantile(0.05), quantile(0.95));
+    }
+}
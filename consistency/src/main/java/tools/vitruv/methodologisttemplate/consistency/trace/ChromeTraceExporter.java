@@ -0,0 +1,180 @@
+package tools.vitruv.methodologisttemplate.consistency.trace;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jdk.jfr.ValueDescriptor;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Converts the commit, reaction, routine and helper events of a flight
+ * recording into the Chrome trace event format, which chrome://tracing and
+ * the Perfetto UI display as a timeline. Every event becomes a complete slice
+ * on the track of its thread, so the reactions caused by a commit appear
+ * nested below it and the helpers below their routine. The fields of an event
+ * are shown as the arguments of its slice.
+ */
+public final class ChromeTraceExporter {
+
+    private static final String EVENT_PREFIX = "tools.vitruv.methodologisttemplate.";
+    private static final Set<String> IMPLICIT_FIELDS = Set.of("startTime", "duration", "eventThread", "stackTrace");
+
+    private ChromeTraceExporter() {
+        // Utility class
+    }
+
+    /**
+     * Exports all commits of a recording.
+     *
+     * @param recording The flight recording.
+     * @param trace     The file to write the trace to.
+     * @throws IOException if the recording cannot be read or the trace cannot be
+     *                     written.
+     */
+    public static void export(Path recording, Path trace) throws IOException {
+        write(readEvents(recording), trace);
+    }
+
+    /**
+     * Exports one commit of a recording, i.e. the commit event and all events
+     * within its span, on any thread.
+     *
+     * @param recording The flight recording.
+     * @param trace     The file to write the trace to.
+     * @param commitId  The {@link CommitEvent#commitId id} of the commit.
+     * @throws IOException if the recording cannot be read or the trace cannot be
+     *                     written.
+     * @throws IllegalArgumentException if the recording has no such commit.
+     */
+    public static void export(Path recording, Path trace, long commitId) throws IOException {
+        List<RecordedEvent> events = readEvents(recording);
+        RecordedEvent commit = events.stream()
+                .filter(e -> e.getEventType().getName().equals(EVENT_PREFIX + "Commit")
+                        && e.getLong("commitId") == commitId)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No commit " + commitId + " in " + recording));
+        Instant start = commit.getStartTime();
+        Instant end = commit.getEndTime();
+        write(events.stream()
+                .filter(e -> !e.getStartTime().isBefore(start) && !e.getEndTime().isAfter(end))
+                .toList(), trace);
+    }
+
+    private static List<RecordedEvent> readEvents(Path recording) throws IOException {
+        List<RecordedEvent> events = new ArrayList<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (event.getEventType().getName().startsWith(EVENT_PREFIX)) {
+                    events.add(event);
+                }
+            }
+        }
+        // Enclosing slices first, so viewers nest slices with equal start times
+        events.sort(Comparator.comparing(RecordedEvent::getStartTime)
+                .thenComparing(RecordedEvent::getDuration, Comparator.reverseOrder()));
+        return events;
+    }
+
+    private static void write(List<RecordedEvent> events, Path trace) throws IOException {
+        Instant origin = events.isEmpty() ? Instant.EPOCH : events.get(0).getStartTime();
+        Map<Long, String> threads = new LinkedHashMap<>();
+        try (Writer writer = Files.newBufferedWriter(trace)) {
+            writer.write("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+            boolean first = true;
+            for (RecordedEvent event : events) {
+                RecordedThread thread = event.getThread();
+                long tid = thread == null ? 0 : thread.getJavaThreadId();
+                if (thread != null) {
+                    threads.putIfAbsent(tid, thread.getJavaName());
+                }
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+                writeSlice(writer, event, tid, origin);
+            }
+            for (Map.Entry<Long, String> thread : threads.entrySet()) {
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+                writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+                        + ",\"args\":{\"name\":" + quote(thread.getValue()) + "}}");
+            }
+            writer.write("\n]}\n");
+        }
+    }
+
+    private static void writeSlice(Writer writer, RecordedEvent event, long tid, Instant origin)
+            throws IOException {
+        String category = event.getEventType().getName().substring(EVENT_PREFIX.length());
+        StringBuilder slice = new StringBuilder();
+        slice.append("{\"name\":").append(quote(sliceName(event, category)))
+                .append(",\"cat\":").append(quote(category))
+                .append(",\"ph\":\"X\",\"pid\":1,\"tid\":").append(tid)
+                .append(",\"ts\":").append(micros(origin, event.getStartTime()))
+                .append(",\"dur\":").append(event.getDuration().toNanos() / 1000.0)
+                .append(",\"args\":{");
+        boolean first = true;
+        for (ValueDescriptor field : event.getFields()) {
+            Object value = event.getValue(field.getName());
+            if (IMPLICIT_FIELDS.contains(field.getName()) || value == null) {
+                continue;
+            }
+            if (!first) {
+                slice.append(',');
+            }
+            first = false;
+            slice.append(quote(field.getName())).append(':')
+                    .append(value instanceof Number || value instanceof Boolean ? value.toString()
+                            : quote(value.toString()));
+        }
+        slice.append("}}");
+        writer.write(slice.toString());
+    }
+
+    private static String sliceName(RecordedEvent event, String category) {
+        return switch (category) {
+            case "Commit" -> "Commit " + event.getLong("commitId");
+            case "Reaction" -> event.getString("reaction");
+            case "Routine" -> event.getString("routine");
+            case "Helper" -> event.getString("helper");
+            default -> category;
+        };
+    }
+
+    private static double micros(Instant origin, Instant time) {
+        return (time.getEpochSecond() - origin.getEpochSecond()) * 1e6
+                + (time.getNano() - origin.getNano()) / 1000.0;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
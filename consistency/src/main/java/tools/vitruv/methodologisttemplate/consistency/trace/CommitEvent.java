@@ -0,0 +1,44 @@
+package tools.vitruv.methodologisttemplate.consistency.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The commit of a view, spanning the propagation of its changes and, for
+ * deferred commits, the recomputation of the derived quantities. The reaction,
+ * routine and helper events of the commit are nested in its span on the same
+ * thread.
+ */
+@Name("tools.vitruv.methodologisttemplate.Commit")
+@Label("Commit")
+@Description("The commit of a view and the propagation of its changes")
+@Category({ "Vitruv", "Consistency" })
+@StackTrace(false)
+public final class CommitEvent extends Event {
+
+    private static final AtomicLong COMMITS = new AtomicLong();
+
+    @Label("Commit Id")
+    @Description("Number of the commit, unique within the JVM")
+    public long commitId;
+
+    @Label("Deferred")
+    @Description("Whether the derived quantities were recomputed after the propagation")
+    public boolean deferred;
+
+    @Label("Recomputed Systems")
+    public int recomputedSystems;
+
+    /**
+     * @return A new commit id.
+     */
+    public static long nextCommitId() {
+        return COMMITS.incrementAndGet();
+    }
+}
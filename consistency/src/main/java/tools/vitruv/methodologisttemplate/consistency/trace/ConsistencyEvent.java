@@ -0,0 +1,85 @@
+package tools.vitruv.methodologisttemplate.consistency.trace;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import mafds.DamperSystem;
+import uncertainty.Uncertainty;
+
+/**
+ * Common fields of the flight recorder events of a propagation step: the type
+ * and feature of the affected element and the damper system the element
+ * belongs to. The fields are only resolved for events that are committed, so
+ * an event that is not recorded costs nothing but its allocation, which the
+ * JIT usually removes.
+ */
+@Category({ "Vitruv", "Consistency" })
+@StackTrace(false)
+public abstract class ConsistencyEvent extends Event {
+
+    @Label("EObject Type")
+    String eObjectType;
+
+    @Label("Feature")
+    String feature;
+
+    @Label("Damper System")
+    String damperSystem;
+
+    /**
+     * Sets the context fields from the affected element.
+     *
+     * @param affectedEObject The affected element, may be null.
+     * @param feature         The name of the affected feature or parameter
+     *                        location, may be null.
+     */
+    public void setContext(EObject affectedEObject, String feature) {
+        this.feature = feature;
+        if (affectedEObject != null) {
+            this.eObjectType = affectedEObject.eClass().getName();
+            DamperSystem system = findDamperSystem(affectedEObject);
+            this.damperSystem = system == null ? null : identify(system);
+        }
+    }
+
+    /**
+     * Finds the damper system an element belongs to. Elements of the uncertainty
+     * model belong to the damper system of the first component their uncertainty
+     * references.
+     *
+     * @param object The element.
+     * @return The damper system, null if the element belongs to none.
+     */
+    static DamperSystem findDamperSystem(EObject object) {
+        for (EObject current = object; current != null; current = current.eContainer()) {
+            if (current instanceof DamperSystem system) {
+                return system;
+            }
+            if (current instanceof Uncertainty u && u.getUncertaintyLocation() != null) {
+                for (EObject component : u.getUncertaintyLocation().getReferencedComponents()) {
+                    for (EObject c = component; c != null; c = c.eContainer()) {
+                        if (c instanceof DamperSystem system) {
+                            return system;
+                        }
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // The id of the system if it has one, its fragment in the resource otherwise
+    static String identify(DamperSystem system) {
+        if (system.getId() != null) {
+            return system.getId();
+        }
+        URI uri = EcoreUtil.getURI(system);
+        return uri.fragment();
+    }
+}
@@ -0,0 +1,17 @@
+package tools.vitruv.methodologisttemplate.consistency.trace;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call of a reaction helper.
+ */
+@Name("tools.vitruv.methodologisttemplate.Helper")
+@Label("Helper")
+@Description("A call of a reaction helper")
+public final class HelperEvent extends ConsistencyEvent {
+
+    @Label("Helper")
+    public String helper;
+}
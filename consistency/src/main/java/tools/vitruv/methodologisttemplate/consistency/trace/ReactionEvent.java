@@ -0,0 +1,20 @@
+package tools.vitruv.methodologisttemplate.consistency.trace;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A reaction firing, spanning the routine it calls.
+ */
+@Name("tools.vitruv.methodologisttemplate.Reaction")
+@Label("Reaction")
+@Description("A reaction fired by a propagated change")
+public final class ReactionEvent extends ConsistencyEvent {
+
+    @Label("Reaction")
+    public String reaction;
+
+    @Label("Routine")
+    public String routine;
+}
@@ -0,0 +1,17 @@
+package tools.vitruv.methodologisttemplate.consistency.trace;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A routine called by a reaction.
+ */
+@Name("tools.vitruv.methodologisttemplate.Routine")
+@Label("Routine")
+@Description("A routine called by a reaction")
+public final class RoutineEvent extends ConsistencyEvent {
+
+    @Label("Routine")
+    public String routine;
+}
@@ -0,0 +1,31 @@
+package tools.vitruv.methodologisttemplate.viewtype;
+
+import java.util.List;
+import java.util.function.Function;
+
+import tools.vitruv.change.atomic.EChange;
+import tools.vitruv.change.atomic.hid.HierarchicalId;
+
+/**
+ * A filter for the changes committed through a
+ * {@link ChangeTransformingViewType} that promises not to modify its input.
+ * <p>
+ * Unlike a plain {@link Function} filter, a {@link ChangeFilter} is applied to
+ * the recorded changes of the view directly instead of a copy of them. A filter
+ * that has nothing to filter returns the given list itself; if every filter of
+ * a view type does so, the recorded change is committed as is.
+ */
+@FunctionalInterface
+public interface ChangeFilter extends Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> {
+
+  /**
+   * Filters the given changes.
+   *
+   * @param changes the changes to filter, must neither be modified nor be
+   *                returned in a modified form
+   * @return the given list itself if no change is filtered, otherwise a new list
+   *         with the remaining changes
+   */
+  @Override
+  List<EChange<HierarchicalId>> apply(List<EChange<HierarchicalId>> changes);
+}
@@ -0,0 +1,12 @@
+package tools.vitruv.methodologisttemplate.viewtype;
+
+/**
+ * Counters of a filter registered at a {@link ChangeTransformingViewType},
+ * accumulated over all commits since the filter was registered.
+ *
+ * @param seenChanges    the number of changes passed to the filter
+ * @param droppedChanges the number of changes the filter removed
+ * @param nanos          the total time spent in the filter in nanoseconds
+ */
+public record ChangeFilterStatistics(long seenChanges, long droppedChanges, long nanos) {
+}
@@ -14,7 +14,8 @@ import tools.vitruv.framework.views.impl.IdentityMappingViewType;
  * Extends the {@link IdentityMappingViewType} by
  * additionally providing the functionality to add filters which filter lists of
  * {@link EChange} that are used to commit changes to a view. The filters may,
- * e.g., chose to omit certain kinds of changes.
+ * e.g., chose to omit certain kinds of changes. Filters implementing
+ * {@link ChangeFilter} are applied without copying the committed changes.
  */
 public abstract class ChangeTransformingViewType extends IdentityMappingViewType {
 
@@ -44,6 +45,17 @@ public abstract class ChangeTransformingViewType extends IdentityMappingViewType
    */
   public abstract boolean unregisterFilter(Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter);
 
+  /**
+   * Returns the counters of the given filter. Filters may be registered and
+   * unregistered while views commit concurrently; the counters restart when a
+   * filter is registered again.
+   * 
+   * @param filter the registered filter
+   * @return the counters of the filter, or null if it is not registered.
+   */
+  public abstract ChangeFilterStatistics getFilterStatistics(
+      Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter);
+
   /**
    * Builds and returns a new {@link ChangeTransformingView} without any filters
    * added. The created View is a {@link ChangeDerivingView}.
@@ -0,0 +1,118 @@
+package tools.vitruv.methodologisttemplate.viewtype;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import tools.vitruv.change.atomic.EChange;
+import tools.vitruv.change.atomic.eobject.EObjectExistenceEChange;
+import tools.vitruv.change.atomic.feature.FeatureEChange;
+import tools.vitruv.change.atomic.feature.attribute.ReplaceSingleValuedEAttribute;
+import tools.vitruv.change.atomic.feature.list.InsertInListEChange;
+import tools.vitruv.change.atomic.feature.list.RemoveFromListEChange;
+import tools.vitruv.change.atomic.hid.HierarchicalId;
+
+/**
+ * A {@link ChangeFilter} that reduces the changes of a view session to their
+ * net effect on attribute values and list memberships:
+ * <ul>
+ * <li>Repeated replacements of the same attribute of the same element are
+ * collapsed into one replacement from the first old value to the last new
+ * value, at the position of the first replacement.</li>
+ * <li>Replacements whose (collapsed) old value equals the new value are
+ * dropped.</li>
+ * <li>An insertion into a list that is removed again at the same index, without
+ * any other change of that list in between, is dropped together with the
+ * removal.</li>
+ * </ul>
+ * All changes of the session are applied before the reactions run, so the
+ * reactions see the same final state; a collapsed replacement still carries
+ * the value before the session as its old value. Chains are broken when the
+ * affected element is created or deleted, so changes of different incarnations
+ * of an element are never merged.
+ */
+public class CoalescingChangeFilter implements ChangeFilter {
+
+  private record FeatureKey(Object element, EStructuralFeature feature) {
+  }
+
+  @Override
+  public List<EChange<HierarchicalId>> apply(List<EChange<HierarchicalId>> changes) {
+    List<EChange<HierarchicalId>> result = new ArrayList<>(changes);
+    // Position of the first replacement of the current chain of every attribute
+    Map<FeatureKey, Integer> replacements = new HashMap<>();
+    // Position of the last change of every list
+    Map<FeatureKey, Integer> lastListChanges = new HashMap<>();
+    Map<Object, Set<FeatureKey>> keysByElement = new HashMap<>();
+    boolean modified = false;
+
+    for (int i = 0; i < changes.size(); i++) {
+      EChange<HierarchicalId> change = changes.get(i);
+      if (change instanceof EObjectExistenceEChange<?> existenceChange) {
+        Set<FeatureKey> keys = keysByElement.remove(existenceChange.getAffectedElement());
+        if (keys != null) {
+          replacements.keySet().removeAll(keys);
+          lastListChanges.keySet().removeAll(keys);
+        }
+        continue;
+      }
+      if (!(change instanceof FeatureEChange<?, ?> featureChange)) {
+        continue;
+      }
+      FeatureKey key = new FeatureKey(featureChange.getAffectedElement(), featureChange.getAffectedFeature());
+      keysByElement.computeIfAbsent(key.element(), element -> new HashSet<>()).add(key);
+
+      if (change instanceof ReplaceSingleValuedEAttribute<?, ?> replacement) {
+        Integer first = replacements.putIfAbsent(key, i);
+        if (first != null) {
+          result.set(first, withNewValue(result.get(first), replacement.getNewValue()));
+          result.set(i, null);
+          modified = true;
+        }
+      } else if (change instanceof RemoveFromListEChange<?, ?, ?> removal) {
+        Integer previous = lastListChanges.remove(key);
+        if (previous != null && result.get(previous) instanceof InsertInListEChange<?, ?, ?> insertion
+            && insertion.getIndex() == removal.getIndex()
+            && Objects.equals(insertion.getNewValue(), removal.getOldValue())) {
+          result.set(previous, null);
+          result.set(i, null);
+          modified = true;
+        } else {
+          lastListChanges.put(key, i);
+        }
+      } else if (change instanceof InsertInListEChange<?, ?, ?>) {
+        lastListChanges.put(key, i);
+      } else {
+        lastListChanges.remove(key);
+      }
+    }
+
+    for (int i = 0; i < result.size(); i++) {
+      if (result.get(i) instanceof ReplaceSingleValuedEAttribute<?, ?> replacement
+          && Objects.equals(replacement.getOldValue(), replacement.getNewValue())) {
+        result.set(i, null);
+        modified = true;
+      }
+    }
+    if (!modified) {
+      return changes;
+    }
+    result.removeIf(Objects::isNull);
+    return result;
+  }
+
+  // Copies the replacement with a new value; the input changes are not modified
+  @SuppressWarnings("unchecked")
+  private static EChange<HierarchicalId> withNewValue(EChange<HierarchicalId> change, Object newValue) {
+    var copy = (ReplaceSingleValuedEAttribute<HierarchicalId, Object>) EcoreUtil.copy(change);
+    copy.setNewValue(newValue);
+    return copy;
+  }
+}
@@ -1,9 +1,13 @@
 package tools.vitruv.methodologisttemplate.viewtype.impl;
 
+import tools.vitruv.methodologisttemplate.viewtype.ChangeFilter;
+import tools.vitruv.methodologisttemplate.viewtype.ChangeFilterStatistics;
 import tools.vitruv.methodologisttemplate.viewtype.ChangeTransformingViewType;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import tools.vitruv.change.atomic.EChange;
@@ -13,29 +17,115 @@ import tools.vitruv.change.composite.description.VitruviusChangeFactory;
 import tools.vitruv.framework.views.impl.ModifiableView;
 
 public class ChangeTransformingViewTypeImpl extends ChangeTransformingViewType {
-  private List<Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>>> filters;
+  // Immutable snapshot of the registered filters, replaced on every
+  // (un)registration so committing views never see a list being modified
+  private final AtomicReference<Pipeline> pipeline;
 
   public ChangeTransformingViewTypeImpl(String name) {
     super(name);
-    this.filters = new ArrayList<>();
+    this.pipeline = new AtomicReference<>(Pipeline.EMPTY);
   }
 
   @Override
   public void commitViewChanges(ModifiableView view, VitruviusChange<HierarchicalId> viewChange) {
-    var modifiedChange = viewChange.copy().getEChanges();
-    for (Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter : filters) {
-      modifiedChange = filter.apply(modifiedChange);
+    Pipeline current = pipeline.get();
+    if (current.stages.length == 0) {
+      super.commitViewChanges(view, viewChange);
+      return;
+    }
+    // Plain functions may modify their input, only they get a copy to work on
+    var original = current.copyInput ? viewChange.copy().getEChanges() : viewChange.getEChanges();
+    var modifiedChange = original;
+    for (Stage stage : current.stages) {
+      modifiedChange = stage.apply(modifiedChange);
+    }
+    if (!current.copyInput && modifiedChange == original) {
+      super.commitViewChanges(view, viewChange);
+      return;
     }
     super.commitViewChanges(view, VitruviusChangeFactory.getInstance().createTransactionalChange(modifiedChange));
   }
 
   public boolean registerFilter(Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter) {
-    return this.filters.add(filter);
+    Stage stage = new Stage(filter);
+    pipeline.updateAndGet(current -> current.with(stage));
+    return true;
   }
 
   @Override
   public boolean unregisterFilter(Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter) {
-    return this.filters.remove(filter);
+    Pipeline before = pipeline.getAndUpdate(current -> current.without(filter));
+    return before.indexOf(filter) >= 0;
+  }
+
+  @Override
+  public ChangeFilterStatistics getFilterStatistics(
+      Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter) {
+    Pipeline current = pipeline.get();
+    int index = current.indexOf(filter);
+    return index < 0 ? null : current.stages[index].getStatistics();
   }
 
+  private static final class Pipeline {
+    static final Pipeline EMPTY = new Pipeline(new Stage[0]);
+
+    final Stage[] stages;
+    final boolean copyInput;
+
+    private Pipeline(Stage[] stages) {
+      this.stages = stages;
+      this.copyInput = Arrays.stream(stages).anyMatch(stage -> !(stage.filter instanceof ChangeFilter));
+    }
+
+    Pipeline with(Stage stage) {
+      Stage[] extended = Arrays.copyOf(stages, stages.length + 1);
+      extended[stages.length] = stage;
+      return new Pipeline(extended);
+    }
+
+    Pipeline without(Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter) {
+      int index = indexOf(filter);
+      if (index < 0) {
+        return this;
+      }
+      Stage[] reduced = new Stage[stages.length - 1];
+      System.arraycopy(stages, 0, reduced, 0, index);
+      System.arraycopy(stages, index + 1, reduced, index, stages.length - index - 1);
+      return new Pipeline(reduced);
+    }
+
+    int indexOf(Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter) {
+      for (int i = 0; i < stages.length; i++) {
+        if (stages[i].filter.equals(filter)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  private static final class Stage {
+    final Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter;
+    private final LongAdder seenChanges = new LongAdder();
+    private final LongAdder droppedChanges = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    Stage(Function<List<EChange<HierarchicalId>>, List<EChange<HierarchicalId>>> filter) {
+      this.filter = filter;
+    }
+
+    List<EChange<HierarchicalId>> apply(List<EChange<HierarchicalId>> changes) {
+      int seen = changes.size();
+      long start = System.nanoTime();
+      List<EChange<HierarchicalId>> result = filter.apply(changes);
+      nanos.add(System.nanoTime() - start);
+      seenChanges.add(seen);
+      droppedChanges.add(Math.max(0, seen - result.size()));
+      return result;
+    }
+
+    ChangeFilterStatistics getStatistics() {
+      return new ChangeFilterStatistics(seenChanges.sum(), droppedChanges.sum(), nanos.sum());
+    }
+  }
 }
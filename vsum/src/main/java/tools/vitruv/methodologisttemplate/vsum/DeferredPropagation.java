@@ -0,0 +1,191 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.views.ViewTypeFactory;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DampingRatioReactionsHelper;
+import tools.vitruv.methodologisttemplate.consistency.DampingRatioReactionsHelper.Recomputation;
+import tools.vitruv.methodologisttemplate.consistency.DerivedQuantityTracker;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyIndex;
+import tools.vitruv.methodologisttemplate.consistency.trace.CommitEvent;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Commits view changes with the recomputation of derived quantities deferred to
+ * the end of the propagation. While the changes are propagated, the reactions
+ * only collect the damper systems whose damping ratio is affected. Afterwards
+ * every collected system is recomputed exactly once and the results are
+ * committed in a single follow-up change.
+ * <p>
+ * A deferred commit therefore consists of two transactions of the virtual
+ * model: the propagation of the view changes, which leaves the damping ratio
+ * of the affected systems at its old value, and the follow-up change with the
+ * recomputed damping ratios. Both are recorded and observable on their own,
+ * e.g. by propagation listeners or in the change history; only after the
+ * second one the model is consistent again. {@link #commit(VirtualModel,
+ * CommittableView)} returns after both.
+ * <p>
+ * The damper systems of a repository are independent of each other: the
+ * derived quantities of a system only depend on its own subtree and the
+ * uncertainties referencing it. The recomputation is therefore partitioned by
+ * damper system and can run on a {@link ForkJoinPool}. Only the computation is
+ * parallel; the results are written to the model on the committing thread in
+ * the order the systems became dirty, so the follow-up change does not depend
+ * on the number of threads. The propagation of the view changes, i.e. the
+ * transactional change and the reactions, is not partitioned and runs
+ * sequentially on the committing thread as for any other commit; see
+ * {@link PartitionedPropagation} for a single commit with the consistency work
+ * partitioned.
+ */
+public final class DeferredPropagation {
+
+    // Partitions of a flush: a dirty damper system and its repository, both
+    // resolved in the flush view
+    private record Partition(UncertaintyAnnotationRepository repo, DamperSystem system) {
+
+        Recomputation compute() {
+            return DampingRatioReactionsHelper.compute(repo, system);
+        }
+    }
+
+    private DeferredPropagation() {
+        // Utility class
+    }
+
+    /**
+     * Commits the changes of the view and recomputes the damping ratio of every
+     * affected damper system once, sequentially on the calling thread.
+     *
+     * @param vsum The virtual model the view belongs to.
+     * @param view The view with the changes to commit.
+     * @return The number of recomputed damper systems.
+     */
+    public static int commit(VirtualModel vsum, CommittableView view) {
+        return commit(vsum, view, null);
+    }
+
+    /**
+     * Commits the changes of the view and recomputes the damping ratio of every
+     * affected damper system once. If more than one system is affected, the
+     * systems are computed in parallel on the given pool.
+     *
+     * @param vsum The virtual model the view belongs to.
+     * @param view The view with the changes to commit.
+     * @param pool The pool the damper systems are computed on, or null to compute
+     *             them on the calling thread.
+     * @return The number of recomputed damper systems.
+     */
+    public static int commit(VirtualModel vsum, CommittableView view, ForkJoinPool pool) {
+        CommitEvent event = new CommitEvent();
+        event.begin();
+        int recomputedSystems = 0;
+        try {
+            recomputedSystems = propagate(vsum, view, pool);
+            return recomputedSystems;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commitId = CommitEvent.nextCommitId();
+                event.deferred = true;
+                event.recomputedSystems = recomputedSystems;
+                event.commit();
+            }
+        }
+    }
+
+    private static int propagate(VirtualModel vsum, CommittableView view, ForkJoinPool pool) {
+        Map<DamperSystem, UncertaintyAnnotationRepository> dirtySystems;
+        try (DerivedQuantityTracker.Scope scope = DerivedQuantityTracker.open()) {
+            view.commitChanges();
+            dirtySystems = new LinkedHashMap<>(scope.getDirtySystems());
+        }
+        if (dirtySystems.isEmpty()) {
+            return 0;
+        }
+
+        CommittableView flushView = getView(vsum).withChangeRecordingTrait();
+        try {
+            List<Partition> partitions = new ArrayList<>(dirtySystems.size());
+            for (Map.Entry<DamperSystem, UncertaintyAnnotationRepository> entry : dirtySystems.entrySet()) {
+                // Systems deleted later in the same propagation need no recomputation
+                if (entry.getKey().eResource() == null) {
+                    continue;
+                }
+                UncertaintyAnnotationRepository repo = entry.getValue() == null ? null
+                        : findCopy(flushView, entry.getValue());
+                partitions.add(new Partition(repo, findCopy(flushView, entry.getKey())));
+            }
+
+            List<Recomputation> results = computeAll(partitions, pool);
+            for (int i = 0; i < partitions.size(); i++) {
+                DampingRatioReactionsHelper.apply(partitions.get(i).repo(), results.get(i));
+            }
+            flushView.commitChanges();
+            return partitions.size();
+        } finally {
+            // An open view stays registered and is updated on every later change
+            closeView(flushView);
+        }
+    }
+
+    static void closeView(View view) {
+        try {
+            view.close();
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot close the view", e);
+        }
+    }
+
+    private static List<Recomputation> computeAll(List<Partition> partitions, ForkJoinPool pool) {
+        if (pool == null || partitions.size() < 2) {
+            return partitions.stream().map(Partition::compute).toList();
+        }
+        // Attaching the index modifies the repository, so it has to happen before
+        // the workers start reading it
+        partitions.stream().map(Partition::repo).filter(Objects::nonNull).distinct()
+                .forEach(UncertaintyIndex::of);
+        return pool.submit(() -> partitions.parallelStream().map(Partition::compute).toList()).join();
+    }
+
+    // Finds the copy of an element of the virtual model in the given view by its
+    // resource and relative fragment path
+    private static <T extends EObject> T findCopy(View view, T original) {
+        EObject originalRoot = EcoreUtil.getRootContainer(original);
+        URI resourceUri = originalRoot.eResource().getURI();
+        for (Object root : view.getRootObjects()) {
+            if (root instanceof EObject rootObject && rootObject.eResource() != null
+                    && resourceUri.equals(rootObject.eResource().getURI())) {
+                EObject copy = original == originalRoot ? rootObject
+                        : EcoreUtil.getEObject(rootObject,
+                                EcoreUtil.getRelativeURIFragmentPath(originalRoot, original));
+                @SuppressWarnings("unchecked")
+                T typedCopy = (T) copy;
+                return typedCopy;
+            }
+        }
+        throw new IllegalStateException("No copy of " + original + " in view");
+    }
+
+    static View getView(VirtualModel vsum) {
+        var selector = vsum.createSelector(ViewTypeFactory.createIdentityMappingViewType("default"));
+        selector.getSelectableElements().stream()
+                .filter(element -> element instanceof DamperRepository
+                        || element instanceof UncertaintyAnnotationRepository)
+                .forEach(it -> selector.setSelected(it, true));
+        return selector.createView();
+    }
+}
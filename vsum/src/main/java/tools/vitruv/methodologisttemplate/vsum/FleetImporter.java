@@ -0,0 +1,529 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.MafdsPackage;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyIndex;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Effect;
+import uncertainty.OnDeleteMode;
+import uncertainty.Pattern;
+import uncertainty.PatternType;
+import uncertainty.ReducabilityLevel;
+import uncertainty.StochasticityEffectType;
+import uncertainty.StructuralEffectTypeRepresentation;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+import uncertainty.UncertaintyKind;
+import uncertainty.UncertaintyLocation;
+import uncertainty.UncertaintyLocationType;
+import uncertainty.UncertaintyNature;
+import uncertainty.UncertaintyPerspective;
+import uncertainty.UncertaintyPerspectiveType;
+
+/**
+ * Imports damper fleets from CSV or JSON lines files into a virtual model.
+ * <p>
+ * Every record describes one damper system identified by its {@code id}. The
+ * other fields are named after the path of a parameter, e.g.
+ * {@code springDamper.stiffnessInNPerM}, and hold its nominal value. The fields
+ * {@code <parameter>.mu} and {@code <parameter>.sigma} annotate the parameter
+ * with a normal distribution; a missing mean defaults to the nominal value and
+ * vice versa. CSV files start with a header line naming the fields and must not
+ * quote their cells, JSON lines files hold one flat object per line.
+ * <p>
+ * The records are streamed and applied in batches. An import opens one view,
+ * applies every batch to it and commits it, then keeps recording the next
+ * batch on the same view, which is closed at the end of the import. The view
+ * selects the damper and the uncertainty repository, i.e. it copies the whole
+ * fleet once per import; the systems are looked up by id in a map built once
+ * as well, so the cost of an import grows linearly with the number of records.
+ * The view is not updated with the derived quantities the reactions write, as
+ * the importer only edits parameters and their uncertainties. At most one
+ * batch of records is held at a time. Systems whose id already exists are
+ * updated in place and only values and distributions that differ are written,
+ * which makes importing the same file again a no-op.
+ */
+public final class FleetImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * The supported file formats.
+     */
+    public enum Format {
+        CSV, JSON_LINES;
+
+        /**
+         * @param file The file to import.
+         * @return The format matching the extension of the file.
+         * @throws IllegalArgumentException if the extension is not supported.
+         */
+        public static Format of(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+                return JSON_LINES;
+            }
+            throw new IllegalArgumentException("Unsupported fleet file: " + file);
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     *
+     * @param records   The number of imported records.
+     * @param created   The number of created damper systems.
+     * @param updated   The number of existing damper systems that were changed.
+     * @param unchanged The number of existing damper systems that already matched
+     *                  their record.
+     * @param batches   The number of committed batches.
+     * @param elapsed   The time the import took.
+     */
+    public record ImportReport(long records, long created, long updated, long unchanged, int batches,
+            Duration elapsed) {
+
+        /**
+         * @return The throughput of the import in records per second.
+         */
+        public double recordsPerSecond() {
+            return records * 1e9 / Math.max(1, elapsed.toNanos());
+        }
+    }
+
+    private enum Outcome {
+        CREATED, UPDATED, UNCHANGED
+    }
+
+    private record Parameter(EReference component, EAttribute attribute) {
+    }
+
+    private record ParameterValue(Double value, Double mu, Double sigma) {
+
+        ParameterValue with(String field, double number) {
+            return switch (field) {
+            case "mu" -> new ParameterValue(value, number, sigma);
+            case "sigma" -> new ParameterValue(value, mu, number);
+            default -> new ParameterValue(number, mu, sigma);
+            };
+        }
+    }
+
+    private record DamperRecord(String id, Map<Parameter, ParameterValue> parameters) {
+    }
+
+    @FunctionalInterface
+    private interface RecordReader {
+        // Returns the fields of the next record, or null at the end of the input
+        Map<String, String> next() throws IOException;
+    }
+
+    private final VirtualModel vsum;
+    private final int batchSize;
+    private final Map<String, Parameter> parameters = new HashMap<>();
+
+    /**
+     * Creates an importer committing batches of {@link #DEFAULT_BATCH_SIZE}
+     * records.
+     *
+     * @param vsum The virtual model holding a damper repository and an
+     *             uncertainty annotation repository.
+     */
+    public FleetImporter(VirtualModel vsum) {
+        this(vsum, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param vsum      The virtual model holding a damper repository and an
+     *                  uncertainty annotation repository.
+     * @param batchSize The number of records committed together.
+     */
+    public FleetImporter(VirtualModel vsum, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.vsum = vsum;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports the given file in the format given by its extension.
+     *
+     * @param file The CSV or JSON lines file.
+     * @return The outcome of the import.
+     * @throws IOException if the file cannot be read.
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            return importRecords(reader, Format.of(file));
+        }
+    }
+
+    /**
+     * Imports the records read from the given reader.
+     *
+     * @param reader The reader, it is not closed.
+     * @param format The format of the records.
+     * @return The outcome of the import.
+     * @throws IOException              if the input cannot be read.
+     * @throws IllegalArgumentException if a record is malformed or names an
+     *                                  unknown parameter. The batches before the
+     *                                  malformed record are committed.
+     */
+    public ImportReport importRecords(BufferedReader reader, Format format) throws IOException {
+        long start = System.nanoTime();
+        RecordReader records = format == Format.CSV ? csvReader(reader) : jsonLinesReader(reader);
+        long[] outcomes = new long[Outcome.values().length];
+        int batches = 0;
+        List<DamperRecord> batch = new ArrayList<>(batchSize);
+        CommittableView view = DeferredPropagation.getView(vsum).withChangeRecordingTrait();
+        try {
+            DamperRepository damperRepo = view.getRootObjects(DamperRepository.class).iterator().next();
+            UncertaintyAnnotationRepository uncertaintyRepo = view
+                    .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+            Map<String, DamperSystem> systemsById = new HashMap<>();
+            for (DamperSystem damperSystem : damperRepo.getDamperSystems()) {
+                if (damperSystem.getId() != null) {
+                    systemsById.putIfAbsent(damperSystem.getId(), damperSystem);
+                }
+            }
+            for (Map<String, String> fields = records.next(); fields != null; fields = records.next()) {
+                batch.add(toDamperRecord(fields));
+                if (batch.size() == batchSize) {
+                    commit(view, batch, systemsById, damperRepo, uncertaintyRepo, outcomes);
+                    batches++;
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                commit(view, batch, systemsById, damperRepo, uncertaintyRepo, outcomes);
+                batches++;
+            }
+        } finally {
+            // Discards the edits of a batch that failed before its commit
+            DeferredPropagation.closeView(view);
+        }
+        long count = outcomes[0] + outcomes[1] + outcomes[2];
+        return new ImportReport(count, outcomes[Outcome.CREATED.ordinal()], outcomes[Outcome.UPDATED.ordinal()],
+                outcomes[Outcome.UNCHANGED.ordinal()], batches, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // A deferred commit would copy the whole fleet into its flush view once per
+    // batch, so the reactions recompute the derived quantities immediately
+    private void commit(CommittableView view, List<DamperRecord> batch, Map<String, DamperSystem> systemsById,
+            DamperRepository damperRepo, UncertaintyAnnotationRepository uncertaintyRepo, long[] outcomes) {
+        for (DamperRecord record : batch) {
+            outcomes[apply(record, systemsById, damperRepo, uncertaintyRepo).ordinal()]++;
+        }
+        view.commitChanges();
+    }
+
+    private Outcome apply(DamperRecord record, Map<String, DamperSystem> systemsById, DamperRepository damperRepo,
+            UncertaintyAnnotationRepository uncertaintyRepo) {
+        DamperSystem damperSystem = systemsById.get(record.id());
+        boolean created = damperSystem == null;
+        if (created) {
+            damperSystem = createDamperSystem(record.id());
+        }
+        boolean changed = false;
+        List<Uncertainty> newUncertainties = new ArrayList<>();
+        for (Map.Entry<Parameter, ParameterValue> entry : record.parameters().entrySet()) {
+            Parameter parameter = entry.getKey();
+            ParameterValue value = entry.getValue();
+            EObject component = (EObject) damperSystem.eGet(parameter.component());
+            Double nominal = value.value() != null ? value.value() : value.mu();
+            if (nominal != null) {
+                Object converted = parameter.attribute().getEAttributeType().getInstanceClass() == int.class
+                        ? (Object) (int) Math.round(nominal)
+                        : (Object) nominal;
+                if (!converted.equals(component.eGet(parameter.attribute()))) {
+                    component.eSet(parameter.attribute(), converted);
+                    changed = true;
+                }
+            }
+            if (value.sigma() != null && nominal != null) {
+                double mu = value.mu() != null ? value.mu() : nominal;
+                Uncertainty uncertainty = created ? null
+                        : UncertaintyIndex.of(uncertaintyRepo).find(component, parameter.attribute().getName());
+                if (uncertainty == null) {
+                    newUncertainties.add(createUncertainty(component, parameter.attribute().getName(), mu,
+                            value.sigma()));
+                    changed = true;
+                } else {
+                    changed |= updateDistribution(uncertainty, mu, value.sigma());
+                }
+            }
+        }
+        if (created) {
+            damperRepo.getDamperSystems().add(damperSystem);
+            systemsById.put(record.id(), damperSystem);
+        }
+        uncertaintyRepo.getUncertainties().addAll(newUncertainties);
+        return created ? Outcome.CREATED : changed ? Outcome.UPDATED : Outcome.UNCHANGED;
+    }
+
+    private static DamperSystem createDamperSystem(String id) {
+        DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+        damperSystem.setId(id);
+        for (EReference component : MafdsPackage.Literals.DAMPER_SYSTEM.getEAllContainments()) {
+            damperSystem.eSet(component, EcoreUtil.create(component.getEReferenceType()));
+        }
+        return damperSystem;
+    }
+
+    private static boolean updateDistribution(Uncertainty uncertainty, double mu, double sigma) {
+        if (uncertainty.getEffect() == null) {
+            uncertainty.setEffect(createEffect());
+        }
+        if (uncertainty.getEffect().getExpression() instanceof NormalDistribution distribution
+                && distribution.getMu() == mu && distribution.getSigma() == sigma) {
+            return false;
+        }
+        uncertainty.getEffect().setExpression(StoexArithmetic.normal(mu, sigma));
+        return true;
+    }
+
+    // Creates an uncertainty with the same metadata as the ones in the tests
+    private static Uncertainty createUncertainty(EObject component, String parameterLocation, double mu,
+            double sigma) {
+        Uncertainty uncertainty = UncertaintyFactory.eINSTANCE.createUncertainty();
+        uncertainty.setId(EcoreUtil.generateUUID());
+        uncertainty.setKind(UncertaintyKind.BEHAVIOR_UNCERTAINTY);
+        uncertainty.setReducability(ReducabilityLevel.UNKNOWN);
+        uncertainty.setNature(UncertaintyNature.ALEATORY);
+        uncertainty.setSetManually(true);
+        uncertainty.setOnDelete(OnDeleteMode.CASCADE);
+
+        UncertaintyLocation location = UncertaintyFactory.eINSTANCE.createUncertaintyLocation();
+        location.setLocation(UncertaintyLocationType.PARAMETER);
+        location.setParameterLocation(parameterLocation);
+        location.getReferencedComponents().add(component);
+        uncertainty.setUncertaintyLocation(location);
+
+        Effect effect = createEffect();
+        effect.setExpression(StoexArithmetic.normal(mu, sigma));
+        uncertainty.setEffect(effect);
+
+        UncertaintyPerspective perspective = UncertaintyFactory.eINSTANCE.createUncertaintyPerspective();
+        perspective.setPerspective(UncertaintyPerspectiveType.OBJECTIVE);
+        uncertainty.setPerspective(perspective);
+        Pattern pattern = UncertaintyFactory.eINSTANCE.createPattern();
+        pattern.setPatternType(PatternType.PERSISTENT);
+        uncertainty.setPattern(pattern);
+        return uncertainty;
+    }
+
+    private static Effect createEffect() {
+        Effect effect = UncertaintyFactory.eINSTANCE.createEffect();
+        effect.setRepresentation(StructuralEffectTypeRepresentation.CONTINUOUS);
+        effect.setStochasticity(StochasticityEffectType.PROBABILISTIC);
+        return effect;
+    }
+
+    private DamperRecord toDamperRecord(Map<String, String> fields) {
+        String id = fields.get("id");
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Record without id: " + fields);
+        }
+        Map<Parameter, ParameterValue> values = new LinkedHashMap<>();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            String name = field.getKey();
+            if (name.equals("id") || field.getValue() == null || field.getValue().isBlank()) {
+                continue;
+            }
+            String suffix = name.endsWith(".mu") ? "mu" : name.endsWith(".sigma") ? "sigma" : "";
+            String path = suffix.isEmpty() ? name : name.substring(0, name.length() - suffix.length() - 1);
+            double number;
+            try {
+                number = Double.parseDouble(field.getValue().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Record " + id + ": '" + field.getValue()
+                        + "' is not a number for " + name, e);
+            }
+            values.merge(resolve(path), new ParameterValue(null, null, null).with(suffix, number),
+                    (existing, added) -> existing.with(suffix, number));
+        }
+        return new DamperRecord(id.trim(), values);
+    }
+
+    // Resolves a parameter path like springDamper.stiffnessInNPerM
+    private Parameter resolve(String path) {
+        return parameters.computeIfAbsent(path, p -> {
+            int dot = p.indexOf('.');
+            EStructuralFeature component = dot < 0 ? null
+                    : MafdsPackage.Literals.DAMPER_SYSTEM.getEStructuralFeature(p.substring(0, dot));
+            if (component instanceof EReference reference && reference.isContainment()
+                    && reference.getEReferenceType().getEStructuralFeature(p.substring(dot + 1))
+                            instanceof EAttribute attribute) {
+                return new Parameter(reference, attribute);
+            }
+            throw new IllegalArgumentException("Unknown damper parameter: " + p);
+        });
+    }
+
+    private static RecordReader csvReader(BufferedReader reader) throws IOException {
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            return () -> null;
+        }
+        String[] header = headerLine.split(",", -1);
+        for (int i = 0; i < header.length; i++) {
+            header[i] = header[i].trim();
+        }
+        long[] lineNumber = { 1 };
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            String[] cells = line.split(",", -1);
+            if (cells.length != header.length) {
+                throw new IllegalArgumentException("Line " + lineNumber[0] + ": expected " + header.length
+                        + " cells but got " + cells.length);
+            }
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < cells.length; i++) {
+                fields.put(header[i], cells[i].trim());
+            }
+            return fields;
+        };
+    }
+
+    private static RecordReader jsonLinesReader(BufferedReader reader) {
+        long[] lineNumber = { 0 };
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            return line == null ? null : new JsonObjectParser(line, lineNumber[0]).parse();
+        };
+    }
+
+    /**
+     * Parser for the flat JSON objects of a JSON lines file: string keys with
+     * string, number or null values.
+     */
+    private static final class JsonObjectParser {
+        private final String line;
+        private final long lineNumber;
+        private int pos;
+
+        JsonObjectParser(String line, long lineNumber) {
+            this.line = line;
+            this.lineNumber = lineNumber;
+        }
+
+        Map<String, String> parse() {
+            Map<String, String> fields = new LinkedHashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+                return fields;
+            }
+            do {
+                String key = parseString();
+                expect(':');
+                String value = peek() == '"' ? parseString() : parseLiteral();
+                fields.put(key, "null".equals(value) ? null : value);
+            } while (consume(','));
+            expect('}');
+            return fields;
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+            while (pos < line.length() && line.charAt(pos) != '"') {
+                char c = line.charAt(pos++);
+                if (c == '\\' && pos < line.length()) {
+                    char escaped = line.charAt(pos++);
+                    switch (escaped) {
+                    case 'n' -> builder.append('\n');
+                    case 't' -> builder.append('\t');
+                    case 'u' -> {
+                        builder.append((char) Integer.parseInt(line.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> builder.append(escaped);
+                    }
+                } else {
+                    builder.append(c);
+                }
+            }
+            expect('"');
+            return builder.toString();
+        }
+
+        private String parseLiteral() {
+            int start = pos;
+            while (pos < line.length() && ",}".indexOf(line.charAt(pos)) < 0
+                    && !Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("value");
+            }
+            return line.substring(start, pos);
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return pos < line.length() ? line.charAt(pos) : '\0';
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Line " + lineNumber + ": expected " + expected + " at column "
+                    + (pos + 1));
+        }
+    }
+}
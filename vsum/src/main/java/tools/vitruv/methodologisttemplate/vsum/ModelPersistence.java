@@ -0,0 +1,171 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceImpl;
+
+/**
+ * Storage format of the {@code mafds} and {@code uncertainty} models.
+ * <p>
+ * By default the models are persisted as XMI. After
+ * {@link #register(Format) registering} {@link Format#BINARY}, resources with
+ * the extensions of the models are saved in the compact binary format of EMF,
+ * which is considerably smaller and faster to load and save, especially for the
+ * nested StoEx expression trees of annotated fleets. Loading detects the format
+ * of a file from its leading bytes, so XMI and binary files can be read in
+ * either mode and are migrated to the registered format on their next save.
+ * {@link #migrate(Path, Format)} converts a single file offline.
+ */
+public final class ModelPersistence {
+
+    /**
+     * The extensions of the model files persisted by the virtual model.
+     */
+    public static final String[] EXTENSIONS = { "mafds", "model" };
+
+    // The signature EMF binary resources start with
+    private static final byte[] BINARY_SIGNATURE = { (byte) 0x89, 'e', 'm', 'f', '\n', '\r', 0x1a, '\n' };
+
+    /**
+     * The formats models can be saved in.
+     */
+    public enum Format {
+        XMI, BINARY
+    }
+
+    private ModelPersistence() {
+        // Utility class
+    }
+
+    /**
+     * Registers a resource factory saving in the given format for the
+     * {@link #EXTENSIONS} of the models in the global resource factory registry.
+     * Virtual models built afterwards use it for their model resources.
+     *
+     * @param format The format resources are saved in.
+     */
+    public static void register(Format format) {
+        Resource.Factory factory = new DualFormatResourceFactory(format);
+        for (String extension : EXTENSIONS) {
+            Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().put(extension, factory);
+        }
+    }
+
+    /**
+     * Removes the factories registered by {@link #register(Format)}.
+     */
+    public static void unregister() {
+        for (String extension : EXTENSIONS) {
+            Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().remove(extension);
+        }
+    }
+
+    /**
+     * Detects the format of the given file from its leading bytes.
+     *
+     * @param file The model file.
+     * @return The format of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    public static Format detect(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return isBinary(input.readNBytes(BINARY_SIGNATURE.length)) ? Format.BINARY : Format.XMI;
+        }
+    }
+
+    /**
+     * Rewrites a model file in the given format. References to other model files
+     * are kept as they are and not resolved.
+     *
+     * @param file   The model file.
+     * @param target The format to rewrite the file in.
+     * @return The format the file was stored in before.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public static Format migrate(Path file, Format target) throws IOException {
+        Format source = detect(file);
+        if (source == target) {
+            return source;
+        }
+        ResourceSet resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("*",
+                new DualFormatResourceFactory(target));
+        Resource resource = resourceSet.createResource(URI.createFileURI(file.toAbsolutePath().toString()));
+        resource.load(null);
+        resource.save(null);
+        return source;
+    }
+
+    private static boolean isBinary(byte[] header) {
+        return Arrays.equals(header, BINARY_SIGNATURE);
+    }
+
+    /**
+     * Creates {@link DualFormatResource}s saving in a fixed format.
+     */
+    public static final class DualFormatResourceFactory implements Resource.Factory {
+        private final Format format;
+
+        public DualFormatResourceFactory(Format format) {
+            this.format = format;
+        }
+
+        @Override
+        public Resource createResource(URI uri) {
+            return new DualFormatResource(uri, format);
+        }
+    }
+
+    /**
+     * An XMI resource that loads both XMI and EMF binary content and saves in a
+     * fixed format.
+     */
+    public static final class DualFormatResource extends XMIResourceImpl {
+        private final Format format;
+
+        public DualFormatResource(URI uri, Format format) {
+            super(uri);
+            this.format = format;
+        }
+
+        /**
+         * @return The format this resource is saved in.
+         */
+        public Format getFormat() {
+            return format;
+        }
+
+        @Override
+        protected void doLoad(InputStream inputStream, Map<?, ?> options) throws IOException {
+            InputStream input = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+            input.mark(BINARY_SIGNATURE.length);
+            byte[] header = input.readNBytes(BINARY_SIGNATURE.length);
+            input.reset();
+            super.doLoad(input, withBinary(options, isBinary(header)));
+        }
+
+        @Override
+        protected void doSave(OutputStream outputStream, Map<?, ?> options) throws IOException {
+            super.doSave(outputStream, withBinary(options, format == Format.BINARY));
+        }
+
+        private static Map<Object, Object> withBinary(Map<?, ?> options, boolean binary) {
+            Map<Object, Object> result = options == null ? new HashMap<>() : new HashMap<>(options);
+            result.put(XMLResource.OPTION_BINARY, binary);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyProfiles;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.DualFormatResourceFactory;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.Format;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Partitioned storage of a damper fleet with one resource per damper system.
+ * <p>
+ * Every partition holds a damper repository with a single damper system and an
+ * uncertainty annotation repository with the uncertainties referencing it, so
+ * a partition is self-contained and can be loaded on its own. The
+ * {@value #INDEX_FILE} in the storage directory maps the id of every system to
+ * its partition file and is the only file read when the store is opened.
+ * <p>
+ * Partitions are loaded on demand by {@link #get(String)} and
+ * {@link #checkout(VirtualModel, Collection)} and kept in a least recently used
+ * cache of a bounded size. When the cache is full or the heap is nearly
+ * exhausted, the least recently used partitions are unloaded; their objects
+ * turn into proxies, so callers should hold on to ids rather than objects.
+ * <p>
+ * The virtual model only holds the working set of a session: systems are
+ * copied into it with {@link #checkout(VirtualModel, Collection)}, edited
+ * through views as usual, and written back and removed again with
+ * {@link #checkin(VirtualModel, Collection)}. The memory of a virtual model
+ * editing a single damper system therefore does not grow with the fleet.
+ */
+public final class PartitionedFleetStore {
+
+    public static final String INDEX_FILE = "fleet.index";
+    public static final int DEFAULT_MAX_LOADED_PARTITIONS = 64;
+
+    // Share of the maximum heap above which loaded partitions are unloaded
+    private static final double MEMORY_PRESSURE_THRESHOLD = 0.85;
+    private static final String PARTITION_EXTENSION = ".mafds";
+
+    private final Path directory;
+    private final int maxLoadedPartitions;
+    private final ResourceSet resourceSet = new ResourceSetImpl();
+    // Id to partition file name, in insertion order
+    private final Map<String, String> index;
+    private final LinkedHashMap<String, Resource> loaded = new LinkedHashMap<>(16, 0.75f, true);
+
+    private PartitionedFleetStore(Path directory, int maxLoadedPartitions, Format format,
+            Map<String, String> index) {
+        this.directory = directory;
+        this.maxLoadedPartitions = maxLoadedPartitions;
+        this.index = index;
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("*",
+                new DualFormatResourceFactory(format));
+    }
+
+    /**
+     * Opens the store in the given directory with at most
+     * {@link #DEFAULT_MAX_LOADED_PARTITIONS} loaded partitions, saving in the
+     * binary format.
+     *
+     * @param directory The storage directory, it is created if it does not exist.
+     * @return The store.
+     * @throws IOException if the directory or the index cannot be read.
+     */
+    public static PartitionedFleetStore open(Path directory) throws IOException {
+        return open(directory, DEFAULT_MAX_LOADED_PARTITIONS, Format.BINARY);
+    }
+
+    /**
+     * Opens the store in the given directory. Only the index is read.
+     *
+     * @param directory           The storage directory, it is created if it does
+     *                            not exist.
+     * @param maxLoadedPartitions The number of partitions kept loaded at most.
+     * @param format              The format partitions are saved in. Partitions
+     *                            in the other format are still read.
+     * @return The store.
+     * @throws IOException if the directory or the index cannot be read.
+     */
+    public static PartitionedFleetStore open(Path directory, int maxLoadedPartitions, Format format)
+            throws IOException {
+        if (maxLoadedPartitions <= 0) {
+            throw new IllegalArgumentException("Loaded partitions must be positive: " + maxLoadedPartitions);
+        }
+        Files.createDirectories(directory);
+        Map<String, String> index = new LinkedHashMap<>();
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (Files.exists(indexFile)) {
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                if (tab < 0) {
+                    throw new IOException("Malformed index entry in " + indexFile + ": " + line);
+                }
+                index.put(line.substring(0, tab), line.substring(tab + 1));
+            }
+        }
+        return new PartitionedFleetStore(directory, maxLoadedPartitions, format, index);
+    }
+
+    /**
+     * @return The ids of the stored damper systems in insertion order.
+     */
+    public Set<String> ids() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * @return The number of currently loaded partitions.
+     */
+    public int loadedPartitions() {
+        return loaded.size();
+    }
+
+    /**
+     * Returns the stored damper system with the given id, loading its partition
+     * if necessary. Changes to it are persisted by {@link #save(String)}.
+     *
+     * @param id The id of the damper system.
+     * @return The damper system.
+     * @throws IllegalArgumentException if no system with the id is stored.
+     */
+    public DamperSystem get(String id) {
+        return getDamperRepository(load(id)).getDamperSystems().get(0);
+    }
+
+    /**
+     * Returns the uncertainties stored with the damper system with the given id,
+     * loading its partition if necessary.
+     *
+     * @param id The id of the damper system.
+     * @return The uncertainties referencing the damper system.
+     * @throws IllegalArgumentException if no system with the id is stored.
+     */
+    public List<Uncertainty> getUncertainties(String id) {
+        return getUncertaintyRepository(load(id)).getUncertainties();
+    }
+
+    /**
+     * Saves the partition of the damper system with the given id if it is
+     * loaded.
+     *
+     * @param id The id of the damper system.
+     * @throws IOException if the partition cannot be written.
+     */
+    public void save(String id) throws IOException {
+        Resource resource = loaded.get(id);
+        if (resource != null) {
+            resource.save(null);
+        }
+    }
+
+    /**
+     * Stores copies of the damper system and of the uncertainties referencing its
+     * components, replacing a stored system with the same id.
+     *
+     * @param damperSystem  The damper system, it needs an id.
+     * @param uncertainties Uncertainties of which the ones referencing components
+     *                      of the damper system are stored.
+     * @throws IOException if the partition or the index cannot be written.
+     */
+    public void put(DamperSystem damperSystem, Collection<Uncertainty> uncertainties) throws IOException {
+        writePartition(damperSystem, uncertainties);
+        writeIndex();
+    }
+
+    /**
+     * Stores copies of all damper systems of a repository, e.g. to partition a
+     * fleet kept in a single resource.
+     *
+     * @param damperRepo      The damper systems to store, each needs an id.
+     * @param uncertaintyRepo The uncertainties of the damper systems.
+     * @throws IOException if a partition or the index cannot be written.
+     */
+    public void putAll(DamperRepository damperRepo, UncertaintyAnnotationRepository uncertaintyRepo)
+            throws IOException {
+        Map<DamperSystem, List<Uncertainty>> uncertaintiesBySystem = new HashMap<>();
+        for (Uncertainty uncertainty : uncertaintyRepo.getUncertainties()) {
+            DamperSystem damperSystem = findReferencedSystem(uncertainty);
+            if (damperSystem != null) {
+                uncertaintiesBySystem.computeIfAbsent(damperSystem, s -> new ArrayList<>()).add(uncertainty);
+            }
+        }
+        for (DamperSystem damperSystem : damperRepo.getDamperSystems()) {
+            writePartition(damperSystem, uncertaintiesBySystem.getOrDefault(damperSystem, List.of()));
+        }
+        writeIndex();
+    }
+
+    /**
+     * Removes the damper system with the given id and deletes its partition.
+     *
+     * @param id The id of the damper system.
+     * @return Whether a system with the id was stored.
+     * @throws IOException if the partition or the index cannot be written.
+     */
+    public boolean remove(String id) throws IOException {
+        String fileName = index.remove(id);
+        if (fileName == null) {
+            return false;
+        }
+        unload(id);
+        Files.deleteIfExists(directory.resolve(fileName));
+        writeIndex();
+        return true;
+    }
+
+    /**
+     * Copies the stored damper systems with the given ids and their uncertainties
+     * into the virtual model. Systems already in the virtual model are skipped.
+     *
+     * @param vsum The virtual model holding a damper repository and an
+     *             uncertainty annotation repository.
+     * @param ids  The ids of the damper systems.
+     * @return The number of copied damper systems.
+     * @throws IllegalArgumentException if a system with one of the ids is not
+     *                                  stored.
+     */
+    public int checkout(VirtualModel vsum, Collection<String> ids) {
+        CommittableView view = DeferredPropagation.getView(vsum).withChangeRecordingTrait();
+        try {
+            DamperRepository damperRepo = view.getRootObjects(DamperRepository.class).iterator().next();
+            UncertaintyAnnotationRepository uncertaintyRepo = view
+                    .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+            Map<String, DamperSystem> present = systemsById(damperRepo);
+            List<DamperSystem> damperSystems = new ArrayList<>();
+            List<Uncertainty> uncertainties = new ArrayList<>();
+            for (String id : ids) {
+                if (present.containsKey(id)) {
+                    continue;
+                }
+                Resource resource = load(id);
+                copy(getDamperRepository(resource).getDamperSystems().get(0),
+                        getUncertaintyRepository(resource).getUncertainties(), damperSystems, uncertainties);
+            }
+            if (damperSystems.isEmpty()) {
+                return 0;
+            }
+            clearDerivedQuantities(damperSystems, uncertainties);
+            damperRepo.getDamperSystems().addAll(damperSystems);
+            uncertaintyRepo.getUncertainties().addAll(uncertainties);
+            DeferredPropagation.commit(vsum, view);
+            return damperSystems.size();
+        } finally {
+            DeferredPropagation.closeView(view);
+        }
+    }
+
+    /**
+     * Stores the damper systems with the given ids and their uncertainties from
+     * the virtual model and removes them from it.
+     *
+     * @param vsum The virtual model the systems were checked out into.
+     * @param ids  The ids of the damper systems. Ids of systems not in the virtual
+     *             model are ignored.
+     * @return The number of stored damper systems.
+     * @throws IOException if a partition or the index cannot be written. Nothing
+     *                     is removed from the virtual model then.
+     */
+    public int checkin(VirtualModel vsum, Collection<String> ids) throws IOException {
+        CommittableView view = DeferredPropagation.getView(vsum).withChangeRecordingTrait();
+        try {
+            DamperRepository damperRepo = view.getRootObjects(DamperRepository.class).iterator().next();
+            UncertaintyAnnotationRepository uncertaintyRepo = view
+                    .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+            Map<String, DamperSystem> present = systemsById(damperRepo);
+            List<DamperSystem> damperSystems = new ArrayList<>();
+            for (String id : ids) {
+                DamperSystem damperSystem = present.get(id);
+                if (damperSystem != null) {
+                    damperSystems.add(damperSystem);
+                }
+            }
+            if (damperSystems.isEmpty()) {
+                return 0;
+            }
+            List<Uncertainty> uncertainties = new ArrayList<>();
+            for (Uncertainty uncertainty : uncertaintyRepo.getUncertainties()) {
+                if (damperSystems.contains(findReferencedSystem(uncertainty))) {
+                    uncertainties.add(uncertainty);
+                }
+            }
+            for (DamperSystem damperSystem : damperSystems) {
+                writePartition(damperSystem, uncertainties);
+            }
+            writeIndex();
+            uncertaintyRepo.getUncertainties().removeAll(uncertainties);
+            damperRepo.getDamperSystems().removeAll(damperSystems);
+            view.commitChanges();
+            return damperSystems.size();
+        } finally {
+            DeferredPropagation.closeView(view);
+        }
+    }
+
+    /**
+     * Unloads the partition of the damper system with the given id.
+     *
+     * @param id The id of the damper system.
+     */
+    public void unload(String id) {
+        Resource resource = loaded.remove(id);
+        if (resource != null) {
+            unload(resource);
+        }
+    }
+
+    /**
+     * Unloads all partitions.
+     */
+    public void unloadAll() {
+        loaded.values().forEach(PartitionedFleetStore::unload);
+        loaded.clear();
+    }
+
+    private Resource load(String id) {
+        Resource resource = loaded.get(id);
+        if (resource != null) {
+            return resource;
+        }
+        String fileName = index.get(id);
+        if (fileName == null) {
+            throw new IllegalArgumentException("No damper system with id " + id);
+        }
+        resource = resourceSet.getResource(partitionUri(fileName), true);
+        loaded.put(id, resource);
+        evict();
+        return resource;
+    }
+
+    // Unloads the least recently used partitions while the cache is too large or
+    // the heap is nearly full, keeping at least the most recent one
+    private void evict() {
+        Iterator<Resource> eldest = loaded.values().iterator();
+        int size = loaded.size();
+        boolean pressure = isUnderMemoryPressure();
+        while (size > 1 && (size > maxLoadedPartitions || pressure)) {
+            unload(eldest.next());
+            eldest.remove();
+            size--;
+        }
+    }
+
+    private static boolean isUnderMemoryPressure() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return heap.getMax() > 0 && heap.getUsed() > MEMORY_PRESSURE_THRESHOLD * heap.getMax();
+    }
+
+    private static void unload(Resource resource) {
+        resource.unload();
+        resource.getResourceSet().getResources().remove(resource);
+    }
+
+    private void writePartition(DamperSystem damperSystem, Collection<Uncertainty> uncertainties)
+            throws IOException {
+        String id = damperSystem.getId();
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Damper system without id: " + damperSystem);
+        }
+        List<DamperSystem> damperSystems = new ArrayList<>(1);
+        List<Uncertainty> copies = new ArrayList<>();
+        copy(damperSystem, uncertainties.stream().filter(u -> findReferencedSystem(u) == damperSystem).toList(),
+                damperSystems, copies);
+
+        DamperRepository damperRepo = MafdsFactory.eINSTANCE.createDamperRepository();
+        damperRepo.getDamperSystems().addAll(damperSystems);
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        uncertaintyRepo.getUncertainties().addAll(copies);
+
+        unload(id);
+        String fileName = index.computeIfAbsent(id, PartitionedFleetStore::partitionFileName);
+        Resource resource = resourceSet.createResource(partitionUri(fileName));
+        resource.getContents().add(damperRepo);
+        resource.getContents().add(uncertaintyRepo);
+        resource.save(null);
+        loaded.put(id, resource);
+        evict();
+    }
+
+    // Copies a damper system with its uncertainties, keeping the references of
+    // the uncertainties to the components of the system. Shared profiles live in
+    // the repository of the originals, so the copies get their own pattern and
+    // perspective instead.
+    private static void copy(DamperSystem damperSystem, Collection<Uncertainty> uncertainties,
+            List<DamperSystem> damperSystems, List<Uncertainty> copies) {
+        EcoreUtil.Copier copier = new EcoreUtil.Copier();
+        damperSystems.add((DamperSystem) copier.copy(damperSystem));
+        List<Uncertainty> uncertaintyCopies = new ArrayList<>(uncertainties.size());
+        for (Uncertainty uncertainty : uncertainties) {
+            uncertaintyCopies.add((Uncertainty) copier.copy(uncertainty));
+        }
+        copier.copyReferences();
+        uncertaintyCopies.forEach(UncertaintyProfiles::edit);
+        copies.addAll(uncertaintyCopies);
+    }
+
+    // The reactions build the total mass of an inserted system from the
+    // initialized mass parameters, on top of a stored total and its uncertainty,
+    // so both are rebuilt from scratch as for a new system
+    private static void clearDerivedQuantities(List<DamperSystem> damperSystems, List<Uncertainty> uncertainties) {
+        for (DamperSystem damperSystem : damperSystems) {
+            damperSystem.setTotalMassInKg(0);
+            damperSystem.setDampingRatio(0);
+        }
+        uncertainties.removeIf(uncertainty -> uncertainty.getUncertaintyLocation() != null
+                && "totalMassInKg".equals(uncertainty.getUncertaintyLocation().getParameterLocation())
+                && damperSystems.containsAll(uncertainty.getUncertaintyLocation().getReferencedComponents()));
+    }
+
+    private void writeIndex() throws IOException {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        Path temporary = directory.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : index.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(entry.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private URI partitionUri(String fileName) {
+        return URI.createFileURI(directory.resolve(fileName).toAbsolutePath().toString());
+    }
+
+    private static String partitionFileName(String id) {
+        return URLEncoder.encode(id, StandardCharsets.UTF_8) + PARTITION_EXTENSION;
+    }
+
+    private static DamperRepository getDamperRepository(Resource resource) {
+        return (DamperRepository) resource.getContents().get(0);
+    }
+
+    private static UncertaintyAnnotationRepository getUncertaintyRepository(Resource resource) {
+        return (UncertaintyAnnotationRepository) resource.getContents().get(1);
+    }
+
+    private static Map<String, DamperSystem> systemsById(DamperRepository damperRepo) {
+        Map<String, DamperSystem> systemsById = new HashMap<>();
+        for (DamperSystem damperSystem : damperRepo.getDamperSystems()) {
+            if (damperSystem.getId() != null) {
+                systemsById.putIfAbsent(damperSystem.getId(), damperSystem);
+            }
+        }
+        return systemsById;
+    }
+
+    // The damper system whose components the uncertainty references, or null
+    private static DamperSystem findReferencedSystem(Uncertainty uncertainty) {
+        if (uncertainty.getUncertaintyLocation() == null) {
+            return null;
+        }
+        for (EObject component : uncertainty.getUncertaintyLocation().getReferencedComponents()) {
+            for (EObject container = component; container != null; container = container.eContainer()) {
+                if (container instanceof DamperSystem damperSystem) {
+                    return damperSystem;
+                }
+            }
+        }
+        return null;
+    }
+}
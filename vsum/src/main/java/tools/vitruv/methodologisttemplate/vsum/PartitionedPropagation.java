@@ -0,0 +1,232 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsPackage;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DamperPartition;
+import tools.vitruv.methodologisttemplate.consistency.DerivedQuantityTracker;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyIndex;
+import tools.vitruv.methodologisttemplate.consistency.trace.CommitEvent;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Commits view changes with the consistency work partitioned by damper system.
+ * <p>
+ * The derived quantities of a damper system only depend on its own subtree and
+ * the uncertainties referencing it, so the edits of different systems can be
+ * propagated independently of each other. A view from
+ * {@link #getView(VirtualModel)} records which systems are edited, together
+ * with a copy of every system before its first edit. {@link #commit} forks each
+ * edited system into a {@link DamperPartition}, runs the work of the
+ * mafds2mafds reactions for all partitions in parallel on a
+ * {@link ForkJoinPool}, writes the results back into the view on the committing
+ * thread in the order the systems were first edited, and commits the edits
+ * together with their derived quantities as one change of the virtual model.
+ * While that change is propagated, the reactions leave the derived quantities
+ * of the partitioned systems alone, see
+ * {@link DerivedQuantityTracker#openPrecomputed}; all other reactions, e.g. for
+ * the correspondences of new uncertainties, run as for any other commit.
+ * <p>
+ * Only attribute edits of existing systems are partitioned. A system whose
+ * components or uncertainties are edited otherwise is propagated by the
+ * reactions within the same commit. An insertion or removal of systems, which
+ * shifts the fragments the systems of the view and the virtual model are
+ * matched by, falls back to a plain commit of the whole change.
+ */
+public final class PartitionedPropagation {
+
+    // Records the edited damper systems of a view and their state before the
+    // first edit
+    private static final class Tracker extends EContentAdapter {
+
+        private final Map<DamperSystem, DamperSystem> previous = new LinkedHashMap<>();
+        private final Map<DamperSystem, List<DamperPartition.Change>> changes = new LinkedHashMap<>();
+        private final Set<DamperSystem> unpartitioned = new HashSet<>();
+        private boolean structural;
+        private boolean suspended;
+
+        @Override
+        public void notifyChanged(Notification notification) {
+            super.notifyChanged(notification);
+            if (suspended || notification.isTouch()) {
+                return;
+            }
+            Object notifier = notification.getNotifier();
+            if (notifier instanceof DamperRepository
+                    || notification.getFeature() == MafdsPackage.Literals.DAMPER_SYSTEM__ID) {
+                structural = true;
+            } else if (notifier instanceof UncertaintyAnnotationRepository) {
+                unpartition(notification.getOldValue());
+                unpartition(notification.getNewValue());
+            } else if (notifier instanceof EObject object) {
+                DamperSystem system = ViewSessionManager.findDamperSystem(object);
+                if (system == null) {
+                    unpartition(object);
+                } else if (notification.getFeature() instanceof EAttribute attribute && !attribute.isMany()) {
+                    record(system, object, attribute, notification.getOldValue());
+                } else {
+                    unpartitioned.add(system);
+                }
+            }
+        }
+
+        private void record(DamperSystem system, EObject component, EAttribute attribute, Object oldValue) {
+            if (!previous.containsKey(system)) {
+                // The copy already contains the first edit
+                DamperSystem copy = EcoreUtil.copy(system);
+                EObject counterpart = component == system ? copy
+                        : EcoreUtil.getEObject(copy, EcoreUtil.getRelativeURIFragmentPath(system, component));
+                counterpart.eSet(attribute, oldValue);
+                previous.put(system, copy);
+            }
+            changes.computeIfAbsent(system, key -> new ArrayList<>())
+                    .add(new DamperPartition.Change(component, attribute.getName()));
+        }
+
+        // Systems referenced by an edited uncertainty are propagated by the reactions
+        private void unpartition(Object value) {
+            if (!(value instanceof EObject object)) {
+                return;
+            }
+            for (EObject current = object; current != null; current = current.eContainer()) {
+                if (current instanceof Uncertainty uncertainty) {
+                    if (uncertainty.getUncertaintyLocation() != null) {
+                        for (EObject component : uncertainty.getUncertaintyLocation().getReferencedComponents()) {
+                            DamperSystem system = ViewSessionManager.findDamperSystem(component);
+                            if (system != null) {
+                                unpartitioned.add(system);
+                            }
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void reset() {
+            previous.clear();
+            changes.clear();
+            unpartitioned.clear();
+            structural = false;
+            suspended = false;
+        }
+    }
+
+    private PartitionedPropagation() {
+        // Utility class
+    }
+
+    /**
+     * Creates a change recording view of the damper and uncertainty repositories
+     * of the virtual model that records the edited damper systems for
+     * {@link #commit}.
+     *
+     * @param vsum The virtual model.
+     * @return The view, to be closed by the caller.
+     */
+    public static CommittableView getView(VirtualModel vsum) {
+        CommittableView view = DeferredPropagation.getView(vsum).withChangeRecordingTrait();
+        Tracker tracker = new Tracker();
+        view.getRootObjects().forEach(root -> ((EObject) root).eAdapters().add(tracker));
+        return view;
+    }
+
+    /**
+     * Commits the changes of a view from {@link #getView(VirtualModel)} in one
+     * change of the virtual model. If more than one damper system is edited,
+     * their derived quantities are computed in parallel on the given pool before
+     * the change is propagated; otherwise the changes are committed as usual.
+     *
+     * @param view The view with the changes to commit.
+     * @param pool The pool the damper systems are computed on, or null to commit
+     *             without partitioning.
+     * @return The number of damper systems computed in parallel.
+     * @throws IllegalArgumentException if the view was not created by
+     *                                  {@link #getView(VirtualModel)}.
+     */
+    public static int commit(CommittableView view, ForkJoinPool pool) {
+        CommitEvent event = new CommitEvent();
+        event.begin();
+        int partitionedSystems = 0;
+        try {
+            partitionedSystems = propagate(view, pool);
+            return partitionedSystems;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commitId = CommitEvent.nextCommitId();
+                event.recomputedSystems = partitionedSystems;
+                event.commit();
+            }
+        }
+    }
+
+    private static int propagate(CommittableView view, ForkJoinPool pool) {
+        Tracker tracker = trackerOf(view);
+        try {
+            List<DamperSystem> systems = new ArrayList<>(tracker.changes.keySet());
+            systems.removeAll(tracker.unpartitioned);
+            if (pool == null || tracker.structural || systems.size() < 2) {
+                view.commitChanges();
+                return 0;
+            }
+
+            UncertaintyAnnotationRepository repo = view.getRootObjects(UncertaintyAnnotationRepository.class)
+                    .stream().findFirst().orElse(null);
+            if (repo != null) {
+                // Attaching the index modifies the repository, so it has to happen
+                // before the partitions are forked
+                UncertaintyIndex.of(repo);
+            }
+            List<DamperPartition> partitions = new ArrayList<>(systems.size());
+            for (DamperSystem system : systems) {
+                partitions.add(DamperPartition.fork(system, repo, tracker.previous.get(system),
+                        tracker.changes.get(system)));
+            }
+            pool.submit(() -> partitions.parallelStream().forEach(DamperPartition::compute)).join();
+
+            // The derived quantities are written by the partitions, not edited
+            tracker.suspended = true;
+            partitions.forEach(DamperPartition::apply);
+
+            Set<String> keys = new HashSet<>();
+            systems.forEach(system -> keys.add(ViewSessionManager.keyOf(system)));
+            try (DerivedQuantityTracker.Scope scope = DerivedQuantityTracker
+                    .openPrecomputed(system -> keys.contains(ViewSessionManager.keyOf(system)))) {
+                view.commitChanges();
+            }
+            return partitions.size();
+        } finally {
+            tracker.reset();
+        }
+    }
+
+    private static Tracker trackerOf(CommittableView view) {
+        for (Object root : view.getRootObjects()) {
+            for (Adapter adapter : ((EObject) root).eAdapters()) {
+                if (adapter instanceof Tracker tracker) {
+                    return tracker;
+                }
+            }
+        }
+        throw new IllegalArgumentException("The view was not created by PartitionedPropagation.getView");
+    }
+}
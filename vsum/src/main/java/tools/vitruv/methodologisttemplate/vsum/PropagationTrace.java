@@ -0,0 +1,91 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.methodologisttemplate.consistency.trace.ChromeTraceExporter;
+import tools.vitruv.methodologisttemplate.consistency.trace.CommitEvent;
+import tools.vitruv.methodologisttemplate.consistency.trace.HelperEvent;
+import tools.vitruv.methodologisttemplate.consistency.trace.ReactionEvent;
+import tools.vitruv.methodologisttemplate.consistency.trace.RoutineEvent;
+
+/**
+ * Records the propagation of commits with the flight recorder and exports the
+ * recording as a Chrome trace.
+ * <p>
+ * The reactions, routines and helpers emit their events on their own, see
+ * {@link tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics}.
+ * Commits emit a {@link CommitEvent} if they go through
+ * {@link #commit(CommittableView)} or {@link DeferredPropagation}. The events
+ * are recorded by any recording that enables them, e.g. one started with
+ * {@code -XX:StartFlightRecording:settings=profile} and a threshold of 0 for
+ * the {@code tools.vitruv.methodologisttemplate} events, or by
+ * {@link #startRecording()}.
+ */
+public final class PropagationTrace {
+
+    private PropagationTrace() {
+        // Utility class
+    }
+
+    /**
+     * Commits the changes of the view as a recorded commit.
+     *
+     * @param view The view with the changes to commit.
+     */
+    public static void commit(CommittableView view) {
+        CommitEvent event = new CommitEvent();
+        event.begin();
+        try {
+            view.commitChanges();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commitId = CommitEvent.nextCommitId();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Starts a recording of all commit, reaction, routine and helper events,
+     * however short.
+     *
+     * @return The started recording, see {@link #stopAndExport(Recording, Path)}.
+     */
+    public static Recording startRecording() {
+        Recording recording = new Recording();
+        recording.setName("Propagation trace");
+        List<Class<? extends Event>> eventClasses = List.of(CommitEvent.class, ReactionEvent.class,
+                RoutineEvent.class, HelperEvent.class);
+        for (Class<? extends Event> eventClass : eventClasses) {
+            recording.enable(eventClass).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+        return recording;
+    }
+
+    /**
+     * Stops the recording, writes it to the given file and exports it as a
+     * Chrome trace next to it, with the extension {@code .trace.json}.
+     *
+     * @param recording The recording started by {@link #startRecording()}.
+     * @param jfrFile   The file to write the recording to.
+     * @return The file of the Chrome trace.
+     * @throws IOException if a file cannot be written.
+     */
+    public static Path stopAndExport(Recording recording, Path jfrFile) throws IOException {
+        recording.stop();
+        recording.dump(jfrFile);
+        recording.close();
+        String fileName = jfrFile.getFileName().toString().replaceFirst("\\.jfr$", "");
+        Path traceFile = jfrFile.resolveSibling(fileName + ".trace.json");
+        ChromeTraceExporter.export(jfrFile, traceFile);
+        return traceFile;
+    }
+}
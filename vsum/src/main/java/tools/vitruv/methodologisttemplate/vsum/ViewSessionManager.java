@@ -0,0 +1,366 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Concurrent editing sessions of many clients on one virtual model.
+ * <p>
+ * Every client works on its own {@link Session} with its own change recording
+ * view, usually on a thread of {@link #submit(Function)}, so clients edit in
+ * parallel. A session records which damper systems its changes touch;
+ * changes to an uncertainty touch the systems of the components it references.
+ * Commits are serialized per lock stripe of the touched systems and checked
+ * optimistically: a commit fails with a {@link ConcurrentModificationException}
+ * if another session committed a change to one of its systems after its view
+ * was created. Commits to disjoint damper systems never conflict.
+ * <p>
+ * The change propagation of the virtual model records the changes of the
+ * reactions on its whole resource set and is not thread-safe, so the
+ * propagation itself and the creation and closing of views still take a model
+ * lock. The stripes keep commits to the same systems in order and reject
+ * conflicting commits before they wait for that lock.
+ * <p>
+ * Clients spend most of their time waiting for these locks, so every client
+ * gets a thread of its own from a cached pool of daemon threads; idle threads
+ * are reused by later clients.
+ */
+public final class ViewSessionManager implements AutoCloseable {
+
+    public static final int DEFAULT_STRIPES = 64;
+
+    // Key of changes that belong to no damper system, e.g. to the repositories
+    private static final String REPOSITORY_KEY = "";
+
+    private final InternalVirtualModel vsum;
+    private final ReentrantLock[] stripes;
+    // Fair, so a commit does not starve behind view creations of other clients
+    private final ReentrantLock modelLock = new ReentrantLock(true);
+    private final ExecutorService clients = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "view-session-client");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Key of a damper system to the sequence number of the last commit touching it
+    private final Map<String, Long> lastCommits = new ConcurrentHashMap<>();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    // Guarded by the model lock
+    private long sequence;
+
+    /**
+     * Creates a session manager with {@value #DEFAULT_STRIPES} lock stripes.
+     *
+     * @param vsum The virtual model the sessions edit.
+     */
+    public ViewSessionManager(InternalVirtualModel vsum) {
+        this(vsum, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param vsum    The virtual model the sessions edit.
+     * @param stripes The number of lock stripes the damper systems are
+     *                distributed over.
+     */
+    public ViewSessionManager(InternalVirtualModel vsum, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("At least one stripe is required: " + stripes);
+        }
+        this.vsum = vsum;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Opens a session on the calling thread.
+     *
+     * @return The new session, to be closed by the caller.
+     */
+    public Session open() {
+        return new Session();
+    }
+
+    /**
+     * Runs a client on its own thread with its own session, which is closed
+     * when the client returns.
+     *
+     * @param <T>    The result type of the client.
+     * @param client The client, which edits and commits the session.
+     * @return The result of the client.
+     */
+    public <T> Future<T> submit(Function<Session, T> client) {
+        return clients.submit(() -> {
+            try (Session session = open()) {
+                return client.apply(session);
+            }
+        });
+    }
+
+    /**
+     * @return The number of successful commits of all sessions.
+     */
+    public long getCommitCount() {
+        return commits.sum();
+    }
+
+    /**
+     * @return The number of commits rejected because of a conflict.
+     */
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    /**
+     * Waits for all submitted clients to finish. If the calling thread is
+     * interrupted while waiting, the clients are interrupted as well.
+     */
+    @Override
+    public void close() {
+        clients.shutdown();
+        try {
+            clients.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            clients.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int stripeOf(String key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    // The id of the system if it has one, its fragment in the resource otherwise,
+    // which is the same in every view as long as no system is inserted before it
+    static String keyOf(DamperSystem system) {
+        if (system.getId() != null) {
+            return system.getId();
+        }
+        // A removed system without an id cannot be told apart from the others
+        return system.eContainer() == null ? REPOSITORY_KEY : EcoreUtil.getURI(system).fragment();
+    }
+
+    static DamperSystem findDamperSystem(EObject object) {
+        for (EObject current = object; current != null; current = current.eContainer()) {
+            if (current instanceof DamperSystem system) {
+                return system;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The editing session of a single client. A session is used by one thread
+     * at a time.
+     */
+    public final class Session implements AutoCloseable {
+
+        private final Set<String> touched = new HashSet<>();
+        private final EContentAdapter recorder = new EContentAdapter() {
+
+            @Override
+            public void notifyChanged(Notification notification) {
+                super.notifyChanged(notification);
+                if (notification.isTouch()) {
+                    return;
+                }
+                boolean attributed = touch(notification.getOldValue()) | touch(notification.getNewValue());
+                // Insertions into and removals from a repository belong to the
+                // inserted or removed element
+                if (!(notification.getNotifier() instanceof DamperRepository
+                        || notification.getNotifier() instanceof UncertaintyAnnotationRepository)) {
+                    attributed |= touch(notification.getNotifier());
+                }
+                if (!attributed) {
+                    touched.add(REPOSITORY_KEY);
+                }
+            }
+        };
+        private CommittableView view;
+        private long baseSequence;
+
+        private Session() {
+            refresh();
+        }
+
+        /**
+         * Returns the view of the session. The view is replaced after every
+         * commit, so elements should be retrieved from it again afterwards.
+         *
+         * @return The current view of the session.
+         */
+        public CommittableView getView() {
+            return view;
+        }
+
+        /**
+         * @param key The id of the damper system, or its fragment if it has no
+         *            id.
+         * @return The damper system in the view of the session.
+         * @throws IllegalArgumentException if there is no such system.
+         */
+        public DamperSystem getDamperSystem(String key) {
+            for (DamperRepository repo : view.getRootObjects(DamperRepository.class)) {
+                for (DamperSystem system : repo.getDamperSystems()) {
+                    if (key.equals(keyOf(system))) {
+                        return system;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("No damper system " + key);
+        }
+
+        /**
+         * Commits the changes of the session and replaces its view by a current
+         * one.
+         *
+         * @throws ConcurrentModificationException if another session committed a
+         *                                         change to a damper system this
+         *                                         session changed since its view
+         *                                         was created. The changes of the
+         *                                         session are discarded.
+         */
+        public void commit() {
+            // Stripes are locked in ascending order, so commits cannot deadlock
+            Set<Integer> stripeIndices = new TreeSet<>();
+            for (String key : touched) {
+                stripeIndices.add(stripeOf(key));
+            }
+            int locked = 0;
+            try {
+                for (int index : stripeIndices) {
+                    stripes[index].lock();
+                    locked++;
+                }
+                checkConflicts();
+                modelLock.lock();
+                try {
+                    view.commitChanges();
+                    sequence++;
+                    for (String key : touched) {
+                        lastCommits.put(key, sequence);
+                    }
+                } finally {
+                    modelLock.unlock();
+                }
+                commits.increment();
+            } finally {
+                for (int index : stripeIndices) {
+                    if (locked-- > 0) {
+                        stripes[index].unlock();
+                    }
+                }
+                refresh();
+            }
+        }
+
+        /**
+         * Discards the changes of the session.
+         */
+        @Override
+        public void close() {
+            if (view != null) {
+                discard();
+                view = null;
+            }
+        }
+
+        private void checkConflicts() {
+            for (String key : touched) {
+                if (lastCommits.getOrDefault(key, 0L) > baseSequence) {
+                    conflicts.increment();
+                    throw new ConcurrentModificationException(
+                            "Damper system " + (key.isEmpty() ? "repository" : key) + " was changed concurrently");
+                }
+            }
+        }
+
+        private void refresh() {
+            if (view != null) {
+                discard();
+            }
+            modelLock.lock();
+            try {
+                view = DeferredPropagation.getView(vsum).withChangeRecordingTrait();
+                // No commit can happen while the lock is held, so the view
+                // contains exactly the commits up to this sequence number
+                baseSequence = sequence;
+            } finally {
+                modelLock.unlock();
+            }
+            touched.clear();
+            view.getRootObjects().forEach(root -> ((EObject) root).eAdapters().add(recorder));
+        }
+
+        private void discard() {
+            view.getRootObjects().forEach(root -> ((EObject) root).eAdapters().remove(recorder));
+            // Closing unregisters the view from the virtual model
+            modelLock.lock();
+            try {
+                view.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot close the view of the session", e);
+            } finally {
+                modelLock.unlock();
+            }
+        }
+
+        // Returns whether the value could be attributed to damper systems
+        private boolean touch(Object value) {
+            if (!(value instanceof EObject object)) {
+                return false;
+            }
+            DamperSystem system = findDamperSystem(object);
+            if (system != null) {
+                touched.add(keyOf(system));
+                return true;
+            }
+            Uncertainty uncertainty = findUncertainty(object);
+            if (uncertainty == null || uncertainty.getUncertaintyLocation() == null) {
+                return false;
+            }
+            boolean attributed = false;
+            for (EObject component : uncertainty.getUncertaintyLocation().getReferencedComponents()) {
+                DamperSystem referenced = findDamperSystem(component);
+                if (referenced != null) {
+                    touched.add(keyOf(referenced));
+                    attributed = true;
+                }
+            }
+            return attributed;
+        }
+
+        private Uncertainty findUncertainty(EObject object) {
+            for (EObject current = object; current != null; current = current.eContainer()) {
+                if (current instanceof Uncertainty uncertainty) {
+                    return uncertainty;
+                }
+            }
+            return null;
+        }
+    }
+}
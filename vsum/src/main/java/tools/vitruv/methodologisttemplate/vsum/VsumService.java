@@ -0,0 +1,347 @@
+package tools.vitruv.methodologisttemplate.vsum;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mir.reactions.mafds2mafds.Mafds2mafdsChangePropagationSpecification;
+import mir.reactions.uncertainty2uncertainty.Uncertainty2uncertaintyChangePropagationSpecification;
+import tools.vitruv.change.propagation.ChangePropagationMode;
+import tools.vitruv.change.testutils.TestUserInteraction;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModelBuilder;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.StoexMomentCache;
+import tools.vitruv.methodologisttemplate.consistency.StoexMomentCache.StoexStatistics;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyIndex;
+import tools.vitruv.methodologisttemplate.vsum.FleetImporter.Format;
+import tools.vitruv.methodologisttemplate.vsum.FleetImporter.ImportReport;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+/**
+ * Keeps a virtual model resident and serves edits and queries on a loopback
+ * HTTP endpoint, so tools pay the startup of the JVM and the virtual model
+ * once instead of per call.
+ * <ul>
+ * <li>{@code POST /edits} applies a batch of damper records in the format of
+ * the {@link FleetImporter}, JSON lines by default and CSV for the content
+ * type {@code text/csv}. A record sets the parameters it names, e.g.
+ * {@code {"id":"D-1","springDamper.stiffnessInNPerM":28000}}, and annotates a
+ * parameter with a normal distribution through its {@code .mu} and
+ * {@code .sigma} fields. Records with an unknown id create a damper system.
+ * The response is the import report as a JSON object.</li>
+ * <li>{@code GET /systems} streams one JSON line per damper system with its
+ * {@code totalMassInKg} and {@code dampingRatio}, each with the mean, standard
+ * deviation and 5% and 95% quantiles of its uncertainty if it is annotated.
+ * Repeated {@code id} parameters restrict the response to the given
+ * systems.</li>
+ * </ul>
+ * Malformed requests are answered with status 400 and a JSON object holding
+ * the error. Requests are handled on a cached pool of daemon threads but
+ * access the virtual model one at a time. Queries read a view that is kept until the next edit,
+ * so a query after a query does not copy the model again.
+ */
+public final class VsumService implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8471;
+
+    private static final String JSON = "application/json";
+    private static final String JSON_LINES = "application/x-ndjson";
+
+    private final InternalVirtualModel vsum;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "vsum-service-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReentrantLock modelLock = new ReentrantLock();
+    // Guarded by the model lock, null after an edit
+    private View queryView;
+
+    private VsumService(InternalVirtualModel vsum, int port) throws IOException {
+        this.vsum = vsum;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/edits", exchange -> handle(exchange, "POST", this::edit));
+        server.createContext("/systems", exchange -> handle(exchange, "GET", this::query));
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts serving a virtual model.
+     *
+     * @param vsum The virtual model holding a damper repository and an
+     *             uncertainty annotation repository.
+     * @param port The port on the loopback address, 0 for any free port.
+     * @return The running service.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static VsumService start(InternalVirtualModel vsum, int port) throws IOException {
+        VsumService service = new VsumService(vsum, port);
+        service.server.start();
+        return service;
+    }
+
+    /**
+     * @return The base URI of the endpoint.
+     */
+    public java.net.URI getUri() {
+        InetSocketAddress address = server.getAddress();
+        return java.net.URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+
+    /**
+     * Stops accepting requests and waits for the running ones to finish. If the
+     * calling thread is interrupted while waiting, the running requests are
+     * interrupted as well.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the service until the JVM is stopped.
+     *
+     * @param args The storage folder of the virtual model and optionally the
+     *             port, {@value #DEFAULT_PORT} by default.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: VsumService <storage folder> [port]");
+            System.exit(2);
+        }
+        InternalVirtualModel vsum = createVirtualModel(Path.of(args[0]));
+        VsumService service = start(vsum, args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            service.close();
+            vsum.dispose();
+        }));
+        System.out.println("Serving " + args[0] + " at " + service.getUri());
+    }
+
+    /**
+     * Creates or loads the virtual model in the given storage folder with the
+     * reactions of this project, and registers the repositories if it is new.
+     *
+     * @param storageFolder The storage folder.
+     * @return The initialized virtual model.
+     */
+    public static InternalVirtualModel createVirtualModel(Path storageFolder) {
+        InternalVirtualModel vsum = new VirtualModelBuilder()
+                .withStorageFolder(storageFolder)
+                .withUserInteractorForResultProvider(new TestUserInteraction.ResultProvider(new TestUserInteraction()))
+                .withChangePropagationSpecification(new Uncertainty2uncertaintyChangePropagationSpecification())
+                .withChangePropagationSpecification(new Mafds2mafdsChangePropagationSpecification())
+                .buildAndInitialize();
+        vsum.setChangePropagationMode(ChangePropagationMode.TRANSITIVE_CYCLIC);
+        CommittableView view = DeferredPropagation.getView(vsum).withChangeRecordingTrait();
+        try {
+            if (view.getRootObjects(UncertaintyAnnotationRepository.class).isEmpty()) {
+                // The damper repository is created by the reactions
+                String file = storageFolder.resolve("uncertainty.model").toAbsolutePath().toString();
+                view.registerRoot(UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository(),
+                        URI.createFileURI(file));
+                view.commitChanges();
+            }
+        } finally {
+            DeferredPropagation.closeView(view);
+        }
+        return vsum;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                sendError(exchange, 405, "Method " + exchange.getRequestMethod() + " not allowed");
+                return;
+            }
+            modelLock.lock();
+            try {
+                handler.handle(exchange);
+            } finally {
+                modelLock.unlock();
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, String.valueOf(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void edit(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        Format format = contentType != null && contentType.startsWith("text/csv") ? Format.CSV : Format.JSON_LINES;
+        ImportReport report;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            // Batches committed before a malformed record are kept, so the view
+            // is outdated either way
+            closeQueryView();
+            report = new FleetImporter(vsum).importRecords(reader, format);
+        }
+        byte[] body = ("{\"records\":" + report.records() + ",\"created\":" + report.created() + ",\"updated\":"
+                + report.updated() + ",\"unchanged\":" + report.unchanged() + ",\"batches\":" + report.batches()
+                + ",\"elapsedMillis\":" + report.elapsed().toMillis() + "}\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void query(HttpExchange exchange) throws IOException {
+        Set<String> ids = parseIds(exchange.getRequestURI().getRawQuery());
+        if (queryView == null) {
+            queryView = DeferredPropagation.getView(vsum);
+        }
+        UncertaintyAnnotationRepository repo = queryView.getRootObjects(UncertaintyAnnotationRepository.class)
+                .stream().findFirst().orElse(null);
+        UncertaintyIndex index = repo == null ? null : UncertaintyIndex.of(repo);
+        List<DamperSystem> systems = new ArrayList<>();
+        for (DamperRepository damperRepo : queryView.getRootObjects(DamperRepository.class)) {
+            for (DamperSystem system : damperRepo.getDamperSystems()) {
+                if (ids.isEmpty() || ids.contains(keyOf(system))) {
+                    systems.add(system);
+                }
+            }
+        }
+        if (!ids.isEmpty() && systems.size() < ids.size()) {
+            systems.forEach(system -> ids.remove(keyOf(system)));
+            throw new IllegalArgumentException("Unknown damper systems: " + ids);
+        }
+
+        // Chunked, every line is flushed as soon as it is written
+        exchange.getResponseHeaders().set("Content-Type", JSON_LINES);
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer writer = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            for (DamperSystem system : systems) {
+                StringBuilder line = new StringBuilder("{\"id\":").append(quote(keyOf(system)));
+                appendQuantity(line, "totalMassInKg", system.getTotalMassInKg(),
+                        index == null ? null : index.find(system, "totalMassInKg"));
+                appendQuantity(line, "dampingRatio", system.getDampingRatio(),
+                        index == null ? null : index.find(system, "dampingRatio"));
+                writer.write(line.append("}\n").toString());
+                writer.flush();
+            }
+        }
+    }
+
+    private void closeQueryView() {
+        if (queryView != null) {
+            try {
+                queryView.close();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot close the query view", e);
+            }
+            queryView = null;
+        }
+    }
+
+    private static Set<String> parseIds(String query) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (query == null) {
+            return ids;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            if (!name.equals("id") || equals < 0) {
+                throw new IllegalArgumentException("Unknown query parameter: " + parameter);
+            }
+            ids.add(URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return ids;
+    }
+
+    // The id of the system if it has one, its fragment in the resource otherwise
+    private static String keyOf(DamperSystem system) {
+        return system.getId() != null ? system.getId() : EcoreUtil.getURI(system).fragment();
+    }
+
+    private static void appendQuantity(StringBuilder line, String name, double value, Uncertainty uncertainty) {
+        line.append(",\"").append(name).append("\":{\"value\":").append(Double.isFinite(value) ? value : "null");
+        if (uncertainty != null && uncertainty.getEffect() != null && uncertainty.getEffect().getExpression() != null) {
+            StoexStatistics statistics = StoexMomentCache.getDefault().get(uncertainty.getEffect().getExpression());
+            appendNumber(line, "mean", statistics.mean());
+            appendNumber(line, "stdDev", Math.sqrt(statistics.variance()));
+            appendNumber(line, "p05", statistics.p05());
+            appendNumber(line, "p95", statistics.p95());
+        }
+        line.append('}');
+    }
+
+    // JSON has no NaN, statistics that are not known are left out
+    private static void appendNumber(StringBuilder line, String name, double value) {
+        if (Double.isFinite(value)) {
+            line.append(",\"").append(name).append("\":").append(value);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = ("{\"error\":" + quote(String.valueOf(message)) + "}\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
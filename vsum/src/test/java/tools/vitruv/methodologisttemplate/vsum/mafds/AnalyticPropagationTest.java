@@ -0,0 +1,147 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.PropagationMode;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.methodologisttemplate.consistency.analytic.DeltaMethod;
+import tools.vitruv.methodologisttemplate.consistency.analytic.Moments;
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.MonteCarloEngine;
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.SampleStatistics;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class AnalyticPropagationTest {
+
+    private static final StoexFormula DAMPING_RATIO = StoexFormula.compile("c / (2 * (k * m)^0.5)", "c", "k", "m");
+
+    @AfterEach
+    void resetSettings() {
+        PropagationSettings.reset();
+    }
+
+    @Test
+    @DisplayName("Moments of sums are exact")
+    void sumTest() {
+        Moments sum = DeltaMethod.propagate(StoexFormula.compile("a + b", "a", "b"),
+                StoexArithmetic.normal(50, 0.5), StoexArithmetic.normal(0.363, 0.015));
+        assertEquals(50.363, sum.mean(), 1e-9);
+        assertEquals(0.25 + 0.015 * 0.015, sum.variance(), 1e-9);
+
+        Moments rods = Moments.of(StoexArithmetic.normal(0.363, 0.015)).times(21);
+        assertEquals(21 * 0.363, rods.mean(), 1e-12);
+        assertEquals(21 * 0.015 * 0.015, rods.variance(), 1e-12);
+    }
+
+    @Test
+    @DisplayName("The delta method matches Monte Carlo for the damping ratio")
+    void dampingRatioAccuracyTest() {
+        Object[] inputs = { StoexArithmetic.normal(140, 7), StoexArithmetic.normal(27000, 1200),
+                StoexArithmetic.normal(50.7146, 0.5829) };
+        Moments analytic = DeltaMethod.propagate(DAMPING_RATIO, inputs);
+        SampleStatistics sampled = new MonteCarloEngine(400_000, 42L).propagate(DAMPING_RATIO, inputs);
+
+        // The standard error of the sampled mean is about 5e-6
+        assertEquals(sampled.getMean(), analytic.mean(), 2e-5);
+        assertEquals(sampled.getStandardDeviation(), analytic.standardDeviation(),
+                0.01 * sampled.getStandardDeviation());
+        // The ratio is convex in k and m, so the second-order term raises the mean
+        // above the value at the means
+        assertTrue(analytic.mean() > DAMPING_RATIO.evaluateNumeric(140, 27000, 50.7146));
+    }
+
+    @Test
+    @DisplayName("Model Damper System and check Damping Ratio and Total Mass propagated in analytic mode")
+    void analyticModeTest(@TempDir Path tempDir) {
+        PropagationSettings.setMode(PropagationMode.ANALYTIC);
+
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        createDamperSystemWithUncertaintyAndStoex(view);
+        FleetGenerator.populate(view, 1, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL, 3L);
+        view.commitChanges();
+
+        View afterAddView = getView(vsum);
+        List<DamperSystem> damperSystems = afterAddView.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems();
+        UncertaintyAnnotationRepository uncertaintyRepo = afterAddView
+                .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+
+        DamperSystem annotated = damperSystems.get(0);
+        NormalDistribution dampingRatio = assertInstanceOf(NormalDistribution.class,
+                findExpression(uncertaintyRepo, annotated, "dampingRatio"));
+        assertEquals(0.0598204473, annotated.getDampingRatio(), 0.001);
+        assertEquals(annotated.getDampingRatio(), dampingRatio.getMu(), 1e-12);
+
+        // The generated system has annotated masses, its total mass is their sum
+        DamperSystem generated = damperSystems.get(1);
+        NormalDistribution totalMass = assertInstanceOf(NormalDistribution.class,
+                findExpression(uncertaintyRepo, generated, "totalMassInKg"));
+        assertEquals(generated.getTotalMassInKg(), totalMass.getMu(), 1e-9);
+        assertInstanceOf(NormalDistribution.class, findExpression(uncertaintyRepo, generated, "dampingRatio"));
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private Object findExpression(UncertaintyAnnotationRepository uncertaintyRepo, DamperSystem damperSystem,
+            String parameterLocation) {
+        return uncertaintyRepo.getUncertainties().stream()
+                .filter(u -> parameterLocation.equals(u.getUncertaintyLocation().getParameterLocation())
+                        && u.getUncertaintyLocation().getReferencedComponents().contains(damperSystem))
+                .map(Uncertainty::getEffect)
+                .findFirst()
+                .orElseThrow()
+                .getExpression();
+    }
+
+    private void createDamperSystemWithUncertaintyAndStoex(CommittableView view) {
+        DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+
+        SpringDamper springDamper = MafdsFactory.eINSTANCE.createSpringDamper();
+        springDamper.setStiffnessInNPerM(27000);
+        springDamper.setDampingConstantInNsPerM(140);
+
+        damperSystem.setSpringDamper(springDamper);
+        damperSystem.setTotalMassInKg(50.7146);
+
+        view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().add(damperSystem);
+
+        view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next()
+                .getUncertainties()
+                .addAll(List.of(
+                        UncertaintyTestFactory.createUncertainty(springDamper, "stiffnessInNPerM",
+                                StoexArithmetic.normal(27000, 1200)),
+                        UncertaintyTestFactory.createUncertainty(springDamper, "dampingConstantInNsPerM",
+                                StoexArithmetic.normal(140, 7)),
+                        UncertaintyTestFactory.createUncertainty(damperSystem, "totalMassInKg",
+                                StoexArithmetic.normal(50.7146, 0.5829))));
+    }
+}
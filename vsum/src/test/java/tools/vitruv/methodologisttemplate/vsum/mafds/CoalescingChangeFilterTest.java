@@ -0,0 +1,127 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import mafds.UpperTruss;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DerivedQuantityTracker;
+import tools.vitruv.methodologisttemplate.viewtype.ChangeFilterStatistics;
+import tools.vitruv.methodologisttemplate.viewtype.ChangeTransformingViewType;
+import tools.vitruv.methodologisttemplate.viewtype.CoalescingChangeFilter;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class CoalescingChangeFilterTest {
+
+    private static final int STEPS = 20;
+
+    @Test
+    @DisplayName("Coalesced editing session propagates once and reaches the same state")
+    void editingSessionTest(@TempDir Path plainDir, @TempDir Path coalescingDir) {
+        VirtualModel plainVsum = createVirtualModel(plainDir);
+        VirtualModel coalescingVsum = createVirtualModel(coalescingDir);
+        ChangeTransformingViewType viewType = ChangeTransformingViewType.create("coalescing");
+        CoalescingChangeFilter filter = new CoalescingChangeFilter();
+        viewType.registerFilter(filter);
+
+        long before = DerivedQuantityTracker.getRecomputationCount();
+        CommittableView plainView = getView(plainVsum);
+        recordEditingSession(plainView);
+        plainView.commitChanges();
+        long plainRecomputations = DerivedQuantityTracker.getRecomputationCount() - before;
+
+        before = DerivedQuantityTracker.getRecomputationCount();
+        CommittableView coalescingView = getView(coalescingVsum, viewType);
+        recordEditingSession(coalescingView);
+        coalescingView.commitChanges();
+        long coalescedRecomputations = DerivedQuantityTracker.getRecomputationCount() - before;
+
+        // One recomputation for the net stiffness change instead of one per step of
+        // the stiffness and of the total mass
+        assertTrue(plainRecomputations >= 2 * STEPS, "Expected one recomputation per step but got "
+                + plainRecomputations);
+        assertEquals(1, coalescedRecomputations);
+        ChangeFilterStatistics statistics = viewType.getFilterStatistics(filter);
+        assertTrue(statistics.droppedChanges() >= 2 * STEPS,
+                "Expected the intermediate steps to be dropped but got " + statistics);
+
+        DamperSystem expected = getDamperSystem(getView(plainVsum));
+        DamperSystem actual = getDamperSystem(getView(coalescingVsum));
+        assertEquals(expected.getSpringDamper().getStiffnessInNPerM(),
+                actual.getSpringDamper().getStiffnessInNPerM(), 1e-9);
+        assertEquals(expected.getTotalMassInKg(), actual.getTotalMassInKg(), 1e-9);
+        assertEquals(expected.getDampingRatio(), actual.getDampingRatio(), 1e-9);
+        assertEquals(getDamperSystemCount(getView(plainVsum)), getDamperSystemCount(getView(coalescingVsum)));
+    }
+
+    // Steps the stiffness like a slider, moves a sphere mass away and back and
+    // adds a damper system that is removed again before the commit
+    private void recordEditingSession(CommittableView view) {
+        DamperSystem damperSystem = getDamperSystem(view);
+        SpringDamper springDamper = damperSystem.getSpringDamper();
+        double stiffness = springDamper.getStiffnessInNPerM();
+        for (int i = 1; i <= STEPS; i++) {
+            springDamper.setStiffnessInNPerM(stiffness + 100 * i);
+        }
+
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        double sphereMass = upperTruss.getSphereMassInKg();
+        for (int i = 1; i < STEPS; i++) {
+            upperTruss.setSphereMassInKg(sphereMass + 0.01 * i);
+        }
+        upperTruss.setSphereMassInKg(sphereMass);
+
+        DamperRepository damperRepository = view.getRootObjects(DamperRepository.class).iterator().next();
+        DamperSystem discarded = MafdsFactory.eINSTANCE.createDamperSystem();
+        damperRepository.getDamperSystems().add(discarded);
+        damperRepository.getDamperSystems().remove(discarded);
+    }
+
+    private VirtualModel createVirtualModel(Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView view = getView(vsum);
+        FleetGenerator.populate(view, 1, 0, ExpressionMix.ABSENT, 3L);
+        view.commitChanges();
+        return vsum;
+    }
+
+    private CommittableView getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+    }
+
+    private CommittableView getView(VirtualModel vsum, ChangeTransformingViewType viewType) {
+        var selector = vsum.createSelector(viewType);
+        selector.getSelectableElements().stream()
+                .filter(element -> element instanceof DamperRepository
+                        || element instanceof UncertaintyAnnotationRepository)
+                .forEach(it -> selector.setSelected(it, true));
+        return selector.createView().withChangeRecordingTrait();
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+
+    private int getDamperSystemCount(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().size();
+    }
+}
@@ -0,0 +1,109 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics.Kind;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetricsMXBean;
+import tools.vitruv.methodologisttemplate.consistency.metrics.MetricSnapshot;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class ConsistencyMetricsTest {
+
+    @BeforeEach
+    void resetMetrics() {
+        ConsistencyMetrics.reset();
+    }
+
+    @AfterEach
+    void enableMetrics() {
+        ConsistencyMetrics.setEnabled(true);
+    }
+
+    @Test
+    @DisplayName("Reactions, routines and helpers are counted per invocation")
+    void invocationCountTest(@TempDir Path tempDir) throws Exception {
+        VirtualModel vsum = createFleet(tempDir);
+
+        ConsistencyMetrics.reset();
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        getDamperSystem(view).getSpringDamper().setStiffnessInNPerM(28000);
+        view.commitChanges();
+
+        assertEquals(1, ConsistencyMetrics.snapshot(Kind.REACTION, "springStiffnessChanged").getCount());
+        MetricSnapshot routine = ConsistencyMetrics.snapshot(Kind.ROUTINE, "recomputeDampingRatio");
+        assertTrue(routine.getCount() >= 1);
+        assertTrue(routine.getTotalNanos() > 0);
+        assertTrue(routine.getP50Nanos() <= routine.getMaxNanos());
+        assertTrue(ConsistencyMetrics.snapshot(Kind.HELPER, "DampingRatioReactionsHelper.handleUncertainty")
+                .getCount() >= 1);
+        assertEquals(0, ConsistencyMetrics.snapshot(Kind.REACTION, "UncertaintyDeleted").getCount());
+
+        // The snapshot lists the units by descending total latency
+        List<MetricSnapshot> snapshot = ConsistencyMetrics.snapshot();
+        for (int i = 1; i < snapshot.size(); i++) {
+            assertTrue(snapshot.get(i - 1).getTotalNanos() >= snapshot.get(i).getTotalNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("The metrics are readable and resettable over JMX")
+    void jmxTest(@TempDir Path tempDir) throws Exception {
+        createFleet(tempDir);
+
+        ConsistencyMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                new ObjectName(ConsistencyMetrics.OBJECT_NAME), ConsistencyMetricsMXBean.class);
+        assertTrue(bean.isEnabled());
+        assertTrue(bean.getMetrics().stream().anyMatch(
+                m -> m.getKind().equals("REACTION") && m.getName().equals("DamperSystemInserted")
+                        && m.getCount() > 0));
+
+        bean.reset();
+        assertTrue(bean.getMetrics().isEmpty());
+
+        bean.setEnabled(false);
+        ConsistencyMetrics.time("reaction", "routine", () -> {
+        });
+        assertEquals(0, ConsistencyMetrics.snapshot(Kind.ROUTINE, "routine").getCount());
+    }
+
+    private VirtualModel createFleet(Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        FleetGenerator.populate(view, 2, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL, 5L);
+        view.commitChanges();
+        return vsum;
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+}
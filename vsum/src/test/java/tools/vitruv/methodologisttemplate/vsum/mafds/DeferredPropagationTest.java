@@ -0,0 +1,185 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DerivedQuantityTracker;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.vsum.DeferredPropagation;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class DeferredPropagationTest {
+
+    @Test
+    @DisplayName("Damping Ratio is recomputed for every changed input without deferral")
+    void immediateRecomputationTest(@TempDir Path tempDir) {
+        VirtualModel vsum = createVirtualModel(tempDir);
+        CommittableView view = getView(vsum);
+        createDamperSystem(view, false);
+
+        long before = DerivedQuantityTracker.getRecomputationCount();
+        view.commitChanges();
+        long recomputations = DerivedQuantityTracker.getRecomputationCount() - before;
+
+        // One recomputation each for c, k and m
+        assertTrue(recomputations > 1, "Expected several recomputations but got " + recomputations);
+        assertEquals(0.0598204473, getDamperSystem(getView(vsum)).getDampingRatio(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Damping Ratio is recomputed once per commit with deferral")
+    void deferredRecomputationTest(@TempDir Path tempDir) {
+        VirtualModel vsum = createVirtualModel(tempDir);
+        CommittableView view = getView(vsum);
+        createDamperSystem(view, false);
+
+        long before = DerivedQuantityTracker.getRecomputationCount();
+        assertEquals(1, DeferredPropagation.commit(vsum, view));
+        assertEquals(1, DerivedQuantityTracker.getRecomputationCount() - before);
+        assertEquals(0.0598204473, getDamperSystem(getView(vsum)).getDampingRatio(), 0.001);
+
+        // Change c, k and a mass contributing to m in one commit
+        CommittableView changeView = getView(vsum);
+        DamperSystem damperSystem = getDamperSystem(changeView);
+        damperSystem.getSpringDamper().setDampingConstantInNsPerM(150);
+        damperSystem.getSpringDamper().setStiffnessInNPerM(30000);
+        damperSystem.getSpringDamper().setSpringSupportMassInKg(1.2);
+
+        before = DerivedQuantityTracker.getRecomputationCount();
+        assertEquals(1, DeferredPropagation.commit(vsum, changeView));
+        assertEquals(1, DerivedQuantityTracker.getRecomputationCount() - before);
+
+        DamperSystem result = getDamperSystem(getView(vsum));
+        assertEquals(50.7146 + 1.2, result.getTotalMassInKg(), 1e-9);
+        assertEquals(150 / (2 * Math.sqrt(30000 * (50.7146 + 1.2))), result.getDampingRatio(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Damping Ratio uncertainty is created once per commit with deferral")
+    void deferredRecomputationWithStoExTest(@TempDir Path tempDir) {
+        VirtualModel vsum = createVirtualModel(tempDir);
+        CommittableView view = getView(vsum);
+        createDamperSystem(view, true);
+
+        long before = DerivedQuantityTracker.getRecomputationCount();
+        assertEquals(1, DeferredPropagation.commit(vsum, view));
+        assertEquals(1, DerivedQuantityTracker.getRecomputationCount() - before);
+
+        View afterAddView = getView(vsum);
+        assertEquals(0.0598204473, getDamperSystem(afterAddView).getDampingRatio(), 0.001);
+        UncertaintyAnnotationRepository uncertaintyRepo = afterAddView
+                .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+        assertNotNull(uncertaintyRepo.getUncertainties().stream()
+                .filter(u -> "dampingRatio".equals(u.getUncertaintyLocation().getParameterLocation()))
+                .findFirst()
+                .orElse(null));
+    }
+
+    @Test
+    @DisplayName("Parallel recomputation of independent damper systems equals the sequential one")
+    void parallelRecomputationTest(@TempDir Path sequentialDir, @TempDir Path parallelDir) {
+        int fleetSize = 24;
+        VirtualModel sequentialVsum = createVirtualModel(sequentialDir);
+        VirtualModel parallelVsum = createVirtualModel(parallelDir);
+        for (VirtualModel vsum : List.of(sequentialVsum, parallelVsum)) {
+            CommittableView view = getView(vsum);
+            FleetGenerator.populate(view, fleetSize, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                    ExpressionMix.MIXED, 7L);
+            DeferredPropagation.commit(vsum, view);
+        }
+
+        CommittableView sequentialView = changeEverySpring(getView(sequentialVsum));
+        CommittableView parallelView = changeEverySpring(getView(parallelVsum));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(fleetSize, DeferredPropagation.commit(sequentialVsum, sequentialView));
+            assertEquals(fleetSize, DeferredPropagation.commit(parallelVsum, parallelView, pool));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<DamperSystem> expected = getView(sequentialVsum).getRootObjects(DamperRepository.class).iterator()
+                .next().getDamperSystems();
+        List<DamperSystem> actual = getView(parallelVsum).getRootObjects(DamperRepository.class).iterator()
+                .next().getDamperSystems();
+        for (int i = 0; i < fleetSize; i++) {
+            assertEquals(expected.get(i).getDampingRatio(), actual.get(i).getDampingRatio(), 1e-12);
+        }
+        assertEquals(countUncertainties(sequentialVsum), countUncertainties(parallelVsum));
+    }
+
+    private CommittableView changeEverySpring(CommittableView view) {
+        for (DamperSystem damperSystem : view.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems()) {
+            SpringDamper springDamper = damperSystem.getSpringDamper();
+            springDamper.setStiffnessInNPerM(springDamper.getStiffnessInNPerM() * 1.1);
+        }
+        return view;
+    }
+
+    private int countUncertainties(VirtualModel vsum) {
+        return getView(vsum).getRootObjects(UncertaintyAnnotationRepository.class).iterator().next()
+                .getUncertainties().size();
+    }
+
+    private VirtualModel createVirtualModel(Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        return vsum;
+    }
+
+    private CommittableView getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+
+    private void createDamperSystem(CommittableView view, boolean withStoex) {
+        DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+
+        SpringDamper springDamper = MafdsFactory.eINSTANCE.createSpringDamper();
+        springDamper.setStiffnessInNPerM(27000);
+        springDamper.setDampingConstantInNsPerM(140);
+
+        damperSystem.setSpringDamper(springDamper);
+        damperSystem.setTotalMassInKg(50.7146);
+
+        view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().add(damperSystem);
+
+        if (withStoex) {
+            view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next()
+                    .getUncertainties()
+                    .addAll(List.of(
+                            UncertaintyTestFactory.createUncertainty(springDamper, "stiffnessInNPerM",
+                                    StoexArithmetic.normal(27000, 1200)),
+                            UncertaintyTestFactory.createUncertainty(springDamper, "dampingConstantInNsPerM",
+                                    StoexArithmetic.normal(140, 7)),
+                            UncertaintyTestFactory.createUncertainty(damperSystem, "totalMassInKg",
+                                    StoexArithmetic.normal(50.7146, 0.5829))));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.MafdsPackage;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DerivedWrites;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.Tolerance;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics;
+import tools.vitruv.methodologisttemplate.consistency.metrics.ConsistencyMetrics.Kind;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import tools.vitruv.stoex.stoex.Expression;
+import uncertainty.Effect;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class DerivedWritesTest {
+
+    @BeforeEach
+    void resetCounter() {
+        DerivedWrites.resetSuppressedWriteCount();
+    }
+
+    @AfterEach
+    void resetTolerances() {
+        PropagationSettings.reset();
+    }
+
+    @Test
+    @DisplayName("Writes within the tolerance of the attribute are suppressed and counted")
+    void suppressionTest() {
+        DamperSystem system = MafdsFactory.eINSTANCE.createDamperSystem();
+        system.setDampingRatio(0.3);
+
+        // By default only rounding errors are suppressed
+        assertFalse(DerivedWrites.setDampingRatio(system, 0.3 * (1 + 1e-15)));
+        assertTrue(DerivedWrites.setDampingRatio(system, 0.301));
+        assertEquals(0.301, system.getDampingRatio());
+
+        PropagationSettings.setTolerance(MafdsPackage.Literals.DAMPER_SYSTEM__DAMPING_RATIO, Tolerance.relative(0.01));
+        assertFalse(DerivedWrites.setDampingRatio(system, 0.302));
+        assertEquals(0.301, system.getDampingRatio());
+        assertTrue(DerivedWrites.setDampingRatio(system, 0.31));
+        assertEquals(2, DerivedWrites.getSuppressedWriteCount());
+
+        // Expressions are compared by their moments
+        Expression stored = StoexArithmetic.normal(0.31, 0.02);
+        Effect effect = UncertaintyTestFactory.createEffect(stored);
+        assertFalse(DerivedWrites.setExpression(effect, StoexArithmetic.normal(0.3101, 0.0201),
+                MafdsPackage.Literals.DAMPER_SYSTEM__DAMPING_RATIO));
+        assertSame(stored, effect.getExpression());
+        assertTrue(DerivedWrites.setExpression(effect, StoexArithmetic.normal(0.31, 0.03),
+                MafdsPackage.Literals.DAMPER_SYSTEM__DAMPING_RATIO));
+        assertEquals(3, DerivedWrites.getSuppressedWriteCount());
+    }
+
+    @Test
+    @DisplayName("A total mass change within the tolerance stops the cascade without drift")
+    void cascadeTest(@TempDir Path tempDir) throws Exception {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView fleetView = getView(vsum).withChangeRecordingTrait();
+        FleetGenerator.populate(fleetView, 1, 0, ExpressionMix.ABSENT, 3L);
+        fleetView.commitChanges();
+        PropagationSettings.setTolerance(MafdsPackage.Literals.DAMPER_SYSTEM__TOTAL_MASS_IN_KG,
+                Tolerance.absolute(1e-3));
+        double initialTotal = getDamperSystem(getView(vsum)).getTotalMassInKg();
+        double initialSphereMass = getDamperSystem(getView(vsum)).getUpperTruss().getSphereMassInKg();
+
+        ConsistencyMetrics.reset();
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        getDamperSystem(view).getUpperTruss().setSphereMassInKg(initialSphereMass + 4e-4);
+        view.commitChanges();
+        assertEquals(initialTotal, getDamperSystem(getView(vsum)).getTotalMassInKg());
+        assertEquals(0, ConsistencyMetrics.snapshot(Kind.REACTION, "totalMassChanged").getCount());
+        assertTrue(DerivedWrites.getSuppressedWriteCount() >= 1);
+
+        // The suppressed change is kept and written with the next one
+        view = getView(vsum).withChangeRecordingTrait();
+        getDamperSystem(view).getUpperTruss().setSphereMassInKg(initialSphereMass + 1.2e-3);
+        view.commitChanges();
+        assertEquals(initialTotal + 1.2e-3, getDamperSystem(getView(vsum)).getTotalMassInKg(), 1e-12);
+        assertEquals(1, ConsistencyMetrics.snapshot(Kind.REACTION, "totalMassChanged").getCount());
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+}
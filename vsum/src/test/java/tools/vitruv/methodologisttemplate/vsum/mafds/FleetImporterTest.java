@@ -0,0 +1,173 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.FleetImporter;
+import tools.vitruv.methodologisttemplate.vsum.FleetImporter.ImportReport;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class FleetImporterTest {
+
+    private static final String HEADER = "id,upperTruss.crossLinkMassInKg,upperTruss.sphereMassInKg,"
+            + "upperTruss.numberOfThreadedRods,upperTruss.massOfThreadedRodInKg,lowerTruss.sphereMassInKg,"
+            + "lowerTruss.numberOfThreadedRods,lowerTruss.massOfThreadedRodInKg,guidanceElement.numberOfArms,"
+            + "guidanceElement.massOfArmInKg,guidanceElement.massOfJointMiddlePartInKg,"
+            + "springDamper.stiffnessInNPerM,springDamper.stiffnessInNPerM.sigma,"
+            + "springDamper.dampingConstantInNsPerM,springDamper.springSupportMassInKg";
+
+    @Test
+    @DisplayName("CSV import in batches is idempotent")
+    void csvImportTest(@TempDir Path tempDir) throws IOException {
+        VirtualModel vsum = createVirtualModel(tempDir.resolve("vsum"));
+        Path file = tempDir.resolve("fleet.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        for (int i = 0; i < 5; i++) {
+            lines.add("D-" + i + ",13.74,0.76,21,0.363,0.76,6,0.363,3,1.46,0.9236," + (27000 + i) + ",1188,140,20.35");
+        }
+        Files.write(file, lines);
+
+        FleetImporter importer = new FleetImporter(vsum, 2);
+        ImportReport first = importer.importFile(file);
+        assertEquals(5, first.records());
+        assertEquals(5, first.created());
+        assertEquals(3, first.batches());
+        assertTrue(first.recordsPerSecond() > 0);
+
+        View view = getView(vsum);
+        List<DamperSystem> damperSystems = getDamperSystems(view);
+        assertEquals(5, damperSystems.size());
+        DamperSystem damperSystem = damperSystems.get(3);
+        assertEquals("D-3", damperSystem.getId());
+        assertEquals(27003, damperSystem.getSpringDamper().getStiffnessInNPerM(), 1e-9);
+        assertEquals(50.7146, damperSystem.getTotalMassInKg(), 1e-9);
+        // The stiffness is uncertain, so the damping ratio is the mean of its distribution
+        assertEquals(140 / (2 * Math.sqrt(27003 * 50.7146)), damperSystem.getDampingRatio(), 1e-3);
+        NormalDistribution stiffness = assertInstanceOf(NormalDistribution.class,
+                findUncertainty(view, damperSystem.getSpringDamper(), "stiffnessInNPerM").getEffect()
+                        .getExpression());
+        assertEquals(27003, stiffness.getMu(), 1e-9);
+        assertEquals(1188, stiffness.getSigma(), 1e-9);
+        int uncertainties = getUncertainties(view).size();
+
+        // Importing the same file again changes nothing
+        ImportReport second = importer.importFile(file);
+        assertEquals(0, second.created());
+        assertEquals(0, second.updated());
+        assertEquals(5, second.unchanged());
+        assertEquals(5, getDamperSystems(getView(vsum)).size());
+        assertEquals(uncertainties, getUncertainties(getView(vsum)).size());
+    }
+
+    @Test
+    @DisplayName("JSON lines import updates systems matched by id")
+    void jsonLinesUpdateTest(@TempDir Path tempDir) throws IOException {
+        VirtualModel vsum = createVirtualModel(tempDir.resolve("vsum"));
+        Path csv = tempDir.resolve("fleet.csv");
+        Files.write(csv, List.of(HEADER,
+                "D-0,13.74,0.76,21,0.363,0.76,6,0.363,3,1.46,0.9236,27000,1188,140,20.35"));
+        new FleetImporter(vsum).importFile(csv);
+
+        Path jsonLines = tempDir.resolve("update.jsonl");
+        Files.write(jsonLines, List.of(
+                "{\"id\": \"D-0\", \"upperTruss.numberOfThreadedRods\": 25, "
+                        + "\"springDamper.stiffnessInNPerM.mu\": 30000, \"springDamper.stiffnessInNPerM.sigma\": 1300}",
+                "{\"id\": \"D-1\", \"springDamper.dampingConstantInNsPerM\": 150, \"lowerTruss.sphereMassInKg\": null}"));
+        ImportReport report = new FleetImporter(vsum).importFile(jsonLines);
+        assertEquals(1, report.updated());
+        assertEquals(1, report.created());
+
+        View view = getView(vsum);
+        DamperSystem updated = getDamperSystems(view).get(0);
+        assertEquals(25, updated.getUpperTruss().getNumberOfThreadedRods());
+        assertEquals(30000, updated.getSpringDamper().getStiffnessInNPerM(), 1e-9);
+        assertEquals(50.7146 + 4 * 0.363, updated.getTotalMassInKg(), 1e-9);
+        NormalDistribution stiffness = (NormalDistribution) findUncertainty(view, updated.getSpringDamper(),
+                "stiffnessInNPerM").getEffect().getExpression();
+        assertEquals(30000, stiffness.getMu(), 1e-9);
+        assertEquals(1300, stiffness.getSigma(), 1e-9);
+        assertEquals(150, getDamperSystems(view).get(1).getSpringDamper().getDampingConstantInNsPerM(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Later batches update systems created by earlier batches of the same import")
+    void batchesShareViewTest(@TempDir Path tempDir) throws IOException {
+        VirtualModel vsum = createVirtualModel(tempDir.resolve("vsum"));
+        Path file = tempDir.resolve("fleet.csv");
+        Files.write(file, List.of(HEADER,
+                "D-0,13.74,0.76,21,0.363,0.76,6,0.363,3,1.46,0.9236,27000,1188,140,20.35",
+                "D-0,13.74,0.76,25,0.363,0.76,6,0.363,3,1.46,0.9236,30000,1300,140,20.35"));
+
+        ImportReport report = new FleetImporter(vsum, 1).importFile(file);
+        assertEquals(1, report.created());
+        assertEquals(1, report.updated());
+        assertEquals(2, report.batches());
+
+        View view = getView(vsum);
+        assertEquals(1, getDamperSystems(view).size());
+        DamperSystem damperSystem = getDamperSystems(view).get(0);
+        assertEquals(50.7146 + 4 * 0.363, damperSystem.getTotalMassInKg(), 1e-9);
+        NormalDistribution stiffness = assertInstanceOf(NormalDistribution.class,
+                findUncertainty(view, damperSystem.getSpringDamper(), "stiffnessInNPerM").getEffect()
+                        .getExpression());
+        assertEquals(30000, stiffness.getMu(), 1e-9);
+        assertEquals(1300, stiffness.getSigma(), 1e-9);
+        assertEquals(140 / (2 * Math.sqrt(30000 * (50.7146 + 4 * 0.363))), damperSystem.getDampingRatio(), 1e-3);
+    }
+
+    @Test
+    @DisplayName("Unknown parameters are rejected")
+    void unknownParameterTest(@TempDir Path tempDir) throws IOException {
+        VirtualModel vsum = createVirtualModel(tempDir.resolve("vsum"));
+        Path file = tempDir.resolve("fleet.csv");
+        Files.write(file, List.of("id,springDamper.unknown", "D-0,1"));
+        assertThrows(IllegalArgumentException.class, () -> new FleetImporter(vsum).importFile(file));
+    }
+
+    private VirtualModel createVirtualModel(Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        return vsum;
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private List<DamperSystem> getDamperSystems(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems();
+    }
+
+    private List<Uncertainty> getUncertainties(View view) {
+        return view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next().getUncertainties();
+    }
+
+    private Uncertainty findUncertainty(View view, Object component, String parameterLocation) {
+        return getUncertainties(view).stream()
+                .filter(u -> parameterLocation.equals(u.getUncertaintyLocation().getParameterLocation())
+                        && u.getUncertaintyLocation().getReferencedComponents().contains(component))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,109 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.DualFormatResourceFactory;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.Format;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+public class ModelPersistenceTest {
+
+    @AfterEach
+    void unregister() {
+        ModelPersistence.unregister();
+    }
+
+    @Test
+    @DisplayName("Fleets round trip through the binary format and migrate back to XMI")
+    void migrationTest(@TempDir Path tempDir) throws IOException {
+        Path damperFile = tempDir.resolve("example.mafds");
+        Path uncertaintyFile = tempDir.resolve("uncertainty.model");
+        ResourceSet original = saveFleet(damperFile, uncertaintyFile, Format.XMI);
+        long xmiSize = Files.size(uncertaintyFile);
+
+        assertEquals(Format.XMI, ModelPersistence.migrate(damperFile, Format.BINARY));
+        assertEquals(Format.XMI, ModelPersistence.migrate(uncertaintyFile, Format.BINARY));
+        assertEquals(Format.BINARY, ModelPersistence.detect(uncertaintyFile));
+        assertTrue(Files.size(uncertaintyFile) < xmiSize,
+                "Expected the binary file to be smaller than " + xmiSize + " bytes");
+
+        // Both formats load through the same factory
+        ResourceSet binary = load(damperFile, uncertaintyFile);
+        assertTrue(EcoreUtil.equals(original.getResources().get(1).getContents(),
+                binary.getResources().get(1).getContents()));
+
+        assertEquals(Format.BINARY, ModelPersistence.migrate(uncertaintyFile, Format.XMI));
+        assertEquals(Format.XMI, ModelPersistence.detect(uncertaintyFile));
+        ResourceSet xmi = load(damperFile, uncertaintyFile);
+        assertTrue(EcoreUtil.equals(original.getResources().get(1).getContents(),
+                xmi.getResources().get(1).getContents()));
+    }
+
+    @Test
+    @DisplayName("The virtual model persists its models in the registered format")
+    void virtualModelTest(@TempDir Path tempDir) throws IOException {
+        ModelPersistence.register(Format.BINARY);
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView view = UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+        FleetGenerator.populate(view, 10, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL, 5L);
+        view.commitChanges();
+
+        assertEquals(Format.BINARY, ModelPersistence.detect(tempDir.resolve("uncertainty.model")));
+    }
+
+    private ResourceSet saveFleet(Path damperFile, Path uncertaintyFile, Format format) throws IOException {
+        ResourceSet resourceSet = createResourceSet(format);
+        Resource damperResource = resourceSet.createResource(URI.createFileURI(damperFile.toString()));
+        Resource uncertaintyResource = resourceSet.createResource(URI.createFileURI(uncertaintyFile.toString()));
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        uncertaintyResource.getContents().add(uncertaintyRepo);
+        damperResource.getContents().add(FleetGenerator.generate(uncertaintyRepo, 50,
+                FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.MIXED, 5L));
+        damperResource.save(null);
+        uncertaintyResource.save(null);
+        return resourceSet;
+    }
+
+    private ResourceSet load(Path damperFile, Path uncertaintyFile) throws IOException {
+        ResourceSet resourceSet = createResourceSet(Format.XMI);
+        resourceSet.getResource(URI.createFileURI(damperFile.toString()), true);
+        resourceSet.getResource(URI.createFileURI(uncertaintyFile.toString()), true);
+        EcoreUtil.resolveAll(resourceSet);
+        return resourceSet;
+    }
+
+    private ResourceSet createResourceSet(Format format) {
+        ResourceSet resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("*",
+                new DualFormatResourceFactory(format));
+        return resourceSet;
+    }
+}
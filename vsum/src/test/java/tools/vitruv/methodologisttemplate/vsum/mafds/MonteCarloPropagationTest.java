@@ -0,0 +1,127 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DampingRatioReactionsHelper;
+import tools.vitruv.methodologisttemplate.consistency.PropagationMode;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.MonteCarloEngine;
+import tools.vitruv.methodologisttemplate.consistency.montecarlo.SampleStatistics;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class MonteCarloPropagationTest {
+
+    @AfterEach
+    void resetSettings() {
+        PropagationSettings.reset();
+    }
+
+    @Test
+    @DisplayName("Monte Carlo samples do not depend on the number of threads")
+    void deterministicAcrossPoolsTest() {
+        StoexFormula sum = StoexFormula.compile("a + b", "a", "b");
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            SampleStatistics sequential = new MonteCarloEngine(100_000, 7L, single)
+                    .propagate(sum, StoexArithmetic.normal(50, 0.5), StoexArithmetic.normal(0.363, 0.015));
+            SampleStatistics parallel = new MonteCarloEngine(100_000, 7L)
+                    .propagate(sum, StoexArithmetic.normal(50, 0.5), StoexArithmetic.normal(0.363, 0.015));
+
+            assertEquals(sequential.getMean(), parallel.getMean(), 0);
+            assertEquals(sequential.getVariance(), parallel.getVariance(), 0);
+            assertArrayEquals(sequential.histogram(20), parallel.histogram(20));
+
+            // Sum of independent normals: mu = 50.363, sigma = sqrt(0.5^2 + 0.015^2)
+            assertEquals(50.363, parallel.getMean(), 0.01);
+            assertEquals(Math.sqrt(0.25 + 0.015 * 0.015), parallel.getStandardDeviation(), 0.01);
+            assertEquals(0.5, parallel.cdf(parallel.quantile(0.5)), 0.001);
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Model Damper System and check Damping Ratio propagated in Monte Carlo mode")
+    void addDamperSystemWithMonteCarloTest(@TempDir Path tempDir) {
+        PropagationSettings.setMode(PropagationMode.MONTE_CARLO);
+        PropagationSettings.configureMonteCarlo(20_000, 42L);
+
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+
+        CommittableView damperSystemView = UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+        createDamperSystemWithUncertaintyAndStoex(damperSystemView);
+        damperSystemView.commitChanges();
+
+        View afterAddView = UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+        DamperSystem damperSystem = afterAddView.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems().get(0);
+        UncertaintyAnnotationRepository uncertaintyRepo = afterAddView
+                .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+
+        // Damping Ratio = c / (2 * sqrt(k * m)) = 0.0598204473
+        assertEquals(0.0598204473, damperSystem.getDampingRatio(), 0.001);
+
+        Uncertainty dampingUncertainty = uncertaintyRepo.getUncertainties().stream()
+                .filter(u -> "dampingRatio".equals(u.getUncertaintyLocation().getParameterLocation()))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(dampingUncertainty.getEffect().getExpression() instanceof NormalDistribution);
+
+        SampleStatistics statistics = DampingRatioReactionsHelper.sampleDampingRatio(uncertaintyRepo, damperSystem);
+        assertEquals(0.0598204473, statistics.getMean(), 0.001);
+        assertTrue(statistics.quantile(0.05) < statistics.getMean());
+        assertTrue(statistics.getMean() < statistics.quantile(0.95));
+    }
+
+    private void createDamperSystemWithUncertaintyAndStoex(CommittableView view) {
+        DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+
+        SpringDamper springDamper = MafdsFactory.eINSTANCE.createSpringDamper();
+        springDamper.setStiffnessInNPerM(27000);
+        springDamper.setDampingConstantInNsPerM(140);
+
+        damperSystem.setSpringDamper(springDamper);
+        damperSystem.setTotalMassInKg(50.7146);
+
+        view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().add(damperSystem);
+
+        view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next()
+                .getUncertainties()
+                .addAll(List.of(
+                        UncertaintyTestFactory.createUncertainty(springDamper, "stiffnessInNPerM",
+                                StoexArithmetic.normal(27000, 1200)),
+                        UncertaintyTestFactory.createUncertainty(springDamper, "dampingConstantInNsPerM",
+                                StoexArithmetic.normal(140, 7)),
+                        UncertaintyTestFactory.createUncertainty(damperSystem, "totalMassInKg",
+                                StoexArithmetic.normal(50.7146, 0.5829))));
+    }
+}
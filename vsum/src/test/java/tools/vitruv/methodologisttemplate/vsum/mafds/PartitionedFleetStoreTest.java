@@ -0,0 +1,137 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.ModelPersistence.Format;
+import tools.vitruv.methodologisttemplate.vsum.PartitionedFleetStore;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+public class PartitionedFleetStoreTest {
+
+    private static final int SYSTEMS = 20;
+
+    @Test
+    @DisplayName("A partitioned fleet loads single systems and keeps a bounded number of partitions")
+    void partitioningTest(@TempDir Path tempDir) throws IOException {
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        DamperRepository damperRepo = generateFleet(uncertaintyRepo);
+        PartitionedFleetStore.open(tempDir, 4, Format.BINARY).putAll(damperRepo, uncertaintyRepo);
+
+        PartitionedFleetStore store = PartitionedFleetStore.open(tempDir, 4, Format.BINARY);
+        assertEquals(SYSTEMS, store.ids().size());
+        assertEquals(0, store.loadedPartitions());
+        for (int i = 0; i < SYSTEMS; i++) {
+            DamperSystem original = damperRepo.getDamperSystems().get(i);
+            assertTrue(EcoreUtil.equals(original, store.get(original.getId())));
+            assertEquals(FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                    store.getUncertainties(original.getId()).size());
+            assertTrue(store.loadedPartitions() <= 4);
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.get("unknown"));
+
+        assertTrue(store.remove("D-0"));
+        assertEquals(SYSTEMS - 1, PartitionedFleetStore.open(tempDir).ids().size());
+    }
+
+    @Test
+    @DisplayName("A checked out system is propagated in the virtual model and stored on checkin")
+    void checkoutTest(@TempDir Path tempDir) throws IOException {
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        PartitionedFleetStore store = PartitionedFleetStore.open(tempDir.resolve("store"));
+        store.putAll(generateFleet(uncertaintyRepo), uncertaintyRepo);
+        double dampingRatio = store.get("D-3").getDampingRatio();
+
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir.resolve("vsum"));
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir.resolve("vsum"));
+        assertEquals(1, store.checkout(vsum, List.of("D-3")));
+        assertEquals(0, store.checkout(vsum, List.of("D-3")));
+
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        List<DamperSystem> damperSystems = view.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems();
+        assertEquals(1, damperSystems.size());
+        damperSystems.get(0).getSpringDamper().setStiffnessInNPerM(40000);
+        view.commitChanges();
+
+        assertEquals(1, store.checkin(vsum, List.of("D-3")));
+        assertTrue(getView(vsum).getRootObjects(DamperRepository.class).iterator().next().getDamperSystems()
+                .isEmpty());
+
+        PartitionedFleetStore reopened = PartitionedFleetStore.open(tempDir.resolve("store"));
+        DamperSystem stored = reopened.get("D-3");
+        assertEquals(40000, stored.getSpringDamper().getStiffnessInNPerM(), 1e-9);
+        assertNotEquals(dampingRatio, stored.getDampingRatio());
+        assertTrue(reopened.getUncertainties("D-3").size() >= FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM);
+    }
+
+    @Test
+    @DisplayName("A system checked out again keeps the total mass it was checked in with")
+    void roundTripTest(@TempDir Path tempDir) throws IOException {
+        UncertaintyAnnotationRepository uncertaintyRepo = UncertaintyFactory.eINSTANCE
+                .createUncertaintyAnnotationRepository();
+        PartitionedFleetStore store = PartitionedFleetStore.open(tempDir.resolve("store"));
+        store.putAll(generateFleet(uncertaintyRepo), uncertaintyRepo);
+
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir.resolve("vsum"));
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir.resolve("vsum"));
+        store.checkout(vsum, List.of("D-3"));
+        View view = getView(vsum);
+        DamperSystem checkedOut = view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems()
+                .get(0);
+        double totalMass = checkedOut.getTotalMassInKg();
+        double dampingRatio = checkedOut.getDampingRatio();
+        int uncertainties = view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next()
+                .getUncertainties().size();
+        assertTrue(totalMass > 0);
+
+        store.checkin(vsum, List.of("D-3"));
+        assertEquals(totalMass, PartitionedFleetStore.open(tempDir.resolve("store")).get("D-3").getTotalMassInKg(),
+                1e-9);
+        store.checkout(vsum, List.of("D-3"));
+
+        View roundTripView = getView(vsum);
+        DamperSystem roundTrip = roundTripView.getRootObjects(DamperRepository.class).iterator().next()
+                .getDamperSystems().get(0);
+        assertEquals(totalMass, roundTrip.getTotalMassInKg(), 1e-9);
+        assertEquals(dampingRatio, roundTrip.getDampingRatio(), 1e-9);
+        assertEquals(uncertainties, roundTripView.getRootObjects(UncertaintyAnnotationRepository.class).iterator()
+                .next().getUncertainties().size());
+    }
+
+    private DamperRepository generateFleet(UncertaintyAnnotationRepository uncertaintyRepo) {
+        DamperRepository damperRepo = FleetGenerator.generate(uncertaintyRepo, SYSTEMS,
+                FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.MIXED, 5L);
+        for (int i = 0; i < SYSTEMS; i++) {
+            damperRepo.getDamperSystems().get(i).setId("D-" + i);
+        }
+        return damperRepo;
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+}
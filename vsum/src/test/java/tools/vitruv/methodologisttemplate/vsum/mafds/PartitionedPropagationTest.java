@@ -0,0 +1,133 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.SpringDamper;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.DerivedQuantityTracker;
+import tools.vitruv.methodologisttemplate.vsum.DeferredPropagation;
+import tools.vitruv.methodologisttemplate.vsum.PartitionedPropagation;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class PartitionedPropagationTest {
+
+    private static final int FLEET_SIZE = 24;
+
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Partitioned propagation of independent damper systems equals the sequential one")
+    void partitionedPropagationTest(@TempDir Path sequentialDir, @TempDir Path partitionedDir) {
+        VirtualModel sequentialVsum = createFleet(sequentialDir);
+        VirtualModel partitionedVsum = createFleet(partitionedDir);
+
+        CommittableView sequentialView = changeEverySpring(getView(sequentialVsum), 1.1, 0.2);
+        sequentialView.commitChanges();
+        CommittableView partitionedView = changeEverySpring(PartitionedPropagation.getView(partitionedVsum), 1.1,
+                0.2);
+        long before = DerivedQuantityTracker.getRecomputationCount();
+        assertEquals(FLEET_SIZE, PartitionedPropagation.commit(partitionedView, pool));
+        // The reactions leave the partitioned systems alone
+        assertEquals(FLEET_SIZE, DerivedQuantityTracker.getRecomputationCount() - before);
+        assertSameFleet(sequentialVsum, partitionedVsum);
+
+        // The total mass of the virtual model is updated correctly by later commits
+        changeEverySpring(getView(sequentialVsum), 1, 0.3).commitChanges();
+        changeEverySpring(getView(partitionedVsum), 1, 0.3).commitChanges();
+        assertSameFleet(sequentialVsum, partitionedVsum);
+    }
+
+    @Test
+    @DisplayName("Inserted damper systems are propagated without partitioning")
+    void insertionTest(@TempDir Path sequentialDir, @TempDir Path partitionedDir) {
+        VirtualModel sequentialVsum = createVirtualModel(sequentialDir);
+        VirtualModel partitionedVsum = createVirtualModel(partitionedDir);
+
+        CommittableView sequentialView = getView(sequentialVsum);
+        FleetGenerator.populate(sequentialView, FLEET_SIZE, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                ExpressionMix.MIXED, 7L);
+        sequentialView.commitChanges();
+        CommittableView partitionedView = PartitionedPropagation.getView(partitionedVsum);
+        FleetGenerator.populate(partitionedView, FLEET_SIZE, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                ExpressionMix.MIXED, 7L);
+        assertEquals(0, PartitionedPropagation.commit(partitionedView, pool));
+
+        assertSameFleet(sequentialVsum, partitionedVsum);
+    }
+
+    private void assertSameFleet(VirtualModel expectedVsum, VirtualModel actualVsum) {
+        List<DamperSystem> expected = getDamperSystems(getView(expectedVsum));
+        List<DamperSystem> actual = getDamperSystems(getView(actualVsum));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTotalMassInKg(), actual.get(i).getTotalMassInKg(), 1e-9);
+            assertEquals(expected.get(i).getDampingRatio(), actual.get(i).getDampingRatio(), 1e-12);
+        }
+        assertEquals(countUncertainties(expectedVsum), countUncertainties(actualVsum));
+    }
+
+    private CommittableView changeEverySpring(CommittableView view, double stiffnessFactor, double massChange) {
+        for (DamperSystem damperSystem : getDamperSystems(view)) {
+            SpringDamper springDamper = damperSystem.getSpringDamper();
+            springDamper.setStiffnessInNPerM(springDamper.getStiffnessInNPerM() * stiffnessFactor);
+            springDamper.setSpringSupportMassInKg(springDamper.getSpringSupportMassInKg() + massChange);
+        }
+        return view;
+    }
+
+    private List<DamperSystem> getDamperSystems(CommittableView view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems();
+    }
+
+    private int countUncertainties(VirtualModel vsum) {
+        return getView(vsum).getRootObjects(UncertaintyAnnotationRepository.class).iterator().next()
+                .getUncertainties().size();
+    }
+
+    private VirtualModel createFleet(Path tempDir) {
+        VirtualModel vsum = createVirtualModel(tempDir);
+        CommittableView view = getView(vsum);
+        FleetGenerator.populate(view, FLEET_SIZE, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                ExpressionMix.MIXED, 7L);
+        DeferredPropagation.commit(vsum, view);
+        return vsum;
+    }
+
+    private VirtualModel createVirtualModel(Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        return vsum;
+    }
+
+    private CommittableView getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+    }
+}
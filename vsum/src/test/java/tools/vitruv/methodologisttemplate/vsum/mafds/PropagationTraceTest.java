@@ -0,0 +1,88 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.trace.ChromeTraceExporter;
+import tools.vitruv.methodologisttemplate.vsum.PropagationTrace;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class PropagationTraceTest {
+
+    @Test
+    @DisplayName("A recorded commit carries the reactions, routines and helpers it caused")
+    void recordingTest(@TempDir Path tempDir) throws Exception {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView fleetView = getView(vsum).withChangeRecordingTrait();
+        FleetGenerator.populate(fleetView, 2, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL,
+                7L);
+        fleetView.commitChanges();
+
+        Recording recording = PropagationTrace.startRecording();
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        getDamperSystem(view).getSpringDamper().setStiffnessInNPerM(28000);
+        PropagationTrace.commit(view);
+        Path jfrFile = tempDir.resolve("commit.jfr");
+        Path traceFile = PropagationTrace.stopAndExport(recording, jfrFile);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(jfrFile);
+        RecordedEvent commit = findEvent(events, "Commit");
+        RecordedEvent reaction = findEvent(events, "Reaction");
+        assertEquals("springStiffnessChanged", reaction.getString("reaction"));
+        assertEquals("recomputeDampingRatio", reaction.getString("routine"));
+        assertEquals("SpringDamper", reaction.getString("eObjectType"));
+        assertEquals("stiffnessInNPerM", reaction.getString("feature"));
+        assertNotNull(reaction.getString("damperSystem"));
+        // The reaction is nested in the commit
+        assertTrue(!reaction.getStartTime().isBefore(commit.getStartTime()));
+        assertTrue(!reaction.getEndTime().isAfter(commit.getEndTime()));
+        assertNotNull(findEvent(events, "Helper"));
+
+        String trace = Files.readString(traceFile);
+        assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ns\",\"traceEvents\":["));
+        assertTrue(trace.contains("\"name\":\"springStiffnessChanged\",\"cat\":\"Reaction\",\"ph\":\"X\""));
+        assertTrue(trace.contains("\"name\":\"recomputeDampingRatio\",\"cat\":\"Routine\""));
+        assertTrue(trace.contains("\"name\":\"DampingRatioReactionsHelper.handleUncertainty\",\"cat\":\"Helper\""));
+
+        Path commitTrace = tempDir.resolve("single.trace.json");
+        ChromeTraceExporter.export(jfrFile, commitTrace, commit.getLong("commitId"));
+        assertTrue(Files.readString(commitTrace).contains("\"name\":\"Commit " + commit.getLong("commitId") + "\""));
+    }
+
+    private RecordedEvent findEvent(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals("tools.vitruv.methodologisttemplate." + name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+}
@@ -0,0 +1,102 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexCanonicalizer;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class StoexCanonicalizerTest {
+
+    private static final int EDITS = 200;
+
+    @Test
+    @DisplayName("Canonical expressions are returned as they are and spreadless normals are folded")
+    void normalFormTest() {
+        NormalDistribution normal = StoexArithmetic.normal(5, 1);
+        assertSame(normal, StoexCanonicalizer.canonicalize(normal));
+        DoubleLiteral literal = StoexArithmetic.literal(5);
+        assertSame(literal, StoexCanonicalizer.canonicalize(literal));
+        DoubleLiteral folded = assertInstanceOf(DoubleLiteral.class,
+                StoexCanonicalizer.canonicalize(StoexArithmetic.normal(7, 0)));
+        assertEquals(7, folded.getValue(), 1e-12);
+        assertEquals(1, StoexCanonicalizer.size(normal));
+        assertEquals(1, StoexCanonicalizer.depth(normal));
+    }
+
+    @Test
+    @DisplayName("Derived expressions stay bounded over many uncertain mass edits")
+    void boundedExpressionTest(@TempDir Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView fleetView = getView(vsum).withChangeRecordingTrait();
+        FleetGenerator.populate(fleetView, 1, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL,
+                3L);
+        fleetView.commitChanges();
+
+        for (int i = 0; i < EDITS; i++) {
+            CommittableView view = getView(vsum).withChangeRecordingTrait();
+            DamperSystem damperSystem = getDamperSystem(view);
+            // Alternate between an annotated and an unannotated change of the mass
+            if (i % 2 == 0) {
+                damperSystem.getUpperTruss().setSphereMassInKg(0.76 + 0.001 * i);
+            } else {
+                damperSystem.getUpperTruss().setNumberOfThreadedRods(21 + i % 4);
+            }
+            view.commitChanges();
+        }
+
+        View view = getView(vsum);
+        DamperSystem damperSystem = getDamperSystem(view);
+        Expression totalMass = findExpression(view, "totalMassInKg");
+        Expression dampingRatio = findExpression(view, "dampingRatio");
+        assertTrue(StoexCanonicalizer.isAtomic(totalMass));
+        assertTrue(StoexCanonicalizer.isAtomic(dampingRatio));
+        assertEquals(1, StoexCanonicalizer.depth(totalMass));
+        assertEquals(1, StoexCanonicalizer.depth(dampingRatio));
+        // All masses are normal, so is their sum
+        NormalDistribution totalMassDistribution = assertInstanceOf(NormalDistribution.class, totalMass);
+        assertEquals(damperSystem.getTotalMassInKg(), totalMassDistribution.getMu(), 1e-9);
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+
+    private Expression findExpression(View view, String parameterLocation) {
+        return view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next().getUncertainties()
+                .stream()
+                .filter(u -> parameterLocation.equals(u.getUncertaintyLocation().getParameterLocation()))
+                .map(Uncertainty::getEffect)
+                .findFirst()
+                .orElseThrow()
+                .getExpression();
+    }
+}
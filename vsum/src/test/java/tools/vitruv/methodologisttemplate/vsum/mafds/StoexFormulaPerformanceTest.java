@@ -0,0 +1,93 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.stoex.interpreter.StoexEvaluator;
+import tools.vitruv.stoex.stoex.Expression;
+
+/**
+ * Compares the evaluation of the reaction helper formulas through a
+ * {@link StoexFormula} with the previous approach of creating a new
+ * {@link StoexEvaluator} and parsing the formula string on every call.
+ */
+public class StoexFormulaPerformanceTest {
+
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 2_000;
+
+    @Test
+    @DisplayName("Performance Test: Compiled StoEx formulas vs. per-call evaluator construction")
+    void compareFormulaEvaluation() {
+        StoexFormula totalMass = StoexFormula.compile("totalMassInKg + newValue - oldValue",
+                "totalMassInKg", "newValue", "oldValue");
+        StoexFormula dampingRatio = StoexFormula.compile("c / (2 * (k * m)^0.5)", "c", "k", "m");
+
+        Expression total = StoexArithmetic.normal(50.7146, 0.5829);
+        Expression newValue = StoexArithmetic.normal(13.74, 0.5);
+
+        // Both approaches must agree
+        assertEquals(perCall(total, newValue), StoexFormula.mean(totalMass.evaluate(total, newValue, 13.0)),
+                1e-9);
+        assertEquals(140 / (2 * Math.sqrt(27000 * 50.7146)),
+                StoexFormula.mean(dampingRatio.evaluate(140.0, 27000.0, 50.7146)), 1e-12);
+        Expression c = StoexArithmetic.normal(140, 7);
+        Expression k = StoexArithmetic.normal(27000, 1200);
+        StoexEvaluator reference = new StoexEvaluator();
+        reference.setVariable("c", c);
+        reference.setVariable("k", k);
+        reference.setVariable("m", total);
+        assertEquals(reference.getMean(reference.evaluate("c / (2 * (k * m)^0.5)")).doubleValue(),
+                StoexFormula.mean(dampingRatio.evaluate(c, k, total)), 1e-3);
+
+        System.out.printf("%-40s | %14s%n", "Scenario", "Time / call");
+        System.out.println("-".repeat(58));
+        print("Total mass, per-call evaluator", measure(() -> perCall(total, newValue)));
+        print("Total mass, compiled formula",
+                measure(() -> StoexFormula.mean(totalMass.evaluate(total, newValue, 13.0))));
+        print("Damping ratio literals, per-call", measure(() -> {
+            StoexEvaluator stoexEvaluator = new StoexEvaluator();
+            stoexEvaluator.setVariable("c", 140.0);
+            stoexEvaluator.setVariable("k", 27000.0);
+            stoexEvaluator.setVariable("m", 50.7146);
+            return stoexEvaluator.getMean(stoexEvaluator.evaluate("c / (2 * (k * m)^0.5)")).doubleValue();
+        }));
+        print("Damping ratio literals, compiled",
+                measure(() -> StoexFormula.mean(dampingRatio.evaluate(140.0, 27000.0, 50.7146))));
+    }
+
+    private static double perCall(Expression total, Expression newValue) {
+        StoexEvaluator stoexEvaluator = new StoexEvaluator();
+        stoexEvaluator.setVariable("totalMassInKg", total);
+        stoexEvaluator.setVariable("newValue", newValue);
+        stoexEvaluator.setVariable("oldValue", 13.0);
+        Expression result = stoexEvaluator.evaluate("totalMassInKg + newValue - oldValue");
+        return stoexEvaluator.getMean(result).doubleValue();
+    }
+
+    private static long measure(Supplier<Double> call) {
+        double sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += call.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += call.get();
+        }
+        long nanosPerCall = (System.nanoTime() - start) / ITERATIONS;
+        if (Double.isNaN(sink)) {
+            throw new IllegalStateException("Unexpected NaN result");
+        }
+        return nanosPerCall;
+    }
+
+    private static void print(String scenario, long nanos) {
+        System.out.printf("%-40s | %11d ns%n", scenario, nanos);
+    }
+}
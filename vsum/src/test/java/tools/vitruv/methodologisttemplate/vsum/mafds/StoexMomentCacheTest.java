@@ -0,0 +1,103 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.methodologisttemplate.consistency.StoexMomentCache;
+import tools.vitruv.methodologisttemplate.consistency.StoexMomentCache.CacheStatistics;
+import tools.vitruv.methodologisttemplate.consistency.StoexMomentCache.StoexStatistics;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+
+public class StoexMomentCacheTest {
+
+    @Test
+    @DisplayName("Statistics of normal distributions and literals are exact")
+    void statisticsTest() {
+        StoexMomentCache cache = new StoexMomentCache(16);
+        StoexStatistics normal = cache.get(StoexArithmetic.normal(50, 2));
+        assertEquals(50, normal.mean(), 1e-12);
+        assertEquals(4, normal.variance(), 1e-12);
+        assertEquals(50, normal.median(), 1e-12);
+        assertEquals(50 - 1.6448536 * 2, normal.p05(), 1e-6);
+        assertEquals(50 + 1.6448536 * 2, normal.p95(), 1e-6);
+
+        StoexStatistics literal = cache.get(StoexArithmetic.literal(7));
+        assertEquals(7, literal.mean(), 1e-12);
+        assertEquals(0, literal.variance(), 1e-12);
+        assertEquals(7, literal.p95(), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Composite expressions have a variance and quantiles")
+    void compositeStatisticsTest() {
+        StoexMomentCache cache = new StoexMomentCache(16);
+        // Product of independent N(10, 1) and N(5, 0.5)
+        StoexStatistics product = cache.get(StoexFormula.compile("a * b", "a", "b")
+                .evaluate(StoexArithmetic.normal(10, 1), StoexArithmetic.normal(5, 0.5)));
+        assertEquals(50, product.mean(), 0.5);
+        assertEquals(100 * 0.25 + 25 * 1 + 0.25, product.variance(), 2.5);
+        double sigma = Math.sqrt(product.variance());
+        assertEquals(product.mean() - 1.6448536 * sigma, product.p05(), 1e-6);
+        assertEquals(product.mean() + 1.6448536 * sigma, product.p95(), 1e-6);
+        assertTrue(product.p05() < product.median() && product.median() < product.p95());
+    }
+
+    @Test
+    @DisplayName("Structurally equal expressions share an entry")
+    void hitTest() {
+        StoexMomentCache cache = new StoexMomentCache(16);
+        NormalDistribution expr = StoexArithmetic.normal(0.363, 0.015);
+        StoexStatistics first = cache.get(expr);
+        assertSame(first, cache.get(expr));
+        assertSame(first, cache.get(StoexArithmetic.normal(0.363, 0.015)));
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.hits());
+        assertEquals(1, statistics.misses());
+        assertEquals(1, statistics.size());
+        assertEquals(2.0 / 3, statistics.hitRate(), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Modifying an expression invalidates its entry")
+    void invalidationTest() {
+        StoexMomentCache cache = new StoexMomentCache(16);
+        NormalDistribution expr = StoexArithmetic.normal(10, 1);
+        assertEquals(10, cache.mean(expr), 1e-12);
+
+        expr.setMu(12);
+        assertEquals(0, cache.getStatistics().size());
+        assertEquals(12, cache.mean(expr), 1e-12);
+        assertEquals(2, cache.getStatistics().misses());
+    }
+
+    @Test
+    @DisplayName("The least recently used entries are evicted beyond the capacity")
+    void evictionTest() {
+        StoexMomentCache cache = new StoexMomentCache(2);
+        NormalDistribution a = StoexArithmetic.normal(1, 1);
+        NormalDistribution b = StoexArithmetic.normal(2, 1);
+        cache.get(a);
+        cache.get(b);
+        cache.get(a);
+        cache.get(StoexArithmetic.normal(3, 1));
+
+        CacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.size());
+        assertEquals(1, statistics.evictions());
+        // b was the least recently used entry
+        cache.get(a);
+        assertEquals(statistics.hits() + 1, cache.getStatistics().hits());
+        cache.get(b);
+        assertEquals(statistics.misses() + 1, cache.getStatistics().misses());
+
+        cache.clear();
+        assertEquals(new CacheStatistics(0, 0, 0, 0), cache.getStatistics());
+    }
+}
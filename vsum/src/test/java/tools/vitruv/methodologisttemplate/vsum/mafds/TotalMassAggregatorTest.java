@@ -0,0 +1,224 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.GuidanceElement;
+import mafds.LowerTruss;
+import mafds.UpperTruss;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.TotalMassAggregator;
+import tools.vitruv.methodologisttemplate.consistency.TotalMassReactionsHelper;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+public class TotalMassAggregatorTest {
+
+    private static final long SEED = 11L;
+
+    @Test
+    @DisplayName("Contributions are cached, updated idempotently and rebuilt")
+    void aggregateTest() {
+        DamperSystem damperSystem = FleetGenerator
+                .generate(UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository(), 1, 0,
+                        ExpressionMix.ABSENT, SEED)
+                .getDamperSystems().get(0);
+        damperSystem.setTotalMassInKg(1.5);
+
+        // A new system contains no contribution until its components are reported
+        TotalMassAggregator aggregator = TotalMassAggregator.track(damperSystem);
+        assertFalse(aggregator.verify());
+        aggregator.update(damperSystem.getUpperTruss());
+        aggregator.update(damperSystem.getLowerTruss());
+        aggregator.update(damperSystem.getGuidanceElement());
+        aggregator.update(damperSystem.getSpringDamper());
+        assertTrue(aggregator.verify());
+        assertEquals(1.5 + expectedTotalMass(damperSystem), damperSystem.getTotalMassInKg(), 1e-9);
+
+        // Reporting a component twice does not count it twice
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        upperTruss.setNumberOfThreadedRods(25);
+        upperTruss.setMassOfThreadedRodInKg(0.38);
+        aggregator.update(upperTruss);
+        aggregator.update(upperTruss);
+        assertEquals(1.5 + expectedTotalMass(damperSystem), damperSystem.getTotalMassInKg(), 1e-9);
+        assertEquals(upperTruss.getCrossLinkMassInKg() + upperTruss.getSphereMassInKg() + 25 * 0.38,
+                aggregator.getContribution(upperTruss), 1e-9);
+
+        // A missed change is detected and recovered by a rebuild
+        damperSystem.getSpringDamper().setSpringSupportMassInKg(30);
+        assertFalse(aggregator.verify());
+        aggregator.rebuild();
+        assertTrue(aggregator.verify());
+        assertEquals(1.5 + expectedTotalMass(damperSystem), damperSystem.getTotalMassInKg(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Untracked systems assume a consistent total")
+    void untrackedSystemTest() {
+        DamperSystem damperSystem = FleetGenerator
+                .generate(UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository(), 1, 0,
+                        ExpressionMix.ABSENT, SEED)
+                .getDamperSystems().get(0);
+        damperSystem.setTotalMassInKg(expectedTotalMass(damperSystem));
+
+        LowerTruss lowerTruss = damperSystem.getLowerTruss();
+        double oldMass = lowerTruss.getSphereMassInKg();
+        lowerTruss.setSphereMassInKg(oldMass + 0.2);
+        TotalMassAggregator.of(damperSystem, lowerTruss, 0.2).update(lowerTruss);
+
+        assertEquals(expectedTotalMass(damperSystem), damperSystem.getTotalMassInKg(), 1e-9);
+        assertTrue(TotalMassAggregator.of(damperSystem).verify());
+    }
+
+    @Test
+    @DisplayName("The first aggregated total mass uncertainty starts from the numeric total")
+    void firstAggregatedTotalTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        DamperSystem damperSystem = FleetGenerator.generate(repo, 1, 0, ExpressionMix.ABSENT, SEED)
+                .getDamperSystems().get(0);
+        double totalMass = expectedTotalMass(damperSystem);
+        damperSystem.setTotalMassInKg(totalMass);
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        repo.getUncertainties().add(UncertaintyTestFactory.createUncertainty(upperTruss, "crossLinkMassInKg",
+                StoexArithmetic.normal(upperTruss.getCrossLinkMassInKg(), 0.5)));
+
+        Uncertainty totalMassUncertainty = TotalMassReactionsHelper.handleUncertainty(repo, "crossLinkMassInKg", 0,
+                upperTruss, damperSystem);
+
+        NormalDistribution distribution = (NormalDistribution) totalMassUncertainty.getEffect().getExpression();
+        assertEquals(totalMass, distribution.getMu(), 1e-9);
+        assertEquals(0.5, distribution.getSigma(), 1e-9);
+        assertEquals(totalMass, damperSystem.getTotalMassInKg(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("The spread of a changed part of an untracked system is counted once")
+    void untrackedAnnotatedTotalTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        DamperSystem damperSystem = FleetGenerator.generate(repo, 1, 0, ExpressionMix.ABSENT, SEED)
+                .getDamperSystems().get(0);
+        double totalMass = expectedTotalMass(damperSystem);
+        damperSystem.setTotalMassInKg(totalMass);
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        int rods = upperTruss.getNumberOfThreadedRods();
+        double rodMass = upperTruss.getMassOfThreadedRodInKg();
+        repo.getUncertainties().add(UncertaintyTestFactory.createUncertainty(upperTruss, "massOfThreadedRodInKg",
+                StoexArithmetic.normal(rodMass, 0.015)));
+        repo.getUncertainties().add(UncertaintyTestFactory.createUncertainty(damperSystem, "totalMassInKg",
+                StoexArithmetic.normal(totalMass, Math.sqrt(rods) * 0.015)));
+
+        // A change reported for a system without aggregator, e.g. after a reload
+        upperTruss.setNumberOfThreadedRods(rods + 4);
+        Uncertainty totalMassUncertainty = TotalMassReactionsHelper.handleUncertainty(repo,
+                "massOfThreadedRodInKg", 4 * rodMass, upperTruss, damperSystem);
+
+        NormalDistribution distribution = (NormalDistribution) totalMassUncertainty.getEffect().getExpression();
+        assertEquals(totalMass + 4 * rodMass, distribution.getMu(), 1e-9);
+        assertEquals(Math.sqrt(rods + 4) * 0.015, distribution.getSigma(), 1e-9);
+        assertEquals(totalMass + 4 * rodMass, damperSystem.getTotalMassInKg(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Count and item mass changed in one commit")
+    void countAndMassInOneCommitTest(@TempDir Path tempDir) {
+        VirtualModel vsum = createVirtualModel(tempDir);
+        CommittableView view = getView(vsum);
+        FleetGenerator.populate(view, 1, 0, ExpressionMix.ABSENT, SEED);
+        view.commitChanges();
+        assertEquals(expectedTotalMass(getDamperSystem(getView(vsum))),
+                getDamperSystem(getView(vsum)).getTotalMassInKg(), 1e-9);
+
+        CommittableView changeView = getView(vsum);
+        GuidanceElement guidanceElement = getDamperSystem(changeView).getGuidanceElement();
+        guidanceElement.setNumberOfArms(4);
+        guidanceElement.setMassOfArmInKg(1.5);
+        changeView.commitChanges();
+
+        DamperSystem damperSystem = getDamperSystem(getView(vsum));
+        assertEquals(expectedTotalMass(damperSystem), damperSystem.getTotalMassInKg(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Repeated edits do not stack up the total mass uncertainty")
+    void repeatedEditsWithStoExTest(@TempDir Path tempDir) {
+        VirtualModel vsum = createVirtualModel(tempDir);
+        CommittableView view = getView(vsum);
+        FleetGenerator.populate(view, 1, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL, SEED);
+        view.commitChanges();
+
+        NormalDistribution initial = getTotalMassDistribution(getView(vsum));
+        double initialMass = getDamperSystem(getView(vsum)).getTotalMassInKg();
+        assertEquals(expectedTotalMass(getDamperSystem(getView(vsum))), initialMass, 1e-6);
+
+        for (int i = 0; i < 10; i++) {
+            CommittableView changeView = getView(vsum);
+            UpperTruss upperTruss = getDamperSystem(changeView).getUpperTruss();
+            upperTruss.setNumberOfThreadedRods(i % 2 == 0 ? 25 : 21);
+            changeView.commitChanges();
+        }
+
+        NormalDistribution result = getTotalMassDistribution(getView(vsum));
+        assertEquals(initial.getMu(), result.getMu(), 1e-6);
+        assertEquals(initial.getSigma(), result.getSigma(), 1e-9);
+        assertEquals(initialMass, getDamperSystem(getView(vsum)).getTotalMassInKg(), 1e-6);
+    }
+
+    private static double expectedTotalMass(DamperSystem damperSystem) {
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        LowerTruss lowerTruss = damperSystem.getLowerTruss();
+        GuidanceElement guidanceElement = damperSystem.getGuidanceElement();
+        return upperTruss.getCrossLinkMassInKg() + upperTruss.getSphereMassInKg()
+                + upperTruss.getNumberOfThreadedRods() * upperTruss.getMassOfThreadedRodInKg()
+                + lowerTruss.getSphereMassInKg()
+                + lowerTruss.getNumberOfThreadedRods() * lowerTruss.getMassOfThreadedRodInKg()
+                + guidanceElement.getNumberOfArms() * guidanceElement.getMassOfArmInKg()
+                + guidanceElement.getMassOfJointMiddlePartInKg()
+                + damperSystem.getSpringDamper().getSpringSupportMassInKg();
+    }
+
+    private NormalDistribution getTotalMassDistribution(View view) {
+        UncertaintyAnnotationRepository uncertaintyRepo = view
+                .getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+        Uncertainty totalMassUncertainty = uncertaintyRepo.getUncertainties().stream()
+                .filter(u -> "totalMassInKg".equals(u.getUncertaintyLocation().getParameterLocation()))
+                .findFirst()
+                .orElseThrow();
+        return (NormalDistribution) totalMassUncertainty.getEffect().getExpression();
+    }
+
+    private VirtualModel createVirtualModel(Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        return vsum;
+    }
+
+    private CommittableView getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+    }
+
+    private DamperSystem getDamperSystem(View view) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(0);
+    }
+}
@@ -116,6 +116,37 @@ public class TotalMassTest {
 
     }
 
+    @Test
+    @DisplayName("Change Number of Threaded Rods and Propagate Total Mass Uncertainty")
+    void changeNumberOfThreadedRodsWithUncertaintyAndStoExTest(@TempDir Path tempDir) {
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+
+        CommittableView committableView = UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+        modifyView(committableView, this::annotateWithUncertaintyAndStoex);
+
+        // Add four threaded rods to the upper truss (21 -> 25)
+        CommittableView changeView = UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+        modifyView(changeView, v -> getDamperSystem(v).getUpperTruss().setNumberOfThreadedRods(25));
+
+        View view = UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+        DamperSystem damperSystem = getDamperSystem(view);
+        assertEquals(50.7146 + 4 * 0.363, damperSystem.getTotalMassInKg(), 0.001);
+
+        Expression expr = getTotalMassUncertainty(view).getEffect().getExpression();
+        assertTrue(expr instanceof NormalDistribution);
+        NormalDistribution distribution = (NormalDistribution) expr;
+        assertEquals(50.7146 + 4 * 0.363, distribution.getMu(), 0.001);
+        // Four additional independent rods with sigma 0.015 each
+        assertEquals(Math.sqrt(0.5829 * 0.5829 + 4 * 0.015 * 0.015), distribution.getSigma(), 0.001);
+    }
+
     private static Uncertainty findUncertaintyByLocation(UncertaintyAnnotationRepository repo,
             String parameterLocation,
             EObject referencedObject) {
@@ -0,0 +1,109 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.views.View;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.ViewSessionManager;
+import tools.vitruv.methodologisttemplate.vsum.ViewSessionManager.Session;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+import uncertainty.UncertaintyAnnotationRepository;
+
+public class ViewSessionManagerTest {
+
+    private static final int SYSTEMS = 4;
+
+    @Test
+    @DisplayName("Clients editing disjoint damper systems all commit")
+    void disjointCommitTest(@TempDir Path tempDir) throws Exception {
+        InternalVirtualModel vsum = createFleet(tempDir);
+
+        try (ViewSessionManager manager = new ViewSessionManager(vsum)) {
+            List<Future<Void>> clients = new ArrayList<>();
+            for (int i = 0; i < SYSTEMS; i++) {
+                int index = i;
+                clients.add(manager.submit(session -> {
+                    getDamperSystem(session.getView(), index).getSpringDamper().setStiffnessInNPerM(20000 + index);
+                    session.commit();
+                    return null;
+                }));
+            }
+            for (Future<Void> client : clients) {
+                client.get();
+            }
+            assertEquals(SYSTEMS, manager.getCommitCount());
+            assertEquals(0, manager.getConflictCount());
+        }
+
+        View view = getView(vsum);
+        for (int i = 0; i < SYSTEMS; i++) {
+            assertEquals(20000 + i, getDamperSystem(view, i).getSpringDamper().getStiffnessInNPerM());
+        }
+    }
+
+    @Test
+    @DisplayName("A commit to a damper system changed since the view was created is rejected")
+    void conflictTest(@TempDir Path tempDir) {
+        InternalVirtualModel vsum = createFleet(tempDir);
+
+        try (ViewSessionManager manager = new ViewSessionManager(vsum);
+                Session first = manager.open();
+                Session second = manager.open();
+                Session other = manager.open()) {
+            getDamperSystem(first.getView(), 0).getUpperTruss().setSphereMassInKg(0.5);
+            getDamperSystem(second.getView(), 0).getUpperTruss().setSphereMassInKg(0.7);
+            getDamperSystem(other.getView(), 1).getUpperTruss().setSphereMassInKg(0.9);
+
+            first.commit();
+            assertThrows(ConcurrentModificationException.class, second::commit);
+            other.commit();
+            assertEquals(1, manager.getConflictCount());
+
+            // The rejected session continues on a current view
+            assertEquals(0.5, getDamperSystem(second.getView(), 0).getUpperTruss().getSphereMassInKg());
+            getDamperSystem(second.getView(), 0).getUpperTruss().setSphereMassInKg(0.7);
+            second.commit();
+            assertEquals(3, manager.getCommitCount());
+        }
+
+        View view = getView(vsum);
+        assertEquals(0.7, getDamperSystem(view, 0).getUpperTruss().getSphereMassInKg());
+        assertEquals(0.9, getDamperSystem(view, 1).getUpperTruss().getSphereMassInKg());
+    }
+
+    private InternalVirtualModel createFleet(Path tempDir) {
+        InternalVirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+        CommittableView view = getView(vsum).withChangeRecordingTrait();
+        FleetGenerator.populate(view, SYSTEMS, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM, ExpressionMix.NORMAL,
+                13L);
+        view.commitChanges();
+        return vsum;
+    }
+
+    private View getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum,
+                List.of(DamperRepository.class, UncertaintyAnnotationRepository.class));
+    }
+
+    private DamperSystem getDamperSystem(View view, int index) {
+        return view.getRootObjects(DamperRepository.class).iterator().next().getDamperSystems().get(index);
+    }
+}
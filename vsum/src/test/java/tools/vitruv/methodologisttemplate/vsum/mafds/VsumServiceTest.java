@@ -0,0 +1,86 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tools.vitruv.framework.vsum.internal.InternalVirtualModel;
+import tools.vitruv.methodologisttemplate.vsum.VsumService;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestUtil;
+
+public class VsumServiceTest {
+
+    private static final String FLEET = """
+            {"id": "D-1", "upperTruss.sphereMassInKg": 0.5, "upperTruss.sphereMassInKg.sigma": 0.02, \
+            "springDamper.stiffnessInNPerM": 26000, "springDamper.dampingConstantInNsPerM": 500}
+            {"id": "D-2", "upperTruss.sphereMassInKg": 0.6, "springDamper.stiffnessInNPerM": 30000, \
+            "springDamper.dampingConstantInNsPerM": 400}
+            """;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("Edits and queries are served by the resident virtual model")
+    void editAndQueryTest(@TempDir Path tempDir) throws Exception {
+        InternalVirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+
+        try (VsumService service = VsumService.start(vsum, 0)) {
+            HttpResponse<String> report = post(service, FLEET);
+            assertEquals(200, report.statusCode());
+            assertTrue(report.body().contains("\"records\":2,\"created\":2"));
+
+            List<String> systems = get(service, "systems").body().lines().toList();
+            assertEquals(2, systems.size());
+            assertTrue(systems.get(0).startsWith("{\"id\":\"D-1\",\"totalMassInKg\":{\"value\":"));
+
+            // A second edit of the annotated mass propagates the uncertainty to the total mass
+            String before = get(service, "systems?id=D-1").body();
+            post(service, "{\"id\": \"D-1\", \"upperTruss.sphereMassInKg\": 0.55}");
+            String after = get(service, "systems?id=D-1").body();
+            assertEquals(1, after.lines().count());
+            assertNotEquals(before, after);
+            assertTrue(after.contains("\"totalMassInKg\":{\"value\":") && after.contains("\"mean\":"));
+        }
+    }
+
+    @Test
+    @DisplayName("Malformed requests are rejected with the error")
+    void errorTest(@TempDir Path tempDir) throws Exception {
+        InternalVirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+
+        try (VsumService service = VsumService.start(vsum, 0)) {
+            HttpResponse<String> unknownParameter = post(service, "{\"id\": \"D-1\", \"upperTruss.colour\": 1}");
+            assertEquals(400, unknownParameter.statusCode());
+            assertTrue(unknownParameter.body().contains("Unknown damper parameter: upperTruss.colour"));
+
+            assertEquals(400, get(service, "systems?id=D-9").statusCode());
+            HttpResponse<String> wrongMethod = client.send(
+                    HttpRequest.newBuilder(service.getUri().resolve("edits")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(405, wrongMethod.statusCode());
+        }
+    }
+
+    private HttpResponse<String> post(VsumService service, String records) throws Exception {
+        return client.send(HttpRequest.newBuilder(service.getUri().resolve("edits"))
+                .POST(HttpRequest.BodyPublishers.ofString(records)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(VsumService service, String path) throws Exception {
+        URI uri = service.getUri().resolve(path);
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
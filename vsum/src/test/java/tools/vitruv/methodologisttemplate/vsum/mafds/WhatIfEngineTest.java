@@ -0,0 +1,122 @@
+package tools.vitruv.methodologisttemplate.vsum.mafds;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import mafds.DamperSystem;
+import mafds.GuidanceElement;
+import mafds.LowerTruss;
+import mafds.UpperTruss;
+import tools.vitruv.methodologisttemplate.consistency.StoexArithmetic;
+import tools.vitruv.methodologisttemplate.consistency.StoexFormula;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine.Axis;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine.Row;
+import tools.vitruv.methodologisttemplate.consistency.WhatIfEngine.Table;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.UncertaintyTestFactory;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+
+public class WhatIfEngineTest {
+
+    private static final long SEED = 17L;
+
+    @Test
+    @DisplayName("Every combination of the axes is evaluated without modifying the system")
+    void sweepTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        DamperSystem damperSystem = createDamperSystem(repo);
+        double totalMass = damperSystem.getTotalMassInKg();
+        int rods = damperSystem.getUpperTruss().getNumberOfThreadedRods();
+        double rodMass = damperSystem.getUpperTruss().getMassOfThreadedRodInKg();
+        double dampingConstant = damperSystem.getSpringDamper().getDampingConstantInNsPerM();
+
+        Table table = new WhatIfEngine(ForkJoinPool.commonPool()).sweep(damperSystem, repo, List.of(
+                Axis.range("upperTruss.numberOfThreadedRods", 4, 8, 5),
+                Axis.of("springDamper.stiffnessInNPerM", 20000, 30000)));
+
+        assertEquals(List.of("upperTruss.numberOfThreadedRods", "springDamper.stiffnessInNPerM"),
+                table.parameters());
+        assertEquals(10, table.rows().size());
+        for (int i = 0; i < table.rows().size(); i++) {
+            Row row = table.rows().get(i);
+            assertArrayEquals(new double[] { 4 + i / 2, i % 2 == 0 ? 20000 : 30000 }, row.parameters());
+            double expectedMass = totalMass + (row.parameters()[0] - rods) * rodMass;
+            assertEquals(expectedMass, row.totalMassInKg(), 1e-9);
+            assertEquals(dampingConstant / (2 * Math.sqrt(row.parameters()[1] * expectedMass)),
+                    row.dampingRatio(), 1e-12);
+            assertTrue(Double.isNaN(row.totalMassStdDev()) && Double.isNaN(row.dampingRatioStdDev()));
+        }
+        assertTrue(table.toCsv().startsWith("upperTruss.numberOfThreadedRods,springDamper.stiffnessInNPerM,"
+                + "totalMassInKg,totalMassStdDev,dampingRatio,dampingRatioStdDev\n4.0,20000.0,"));
+
+        // The sweep worked on forks only
+        assertEquals(rods, damperSystem.getUpperTruss().getNumberOfThreadedRods());
+        assertEquals(totalMass, damperSystem.getTotalMassInKg());
+        assertTrue(damperSystem.eAdapters().isEmpty());
+        assertTrue(repo.getUncertainties().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Changes of exact parameters shift an annotated total mass")
+    void annotatedTotalMassTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        DamperSystem damperSystem = createDamperSystem(repo);
+        double totalMass = damperSystem.getTotalMassInKg();
+        Uncertainty totalMassUncertainty = UncertaintyTestFactory.createUncertainty(damperSystem, "totalMassInKg",
+                StoexArithmetic.normal(totalMass, 0.5));
+        repo.getUncertainties().add(totalMassUncertainty);
+        GuidanceElement guidanceElement = damperSystem.getGuidanceElement();
+        int arms = guidanceElement.getNumberOfArms();
+
+        Table table = new WhatIfEngine(null).sweep(damperSystem, repo,
+                List.of(Axis.of("guidanceElement.numberOfArms", arms + 1, arms + 2)));
+
+        for (Row row : table.rows()) {
+            assertEquals(totalMass + (row.parameters()[0] - arms) * guidanceElement.getMassOfArmInKg(),
+                    row.totalMassInKg(), 1e-9);
+            assertEquals(0.5, row.totalMassStdDev(), 1e-9);
+        }
+        assertEquals(1, repo.getUncertainties().size());
+        assertEquals(totalMass, StoexFormula.mean(totalMassUncertainty.getEffect().getExpression()), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Unknown parameters are rejected")
+    void unknownParameterTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        DamperSystem damperSystem = createDamperSystem(repo);
+        WhatIfEngine engine = new WhatIfEngine(null);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.sweep(damperSystem, repo, List.of(Axis.of("upperTruss.colour", 1))));
+        assertEquals("Unknown damper parameter: upperTruss.colour", exception.getMessage());
+    }
+
+    private static DamperSystem createDamperSystem(UncertaintyAnnotationRepository repo) {
+        DamperSystem damperSystem = FleetGenerator.generate(repo, 1, 0, ExpressionMix.ABSENT, SEED)
+                .getDamperSystems().get(0);
+        UpperTruss upperTruss = damperSystem.getUpperTruss();
+        LowerTruss lowerTruss = damperSystem.getLowerTruss();
+        GuidanceElement guidanceElement = damperSystem.getGuidanceElement();
+        damperSystem.setTotalMassInKg(upperTruss.getCrossLinkMassInKg() + upperTruss.getSphereMassInKg()
+                + upperTruss.getNumberOfThreadedRods() * upperTruss.getMassOfThreadedRodInKg()
+                + lowerTruss.getSphereMassInKg()
+                + lowerTruss.getNumberOfThreadedRods() * lowerTruss.getMassOfThreadedRodInKg()
+                + guidanceElement.getNumberOfArms() * guidanceElement.getMassOfArmInKg()
+                + guidanceElement.getMassOfJointMiddlePartInKg()
+                + damperSystem.getSpringDamper().getSpringSupportMassInKg());
+        return damperSystem;
+    }
+}
@@ -0,0 +1,86 @@
+package tools.vitruv.methodologisttemplate.vsum.uncertainty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import mafds.MafdsFactory;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyReactionsHelper;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+import uncertainty.UncertaintyKind;
+
+/**
+ * Tests the duplicate detection of
+ * {@link UncertaintyReactionsHelper#createMissingUncertaintiesForReferencedComponents}
+ * and measures bulk annotation of growing fleets, which is expected to scale
+ * linearly with the number of components.
+ */
+public class BulkAnnotationPerformanceTest {
+
+    private static final int[] COMPONENT_COUNTS = { 1_000, 10_000, 100_000 };
+
+    @Test
+    @DisplayName("Equivalent uncertainties are not created twice")
+    void skipsEquivalentUncertaintiesTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        EObject annotated = MafdsFactory.eINSTANCE.createUpperTruss();
+        EObject missing = MafdsFactory.eINSTANCE.createLowerTruss();
+        Uncertainty existing = UncertaintyTestFactory.createUncertainty(annotated, "sphereMassInKg", null);
+        repo.getUncertainties().add(existing);
+        Uncertainty source = UncertaintyTestFactory.createUncertainty(annotated, "sphereMassInKg", null);
+
+        List<Uncertainty> created = UncertaintyReactionsHelper.createMissingUncertaintiesForReferencedComponents(
+                repo, List.of(annotated, missing), source);
+        assertEquals(1, created.size());
+        assertSame(missing, created.get(0).getUncertaintyLocation().getReferencedComponents().get(0));
+
+        // The existing uncertainty is no longer equivalent once its kind changes
+        existing.setKind(UncertaintyKind.MEASUREMENT_UNCERTAINTY);
+        created = UncertaintyReactionsHelper.createMissingUncertaintiesForReferencedComponents(repo,
+                List.of(annotated, missing), source);
+        assertEquals(1, created.size());
+        assertSame(annotated, created.get(0).getUncertaintyLocation().getReferencedComponents().get(0));
+        assertEquals(3, repo.getUncertainties().size());
+    }
+
+    @Test
+    @DisplayName("Performance Test: Bulk annotation of growing fleets")
+    void measureBulkAnnotation() {
+        System.out.printf("%-12s | %-16s | %-16s%n", "Components", "Annotate / elem", "Re-check / elem");
+        System.out.println("-".repeat(50));
+
+        for (int componentCount : COMPONENT_COUNTS) {
+            UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE
+                    .createUncertaintyAnnotationRepository();
+            List<EObject> components = new ArrayList<>(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                components.add(MafdsFactory.eINSTANCE.createUpperTruss());
+            }
+            Uncertainty source = UncertaintyTestFactory.createUncertainty(components.get(0), "sphereMassInKg",
+                    null);
+
+            long start = System.nanoTime();
+            List<Uncertainty> created = UncertaintyReactionsHelper
+                    .createMissingUncertaintiesForReferencedComponents(repo, components, source);
+            long annotateNanos = (System.nanoTime() - start) / componentCount;
+            assertEquals(componentCount, created.size());
+
+            // All components are annotated now, nothing must be created
+            start = System.nanoTime();
+            created = UncertaintyReactionsHelper.createMissingUncertaintiesForReferencedComponents(repo,
+                    components, source);
+            long recheckNanos = (System.nanoTime() - start) / componentCount;
+            assertEquals(0, created.size());
+
+            System.out.printf("%-12d | %13d ns | %13d ns%n", componentCount, annotateNanos, recheckNanos);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package tools.vitruv.methodologisttemplate.vsum.uncertainty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.eclipse.emf.ecore.EObject;
+
+import mafds.DamperRepository;
+import mafds.DamperSystem;
+import mafds.GuidanceElement;
+import mafds.LowerTruss;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import mafds.UpperTruss;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.stoex.stoex.DoubleLiteral;
+import tools.vitruv.stoex.stoex.Expression;
+import tools.vitruv.stoex.stoex.NormalDistribution;
+import tools.vitruv.stoex.stoex.StoexFactory;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+
+/**
+ * Generates fleets of damper systems for scaling tests and benchmarks. Every
+ * system is the damper system of the total mass test with slightly varied
+ * parameters, annotated with up to {@link #MAX_UNCERTAINTIES_PER_SYSTEM}
+ * uncertainties created by the {@link UncertaintyTestFactory}. Generation is
+ * deterministic for a given seed.
+ */
+public class FleetGenerator {
+
+	/**
+	 * The share of uncertainties annotated with a double literal and with a
+	 * normal distribution; the remaining uncertainties have no expression.
+	 */
+	public record ExpressionMix(double literalShare, double normalShare) {
+
+		public static final ExpressionMix ABSENT = new ExpressionMix(0, 0);
+		public static final ExpressionMix LITERAL = new ExpressionMix(1, 0);
+		public static final ExpressionMix NORMAL = new ExpressionMix(0, 1);
+		public static final ExpressionMix MIXED = new ExpressionMix(1.0 / 3, 1.0 / 3);
+
+		public ExpressionMix {
+			if (literalShare < 0 || normalShare < 0 || literalShare + normalShare > 1 + 1e-9) {
+				throw new IllegalArgumentException(
+						"Invalid expression mix: " + literalShare + " literal, " + normalShare + " normal");
+			}
+		}
+	}
+
+	private record AnnotatedParameter(EObject component, String parameterLocation, double value,
+			double relativeSigma) {
+	}
+
+	public static final int MAX_UNCERTAINTIES_PER_SYSTEM = 10;
+
+	private FleetGenerator() {
+		// Utility class
+	}
+
+	/**
+	 * Generates a fleet into a new, detached damper repository.
+	 *
+	 * @param uncertaintyRepository  The repository to add the uncertainties to.
+	 * @param systems                The number of damper systems.
+	 * @param uncertaintiesPerSystem The number of uncertainties per system.
+	 * @param mix                    The mix of expressions.
+	 * @param seed                   The seed for varying the parameters.
+	 * @return The new damper repository.
+	 */
+	public static DamperRepository generate(UncertaintyAnnotationRepository uncertaintyRepository, int systems,
+			int uncertaintiesPerSystem, ExpressionMix mix, long seed) {
+		DamperRepository damperRepository = MafdsFactory.eINSTANCE.createDamperRepository();
+		generate(damperRepository, uncertaintyRepository, systems, uncertaintiesPerSystem, mix, seed);
+		return damperRepository;
+	}
+
+	/**
+	 * Generates a fleet into the root objects of a view. The changes are not
+	 * committed.
+	 *
+	 * @param view                   A view containing a damper repository and an
+	 *                               uncertainty annotation repository.
+	 * @param systems                The number of damper systems.
+	 * @param uncertaintiesPerSystem The number of uncertainties per system.
+	 * @param mix                    The mix of expressions.
+	 * @param seed                   The seed for varying the parameters.
+	 */
+	public static void populate(CommittableView view, int systems, int uncertaintiesPerSystem, ExpressionMix mix,
+			long seed) {
+		generate(view.getRootObjects(DamperRepository.class).iterator().next(),
+				view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next(),
+				systems, uncertaintiesPerSystem, mix, seed);
+	}
+
+	/**
+	 * Generates a fleet into existing repositories.
+	 *
+	 * @param damperRepository       The repository to add the systems to.
+	 * @param uncertaintyRepository  The repository to add the uncertainties to.
+	 * @param systems                The number of damper systems.
+	 * @param uncertaintiesPerSystem The number of uncertainties per system.
+	 * @param mix                    The mix of expressions.
+	 * @param seed                   The seed for varying the parameters.
+	 */
+	public static void generate(DamperRepository damperRepository,
+			UncertaintyAnnotationRepository uncertaintyRepository, int systems, int uncertaintiesPerSystem,
+			ExpressionMix mix, long seed) {
+		if (systems < 0) {
+			throw new IllegalArgumentException("Number of systems must not be negative: " + systems);
+		}
+		if (uncertaintiesPerSystem < 0 || uncertaintiesPerSystem > MAX_UNCERTAINTIES_PER_SYSTEM) {
+			throw new IllegalArgumentException("Number of uncertainties per system must be between 0 and "
+					+ MAX_UNCERTAINTIES_PER_SYSTEM + ": " + uncertaintiesPerSystem);
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		List<DamperSystem> damperSystems = new ArrayList<>(systems);
+		List<Uncertainty> uncertainties = new ArrayList<>(systems * uncertaintiesPerSystem);
+		for (int i = 0; i < systems; i++) {
+			DamperSystem damperSystem = createDamperSystem(random);
+			damperSystems.add(damperSystem);
+			uncertainties.addAll(createUncertainties(damperSystem, uncertaintiesPerSystem, mix, random));
+		}
+		// Add in bulk to keep the number of notifications low
+		damperRepository.getDamperSystems().addAll(damperSystems);
+		uncertaintyRepository.getUncertainties().addAll(uncertainties);
+	}
+
+	private static DamperSystem createDamperSystem(SplittableRandom random) {
+		DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+
+		UpperTruss upperTruss = MafdsFactory.eINSTANCE.createUpperTruss();
+		upperTruss.setCrossLinkMassInKg(vary(13.74, random));
+		upperTruss.setMassOfThreadedRodInKg(vary(0.363, random));
+		upperTruss.setNumberOfThreadedRods(21);
+		upperTruss.setSphereMassInKg(vary(0.76, random));
+
+		LowerTruss lowerTruss = MafdsFactory.eINSTANCE.createLowerTruss();
+		lowerTruss.setSphereMassInKg(vary(0.76, random));
+		lowerTruss.setMassOfThreadedRodInKg(vary(0.363, random));
+		lowerTruss.setNumberOfThreadedRods(6);
+
+		GuidanceElement guidanceElement = MafdsFactory.eINSTANCE.createGuidanceElement();
+		guidanceElement.setMassOfArmInKg(vary(1.46, random));
+		guidanceElement.setNumberOfArms(3);
+		guidanceElement.setMassOfJointMiddlePartInKg(vary(0.9236, random));
+
+		SpringDamper springDamper = MafdsFactory.eINSTANCE.createSpringDamper();
+		springDamper.setStiffnessInNPerM(vary(27000, random));
+		springDamper.setDampingConstantInNsPerM(vary(140, random));
+		springDamper.setSpringSupportMassInKg(vary(20.35, random));
+
+		damperSystem.setUpperTruss(upperTruss);
+		damperSystem.setLowerTruss(lowerTruss);
+		damperSystem.setGuidanceElement(guidanceElement);
+		damperSystem.setSpringDamper(springDamper);
+		return damperSystem;
+	}
+
+	// Annotates the parameters in a fixed order, the relative standard
+	// deviations are the ones of the total mass test
+	private static List<Uncertainty> createUncertainties(DamperSystem damperSystem, int count,
+			ExpressionMix mix, SplittableRandom random) {
+		UpperTruss upperTruss = damperSystem.getUpperTruss();
+		LowerTruss lowerTruss = damperSystem.getLowerTruss();
+		GuidanceElement guidanceElement = damperSystem.getGuidanceElement();
+		SpringDamper springDamper = damperSystem.getSpringDamper();
+		List<AnnotatedParameter> parameters = List.of(
+				new AnnotatedParameter(upperTruss, "crossLinkMassInKg", upperTruss.getCrossLinkMassInKg(), 0.036),
+				new AnnotatedParameter(upperTruss, "sphereMassInKg", upperTruss.getSphereMassInKg(), 0.04),
+				new AnnotatedParameter(upperTruss, "massOfThreadedRodInKg", upperTruss.getMassOfThreadedRodInKg(),
+						0.041),
+				new AnnotatedParameter(lowerTruss, "sphereMassInKg", lowerTruss.getSphereMassInKg(), 0.04),
+				new AnnotatedParameter(lowerTruss, "massOfThreadedRodInKg", lowerTruss.getMassOfThreadedRodInKg(),
+						0.041),
+				new AnnotatedParameter(guidanceElement, "massOfArmInKg", guidanceElement.getMassOfArmInKg(), 0.051),
+				new AnnotatedParameter(guidanceElement, "massOfJointMiddlePartInKg",
+						guidanceElement.getMassOfJointMiddlePartInKg(), 0.054),
+				new AnnotatedParameter(springDamper, "stiffnessInNPerM", springDamper.getStiffnessInNPerM(), 0.044),
+				new AnnotatedParameter(springDamper, "dampingConstantInNsPerM",
+						springDamper.getDampingConstantInNsPerM(), 0.05),
+				new AnnotatedParameter(springDamper, "springSupportMassInKg", springDamper.getSpringSupportMassInKg(),
+						0.012));
+
+		List<Uncertainty> uncertainties = new ArrayList<>(count);
+		for (AnnotatedParameter parameter : parameters.subList(0, count)) {
+			Expression expression = createExpression(parameter.value(),
+					parameter.value() * parameter.relativeSigma(), mix, random);
+			uncertainties.add(UncertaintyTestFactory.createUncertainty(parameter.component(),
+					parameter.parameterLocation(), expression));
+		}
+		return uncertainties;
+	}
+
+	private static Expression createExpression(double mu, double sigma, ExpressionMix mix,
+			SplittableRandom random) {
+		double choice = random.nextDouble();
+		if (choice < mix.literalShare()) {
+			DoubleLiteral literal = StoexFactory.eINSTANCE.createDoubleLiteral();
+			literal.setValue(mu);
+			return literal;
+		}
+		if (choice < mix.literalShare() + mix.normalShare()) {
+			NormalDistribution distribution = StoexFactory.eINSTANCE.createNormalDistribution();
+			distribution.setMu(mu);
+			distribution.setSigma(sigma);
+			return distribution;
+		}
+		return null;
+	}
+
+	// Varies a nominal value by up to +-5 percent
+	private static double vary(double nominal, SplittableRandom random) {
+		return nominal * (0.95 + 0.1 * random.nextDouble());
+	}
+}
@@ -0,0 +1,176 @@
+package tools.vitruv.methodologisttemplate.vsum.uncertainty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import mafds.MafdsFactory;
+import mafds.UpperTruss;
+import tools.vitruv.framework.views.CommittableView;
+import tools.vitruv.framework.vsum.VirtualModel;
+import tools.vitruv.methodologisttemplate.consistency.PropagationSettings;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyProfiles;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyReactionsHelper;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintySignature;
+import tools.vitruv.methodologisttemplate.vsum.uncertainty.FleetGenerator.ExpressionMix;
+import uncertainty.PatternType;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+import uncertainty.UncertaintyProfile;
+
+/**
+ * Tests the copy-on-write sharing of patterns and perspectives by
+ * {@link UncertaintyProfiles} and measures the heap retained by and the bytes
+ * allocated for derived uncertainties of a generated fleet with and without
+ * sharing.
+ */
+public class ProfileSharingTest {
+
+    private static final int FLEET_SIZE = 10_000;
+
+    @BeforeAll
+    static void setup() {
+        Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap().put("*", new XMIResourceFactoryImpl());
+    }
+
+    @AfterEach
+    void resetSettings() {
+        PropagationSettings.reset();
+    }
+
+    @Test
+    @DisplayName("Shared copies reference one profile and are copied on edit")
+    void sharedCopiesTest() {
+        PropagationSettings.setShareProfiles(true);
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        UpperTruss upperTruss = MafdsFactory.eINSTANCE.createUpperTruss();
+        Uncertainty original = UncertaintyTestFactory.createUncertainty(upperTruss, "sphereMassInKg", null);
+
+        Uncertainty first = UncertaintyReactionsHelper.deepCopyUncertainty(original, repo);
+        Uncertainty second = UncertaintyReactionsHelper.deepCopyUncertainty(original, repo);
+        repo.getUncertainties().addAll(List.of(first, second));
+
+        assertEquals(1, repo.getProfiles().size());
+        assertSame(first.getProfile(), second.getProfile());
+        assertNull(first.getPattern());
+        assertNull(first.getPerspective());
+        assertEquals(UncertaintySignature.of(original), UncertaintySignature.of(first));
+
+        // Copies of shared uncertainties resolve the profile as well
+        Uncertainty unshared = UncertaintyReactionsHelper.deepCopyUncertainty(first);
+        assertNotNull(unshared.getPattern());
+        assertEquals(UncertaintySignature.of(original), UncertaintySignature.of(unshared));
+
+        UncertaintyProfiles.edit(first).getPattern().setPatternType(PatternType.RANDOM);
+        assertNull(first.getProfile());
+        assertEquals(PatternType.RANDOM, first.getPattern().getPatternType());
+        assertEquals(original.getPattern().getPatternType(), UncertaintyProfiles.getPattern(second).getPatternType());
+    }
+
+    @Test
+    @DisplayName("Profiles can be created and edited through a view")
+    void editProfileInViewTest(@TempDir Path tempDir) {
+        PropagationSettings.setShareProfiles(true);
+        VirtualModel vsum = UncertaintyTestUtil.createDefaultVirtualModel(tempDir);
+        UncertaintyTestUtil.registerRootObjects(vsum, tempDir);
+
+        // Inserting the profile replays the initialization of its pattern and
+        // perspective, which must not be propagated like a change of an uncertainty
+        CommittableView view = getView(vsum);
+        UncertaintyProfiles.intern(getRepository(view), UncertaintyTestFactory.createPattern(),
+                UncertaintyTestFactory.createUncertaintyPerspective());
+        view.commitChanges();
+
+        CommittableView editView = getView(vsum);
+        UncertaintyProfile profile = getRepository(editView).getProfiles().get(0);
+        profile.getPattern().setPatternType(PatternType.RANDOM);
+        profile.getPerspective().setSpecification("Edited specification");
+        editView.commitChanges();
+
+        UncertaintyProfile edited = getRepository(getView(vsum)).getProfiles().get(0);
+        assertEquals(PatternType.RANDOM, edited.getPattern().getPatternType());
+        assertEquals("Edited specification", edited.getPerspective().getSpecification());
+    }
+
+    @Test
+    @DisplayName("Unshared copies keep their own pattern and perspective")
+    void unsharedCopiesTest() {
+        UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE.createUncertaintyAnnotationRepository();
+        Uncertainty original = UncertaintyTestFactory
+                .createUncertainty(MafdsFactory.eINSTANCE.createUpperTruss(), "sphereMassInKg", null);
+
+        Uncertainty copy = UncertaintyReactionsHelper.deepCopyUncertainty(original, repo);
+
+        assertNull(copy.getProfile());
+        assertNotNull(copy.getPattern());
+        assertNotNull(copy.getPerspective());
+        assertTrue(repo.getProfiles().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Performance Test: Heap and allocation of derived uncertainties")
+    void measureProfileSharing() {
+        System.out.printf("%-8s | %-18s | %-18s%n", "Shared", "Retained / copy", "Allocated / copy");
+        System.out.println("-".repeat(50));
+        for (boolean share : new boolean[] { false, true }) {
+            PropagationSettings.setShareProfiles(share);
+            UncertaintyAnnotationRepository sources = UncertaintyFactory.eINSTANCE
+                    .createUncertaintyAnnotationRepository();
+            FleetGenerator.generate(sources, FLEET_SIZE, FleetGenerator.MAX_UNCERTAINTIES_PER_SYSTEM,
+                    ExpressionMix.ABSENT, 42L);
+            UncertaintyAnnotationRepository derived = UncertaintyFactory.eINSTANCE
+                    .createUncertaintyAnnotationRepository();
+
+            long heapBefore = usedHeapAfterGc();
+            long allocatedBefore = allocatedBytes();
+            List<Uncertainty> copies = new ArrayList<>(sources.getUncertainties().size());
+            for (Uncertainty source : sources.getUncertainties()) {
+                copies.add(UncertaintyReactionsHelper.deepCopyUncertainty(source, derived));
+            }
+            long allocated = allocatedBytes() - allocatedBefore;
+            derived.getUncertainties().addAll(copies);
+            long retained = usedHeapAfterGc() - heapBefore;
+
+            assertEquals(share ? 1 : 0, derived.getProfiles().size());
+            System.out.printf("%-8s | %13d B | %13d B%n", share, retained / copies.size(),
+                    allocated / copies.size());
+        }
+    }
+
+    private static CommittableView getView(VirtualModel vsum) {
+        return UncertaintyTestUtil.getDefaultView(vsum, List.of(UncertaintyAnnotationRepository.class))
+                .withChangeRecordingTrait();
+    }
+
+    private static UncertaintyAnnotationRepository getRepository(CommittableView view) {
+        return view.getRootObjects(UncertaintyAnnotationRepository.class).iterator().next();
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,106 @@
+package tools.vitruv.methodologisttemplate.vsum.uncertainty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import mafds.DamperSystem;
+import mafds.MafdsFactory;
+import mafds.SpringDamper;
+import mafds.UpperTruss;
+import tools.vitruv.methodologisttemplate.consistency.UncertaintyIndex;
+import uncertainty.Uncertainty;
+import uncertainty.UncertaintyAnnotationRepository;
+import uncertainty.UncertaintyFactory;
+import uncertainty.UncertaintyLocationType;
+
+/**
+ * Compares the lookup cost of the {@link UncertaintyIndex} with the linear scan
+ * over the repository that the reaction helpers used before, for repositories
+ * of growing size. The index lookup is expected to stay flat while the scan
+ * grows linearly with the number of uncertainties.
+ */
+public class UncertaintyIndexPerformanceTest {
+
+    private static final int[] DAMPER_COUNTS = { 10, 100, 1_000, 10_000 };
+    private static final int INDEX_LOOKUPS = 200_000;
+    private static final int SCAN_LOOKUPS = 500;
+
+    @Test
+    @DisplayName("Performance Test: Uncertainty lookup cost for growing repositories")
+    void measureLookupCost() {
+        System.out.printf("%-10s | %-14s | %-16s | %-16s%n", "Dampers", "Uncertainties", "Index / lookup",
+                "Scan / lookup");
+        System.out.println("-".repeat(64));
+
+        for (int damperCount : DAMPER_COUNTS) {
+            UncertaintyAnnotationRepository repo = UncertaintyFactory.eINSTANCE
+                    .createUncertaintyAnnotationRepository();
+            List<EObject> components = new ArrayList<>();
+            for (int i = 0; i < damperCount; i++) {
+                DamperSystem damperSystem = createDamperSystem();
+                components.add(damperSystem.getUpperTruss());
+                repo.getUncertainties().addAll(List.of(
+                        UncertaintyTestFactory.createUncertainty(damperSystem.getUpperTruss(), "sphereMassInKg", null),
+                        UncertaintyTestFactory.createUncertainty(damperSystem.getUpperTruss(), "crossLinkMassInKg",
+                                null),
+                        UncertaintyTestFactory.createUncertainty(damperSystem.getSpringDamper(), "stiffnessInNPerM",
+                                null),
+                        UncertaintyTestFactory.createUncertainty(damperSystem, "totalMassInKg", null)));
+            }
+            UncertaintyIndex index = UncertaintyIndex.of(repo);
+            assertEquals(repo.getUncertainties().size(), index.size());
+
+            // Warm up and check that both strategies agree
+            for (int i = 0; i < Math.min(damperCount, 100); i++) {
+                EObject component = components.get(i);
+                assertSame(scan(repo, "crossLinkMassInKg", component), index.find(component, "crossLinkMassInKg"));
+            }
+
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < INDEX_LOOKUPS; i++) {
+                if (index.find(components.get(i % damperCount), "crossLinkMassInKg") != null) {
+                    found++;
+                }
+            }
+            long indexNanos = (System.nanoTime() - start) / INDEX_LOOKUPS;
+            assertEquals(INDEX_LOOKUPS, found);
+
+            start = System.nanoTime();
+            for (int i = 0; i < SCAN_LOOKUPS; i++) {
+                scan(repo, "crossLinkMassInKg", components.get((i * 7919) % damperCount));
+            }
+            long scanNanos = (System.nanoTime() - start) / SCAN_LOOKUPS;
+
+            System.out.printf("%-10d | %-14d | %13d ns | %13d ns%n", damperCount, repo.getUncertainties().size(),
+                    indexNanos, scanNanos);
+        }
+    }
+
+    // The lookup the helpers performed before the index was introduced
+    private static Uncertainty scan(UncertaintyAnnotationRepository repo, String parameterLocation,
+            EObject referencedObject) {
+        return repo.getUncertainties().stream()
+                .filter(u -> parameterLocation.equals(u.getUncertaintyLocation().getParameterLocation())
+                        && u.getUncertaintyLocation().getLocation() == UncertaintyLocationType.PARAMETER
+                        && u.getUncertaintyLocation().getReferencedComponents().contains(referencedObject))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static DamperSystem createDamperSystem() {
+        DamperSystem damperSystem = MafdsFactory.eINSTANCE.createDamperSystem();
+        UpperTruss upperTruss = MafdsFactory.eINSTANCE.createUpperTruss();
+        SpringDamper springDamper = MafdsFactory.eINSTANCE.createSpringDamper();
+        damperSystem.setUpperTruss(upperTruss);
+        damperSystem.setSpringDamper(springDamper);
+        return damperSystem;
+    }
+}